@@ -21,11 +21,12 @@
 package org.hibernate.ogm.datastore.impl;
 
 import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
 import org.hibernate.service.Service;
 
 /**
  * Provide datastore related services. At the moment only access to
- * {@link org.hibernate.ogm.dialect.GridDialect}
+ * {@link org.hibernate.ogm.dialect.GridDialect} and to the statistics of its operations
  *
  * @author Emmanuel Bernard <emmanuel@hibernate.org>
  */
@@ -34,4 +35,9 @@ public interface DatastoreServices extends Service {
 	 * Return the GridDialect
 	 */
 	GridDialect getGridDialect();
+
+	/**
+	 * Return the statistics of the operations of the GridDialect, null if they are not enabled
+	 */
+	GridStatisticsImpl getGridStatistics();
 }
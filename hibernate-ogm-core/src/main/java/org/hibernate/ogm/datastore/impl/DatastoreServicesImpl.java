@@ -20,9 +20,13 @@
  */
 package org.hibernate.ogm.datastore.impl;
 
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.internal.util.config.ConfigurationHelper;
 import org.hibernate.ogm.datastore.spi.DatastoreProvider;
 import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.dialect.impl.GridDialectFactory;
 import org.hibernate.ogm.dialect.impl.GridDialectFactoryImpl;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
 import org.hibernate.service.spi.Configurable;
 import org.hibernate.service.spi.ServiceRegistryAwareService;
 import org.hibernate.service.spi.ServiceRegistryImplementor;
@@ -36,12 +40,18 @@ public class DatastoreServicesImpl implements DatastoreServices, ServiceRegistry
 
 	private ServiceRegistryImplementor serviceRegistry;
 	private GridDialect gridDialect;
+	private GridStatisticsImpl gridStatistics;
 
 	@Override
 	public GridDialect getGridDialect() {
 		return gridDialect;
 	}
 
+	@Override
+	public GridStatisticsImpl getGridStatistics() {
+		return gridStatistics;
+	}
+
 	@Override
 	public void injectServices(ServiceRegistryImplementor serviceRegistry) {
 		this.serviceRegistry = serviceRegistry;
@@ -51,7 +61,15 @@ public class DatastoreServicesImpl implements DatastoreServices, ServiceRegistry
 	public void configure(Map configurationValues) {
 		GridDialectFactoryImpl dialectFactory = serviceRegistry.getService(GridDialectFactoryImpl.class);
 		DatastoreProvider datastoreProvider = serviceRegistry.getService(DatastoreProvider.class);
-		this.gridDialect = dialectFactory.buildGridDialect(configurationValues, serviceRegistry);
+		boolean statisticsEnabled = ConfigurationHelper.getBoolean(
+				GridDialectFactory.GRID_STATISTICS,
+				configurationValues,
+				ConfigurationHelper.getBoolean( AvailableSettings.GENERATE_STATISTICS, configurationValues )
+		);
+		if ( statisticsEnabled ) {
+			this.gridStatistics = new GridStatisticsImpl();
+		}
+		this.gridDialect = dialectFactory.buildGridDialect(configurationValues, serviceRegistry, gridStatistics);
 		this.serviceRegistry = null;
 	}
 }
@@ -0,0 +1,349 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ogm.datastore.spi.TupleCodec;
+import org.hibernate.ogm.datastore.spi.TupleSchema;
+import org.hibernate.ogm.datastore.spi.TupleSchemaResolver;
+import org.hibernate.ogm.util.impl.Log;
+import org.hibernate.ogm.util.impl.LoggerFactory;
+
+/**
+ * Encodes tuples as a list of (column index, value) pairs where the index
+ * is the position of the column in the {@link TupleSchema}.
+ *
+ * Layout:
+ * <pre>
+ * varint  schema version
+ * varint  number of schema columns, then for each: varint index delta, value
+ * varint  number of columns unknown to the schema, then for each: string name, value
+ * </pre>
+ * Tuples encoded before a mapping change are decoded with the former schema their
+ * version identifies.
+ * Values start with a one byte type tag. Integral numbers are zigzag varints, strings
+ * are UTF-8; only types without a dedicated tag fall back to Java serialization.
+ *
+ * @author agent <agent@local>
+ */
+public class SchemaIndexedTupleCodec implements TupleCodec {
+
+	private static final Log log = LoggerFactory.make();
+
+	private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte TRUE = 4;
+	private static final byte FALSE = 5;
+	private static final byte DOUBLE = 6;
+	private static final byte FLOAT = 7;
+	private static final byte SHORT = 8;
+	private static final byte BYTE = 9;
+	private static final byte CHARACTER = 10;
+	private static final byte BYTES = 11;
+	private static final byte DATE = 12;
+	private static final byte SERIALIZED = 13;
+
+	@Override
+	public byte[] encode(TupleSchema schema, Map<String, Object> columns) {
+		final Object[] known = new Object[schema.getColumnCount()];
+		final boolean[] present = new boolean[known.length];
+		final List<String> unknownColumns = new ArrayList<String>( 0 );
+		int knownCount = 0;
+		for ( Map.Entry<String, Object> column : columns.entrySet() ) {
+			int index = schema.getColumnIndex( column.getKey() );
+			if ( index == -1 ) {
+				unknownColumns.add( column.getKey() );
+			}
+			else {
+				known[index] = column.getValue();
+				present[index] = true;
+				knownCount++;
+			}
+		}
+		final Output output = new Output( 8 + columns.size() * 8 );
+		output.writeVarInt( schema.getVersion() );
+		output.writeVarInt( knownCount );
+		int previousIndex = -1;
+		for ( int index = 0 ; index < known.length ; index++ ) {
+			if ( present[index] ) {
+				output.writeVarInt( index - previousIndex );
+				output.writeValue( known[index] );
+				previousIndex = index;
+			}
+		}
+		output.writeVarInt( unknownColumns.size() );
+		for ( String columnName : unknownColumns ) {
+			output.writeString( columnName );
+			output.writeValue( columns.get( columnName ) );
+		}
+		return output.toByteArray();
+	}
+
+	@Override
+	public Map<String, Object> decode(TupleSchema schema, TupleSchemaResolver formerSchemas, byte[] data) {
+		final Input input = new Input( data );
+		final int version = input.readVarInt();
+		if ( version != schema.getVersion() ) {
+			//columns of the former schema no longer mapped are kept, they are written back by name
+			final TupleSchema formerSchema = formerSchemas.getSchema( schema.getTable(), version );
+			if ( formerSchema == null ) {
+				throw log.tupleEncodedWithDifferentSchema( schema.getTable() );
+			}
+			schema = formerSchema;
+		}
+		final int knownCount = input.readVarInt();
+		final Map<String, Object> columns = new HashMap<String, Object>( knownCount + 4 );
+		int index = -1;
+		for ( int i = 0 ; i < knownCount ; i++ ) {
+			index += input.readVarInt();
+			if ( index >= schema.getColumnCount() ) {
+				throw log.tupleEncodedWithDifferentSchema( schema.getTable() );
+			}
+			columns.put( schema.getColumnName( index ), input.readValue() );
+		}
+		final int unknownCount = input.readVarInt();
+		for ( int i = 0 ; i < unknownCount ; i++ ) {
+			String columnName = input.readString();
+			columns.put( columnName, input.readValue() );
+		}
+		return columns;
+	}
+
+	private static final class Output extends ByteArrayOutputStream {
+
+		Output(int size) {
+			super( size );
+		}
+
+		void writeVarInt(int value) {
+			while ( ( value & ~0x7F ) != 0 ) {
+				write( ( value & 0x7F ) | 0x80 );
+				value >>>= 7;
+			}
+			write( value );
+		}
+
+		void writeVarLong(long value) {
+			while ( ( value & ~0x7FL ) != 0 ) {
+				write( ( (int) value & 0x7F ) | 0x80 );
+				value >>>= 7;
+			}
+			write( (int) value );
+		}
+
+		void writeZigZag(long value) {
+			writeVarLong( ( value << 1 ) ^ ( value >> 63 ) );
+		}
+
+		void writeString(String value) {
+			byte[] bytes = value.getBytes( UTF_8 );
+			writeVarInt( bytes.length );
+			write( bytes, 0, bytes.length );
+		}
+
+		void writeValue(Object value) {
+			if ( value == null ) {
+				write( NULL );
+			}
+			else if ( value instanceof String ) {
+				write( STRING );
+				writeString( (String) value );
+			}
+			else if ( value instanceof Integer ) {
+				write( INTEGER );
+				writeZigZag( (Integer) value );
+			}
+			else if ( value instanceof Long ) {
+				write( LONG );
+				writeZigZag( (Long) value );
+			}
+			else if ( value instanceof Boolean ) {
+				write( ( (Boolean) value ) ? TRUE : FALSE );
+			}
+			else if ( value instanceof Double ) {
+				write( DOUBLE );
+				writeVarLong( Long.reverseBytes( Double.doubleToLongBits( (Double) value ) ) );
+			}
+			else if ( value instanceof Float ) {
+				write( FLOAT );
+				writeVarInt( Integer.reverseBytes( Float.floatToIntBits( (Float) value ) ) );
+			}
+			else if ( value instanceof Short ) {
+				write( SHORT );
+				writeZigZag( (Short) value );
+			}
+			else if ( value instanceof Byte ) {
+				write( BYTE );
+				write( (Byte) value );
+			}
+			else if ( value instanceof Character ) {
+				write( CHARACTER );
+				writeVarInt( (Character) value );
+			}
+			else if ( value instanceof byte[] ) {
+				byte[] bytes = (byte[]) value;
+				write( BYTES );
+				writeVarInt( bytes.length );
+				write( bytes, 0, bytes.length );
+			}
+			else if ( value.getClass() == Date.class ) {
+				//subclasses such as java.sql.Timestamp carry more than the time
+				write( DATE );
+				writeZigZag( ( (Date) value ).getTime() );
+			}
+			else {
+				write( SERIALIZED );
+				writeSerialized( value );
+			}
+		}
+
+		private void writeSerialized(Object value) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try {
+				ObjectOutputStream stream = new ObjectOutputStream( bytes );
+				stream.writeObject( value );
+				stream.close();
+			}
+			catch (IOException e) {
+				throw new HibernateException( "Unable to serialize tuple value of type " + value.getClass(), e );
+			}
+			writeVarInt( bytes.size() );
+			write( bytes.toByteArray(), 0, bytes.size() );
+		}
+	}
+
+	private static final class Input {
+		private final byte[] data;
+		private int position;
+
+		Input(byte[] data) {
+			this.data = data;
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		long readVarLong() {
+			long result = 0;
+			int shift = 0;
+			byte current;
+			do {
+				current = data[position++];
+				result |= (long) ( current & 0x7F ) << shift;
+				shift += 7;
+			}
+			while ( ( current & 0x80 ) != 0 );
+			return result;
+		}
+
+		long readZigZag() {
+			long value = readVarLong();
+			return ( value >>> 1 ) ^ -( value & 1 );
+		}
+
+		String readString() {
+			int length = readVarInt();
+			String value = new String( data, position, length, UTF_8 );
+			position += length;
+			return value;
+		}
+
+		byte[] readBytes() {
+			int length = readVarInt();
+			byte[] bytes = new byte[length];
+			System.arraycopy( data, position, bytes, 0, length );
+			position += length;
+			return bytes;
+		}
+
+		Object readValue() {
+			byte tag = data[position++];
+			switch ( tag ) {
+				case NULL:
+					return null;
+				case STRING:
+					return readString();
+				case INTEGER:
+					return (int) readZigZag();
+				case LONG:
+					return readZigZag();
+				case TRUE:
+					return Boolean.TRUE;
+				case FALSE:
+					return Boolean.FALSE;
+				case DOUBLE:
+					return Double.longBitsToDouble( Long.reverseBytes( readVarLong() ) );
+				case FLOAT:
+					return Float.intBitsToFloat( Integer.reverseBytes( readVarInt() ) );
+				case SHORT:
+					return (short) readZigZag();
+				case BYTE:
+					return data[position++];
+				case CHARACTER:
+					return (char) readVarInt();
+				case BYTES:
+					return readBytes();
+				case DATE:
+					return new Date( readZigZag() );
+				case SERIALIZED:
+					return readSerialized();
+				default:
+					throw new HibernateException( "Unknown type tag in encoded tuple: " + tag );
+			}
+		}
+
+		private Object readSerialized() {
+			byte[] bytes = readBytes();
+			try {
+				ObjectInputStream stream = new ObjectInputStream( new ByteArrayInputStream( bytes ) );
+				try {
+					return stream.readObject();
+				}
+				finally {
+					stream.close();
+				}
+			}
+			catch (IOException e) {
+				throw new HibernateException( "Unable to deserialize tuple value", e );
+			}
+			catch (ClassNotFoundException e) {
+				throw new HibernateException( "Unable to deserialize tuple value", e );
+			}
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.impl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.ogm.datastore.spi.TupleSchema;
+import org.hibernate.ogm.datastore.spi.TupleSchemaResolver;
+import org.hibernate.ogm.datastore.spi.TupleSchemaStore;
+import org.hibernate.service.Service;
+
+/**
+ * Collects the columns of each table from the persisters
+ * and exposes them as {@link TupleSchema}s.
+ *
+ * Every schema in use is written to the {@link TupleSchemaStore} if any, which assigns its version,
+ * so that former schemas can still be resolved by their version after a mapping change.
+ *
+ * @author agent <agent@local>
+ */
+public class TupleSchemaRegistry implements TupleSchemaResolver, Service {
+	private final ConcurrentMap<String, Set<String>> columnsPerTable = new ConcurrentHashMap<String, Set<String>>();
+	private final ConcurrentMap<String, TupleSchema> schemas = new ConcurrentHashMap<String, TupleSchema>();
+	private final ConcurrentMap<SchemaId, TupleSchema> formerSchemas = new ConcurrentHashMap<SchemaId, TupleSchema>();
+	private volatile TupleSchemaStore store;
+
+	/**
+	 * Declare columns of a table, null names (formulas) are ignored.
+	 */
+	public synchronized void addColumns(String table, String... columnNames) {
+		Set<String> columns = columnsPerTable.get( table );
+		if ( columns == null ) {
+			columns = new HashSet<String>();
+			columnsPerTable.put( table, columns );
+		}
+		for ( String columnName : columnNames ) {
+			if ( columnName != null ) {
+				columns.add( columnName );
+			}
+		}
+		schemas.remove( table );
+	}
+
+	/**
+	 * Stores the schemas built from now on, the schemas already built are built again
+	 * to get their version from the store. To be set before any tuple is encoded.
+	 */
+	public synchronized void setSchemaStore(TupleSchemaStore store) {
+		this.store = store;
+		schemas.clear();
+		formerSchemas.clear();
+	}
+
+	public TupleSchema getSchema(String table) {
+		TupleSchema schema = schemas.get( table );
+		if ( schema == null ) {
+			schema = buildSchema( table );
+		}
+		return schema;
+	}
+
+	@Override
+	public TupleSchema getSchema(String table, int version) {
+		TupleSchema schema = getSchema( table );
+		if ( schema.getVersion() == version ) {
+			return schema;
+		}
+		final SchemaId id = new SchemaId( table, version );
+		schema = formerSchemas.get( id );
+		if ( schema == null && store != null ) {
+			String[] columnNames = store.loadColumnNames( table, version );
+			if ( columnNames != null ) {
+				schema = new TupleSchema( table, Arrays.asList( columnNames ), version );
+				formerSchemas.putIfAbsent( id, schema );
+			}
+		}
+		return schema;
+	}
+
+	private synchronized TupleSchema buildSchema(String table) {
+		TupleSchema schema = schemas.get( table );
+		if ( schema == null ) {
+			Set<String> columns = columnsPerTable.get( table );
+			String[] columnNames = columns == null ? new String[0] : columns.toArray( new String[columns.size()] );
+			Arrays.sort( columnNames );
+			int version = store == null ? 0 : store.storeColumnNames( table, columnNames );
+			schema = new TupleSchema( table, Arrays.asList( columnNames ), version );
+			schemas.put( table, schema );
+		}
+		return schema;
+	}
+
+	private static final class SchemaId {
+		private final String table;
+		private final int version;
+
+		SchemaId(String table, int version) {
+			this.table = table;
+			this.version = version;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if ( this == o ) {
+				return true;
+			}
+			if ( o == null || SchemaId.class != o.getClass() ) {
+				return false;
+			}
+			SchemaId that = (SchemaId) o;
+			return version == that.version && table.equals( that.table );
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * table.hashCode() + version;
+		}
+	}
+}
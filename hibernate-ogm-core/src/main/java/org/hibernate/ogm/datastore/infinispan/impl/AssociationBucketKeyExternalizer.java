@@ -0,0 +1,66 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.infinispan.impl;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collections;
+import java.util.Set;
+
+import org.hibernate.ogm.dialect.infinispan.AssociationBucketKey;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.infinispan.marshall.AdvancedExternalizer;
+
+/**
+ * Marshalls {@link AssociationBucketKey} without class descriptors.
+ *
+ * @author agent <agent@local>
+ */
+public class AssociationBucketKeyExternalizer implements AdvancedExternalizer<AssociationBucketKey> {
+
+	@Override
+	public void writeObject(ObjectOutput output, AssociationBucketKey key) throws IOException {
+		final AssociationKey associationKey = key.getAssociationKey();
+		KeyDictionary.writeTable( output, associationKey.getTable() );
+		KeyDictionary.writeColumnNames( output, associationKey.getColumns() );
+		KeyDictionary.writeColumnValues( output, associationKey.getColumnsValues() );
+		output.writeInt( key.getBucket() );
+	}
+
+	@Override
+	public AssociationBucketKey readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+		final String table = KeyDictionary.readTable( input );
+		final String[] columns = KeyDictionary.readColumnNames( input );
+		final AssociationKey associationKey = new AssociationKey( table, columns, KeyDictionary.readColumnValues( input ) );
+		return new AssociationBucketKey( associationKey, input.readInt() );
+	}
+
+	@Override
+	public Set<Class<? extends AssociationBucketKey>> getTypeClasses() {
+		return Collections.<Class<? extends AssociationBucketKey>>singleton( AssociationBucketKey.class );
+	}
+
+	@Override
+	public Integer getId() {
+		return ExternalizerIds.ASSOCIATION_BUCKET_KEY;
+	}
+}
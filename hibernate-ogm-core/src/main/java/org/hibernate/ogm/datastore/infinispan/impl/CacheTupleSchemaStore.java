@@ -0,0 +1,91 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.infinispan.impl;
+
+import java.util.Arrays;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.infinispan.Cache;
+
+import org.hibernate.ogm.datastore.spi.TupleSchemaStore;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.util.impl.Log;
+import org.hibernate.ogm.util.impl.LoggerFactory;
+
+/**
+ * Stores the column lists of the tuple schemas in the identifier cache, one entry per version of a table.
+ *
+ * A version is claimed with putIfAbsent, so nodes starting concurrently with different mappings
+ * never get the same version for different column lists.
+ * Schemas are stored outside of the current transaction: a tuple committed with a schema
+ * must never outlive the column list needed to decode it.
+ *
+ * @author agent <agent@local>
+ */
+public class CacheTupleSchemaStore implements TupleSchemaStore {
+
+	private static final Log log = LoggerFactory.make();
+
+	private static final String SCHEMA_TABLE = "hibernate_ogm_tuple_schemas";
+	private static final String[] SCHEMA_COLUMNS = { "table", "version" };
+
+	private final Cache<RowKey, Object> cache;
+
+	public CacheTupleSchemaStore(Cache<RowKey, Object> cache) {
+		this.cache = cache;
+	}
+
+	@Override
+	public int storeColumnNames(String table, String[] columnNames) {
+		final TransactionManager transactionManager = cache.getAdvancedCache().getTransactionManager();
+		try {
+			final Transaction transaction = transactionManager == null ? null : transactionManager.suspend();
+			try {
+				int version = 1;
+				while ( true ) {
+					final String[] stored = (String[]) cache.putIfAbsent( getSchemaKey( table, version ), columnNames );
+					if ( stored == null || Arrays.equals( stored, columnNames ) ) {
+						return version;
+					}
+					version++;
+				}
+			}
+			finally {
+				if ( transaction != null ) {
+					transactionManager.resume( transaction );
+				}
+			}
+		}
+		catch (Exception e) {
+			throw log.unableToStoreTupleSchema( table, e );
+		}
+	}
+
+	@Override
+	public String[] loadColumnNames(String table, int version) {
+		return (String[]) cache.get( getSchemaKey( table, version ) );
+	}
+
+	private RowKey getSchemaKey(String table, int version) {
+		return new RowKey( SCHEMA_TABLE, SCHEMA_COLUMNS, new Object[] { table, version } );
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.infinispan.impl;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+
+import org.hibernate.ogm.grid.EntityKey;
+import org.infinispan.marshall.AdvancedExternalizer;
+
+/**
+ * Marshalls {@link EntityKey} without class descriptors.
+ *
+ * @author agent <agent@local>
+ */
+public class EntityKeyExternalizer implements AdvancedExternalizer<EntityKey> {
+
+	@Override
+	public void writeObject(ObjectOutput output, EntityKey key) throws IOException {
+		KeyDictionary.writeTable( output, key.getTable() );
+		output.writeObject( key.getId() );
+	}
+
+	@Override
+	public EntityKey readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+		final String table = KeyDictionary.readTable( input );
+		return new EntityKey( table, (Serializable) input.readObject() );
+	}
+
+	@Override
+	public Set<Class<? extends EntityKey>> getTypeClasses() {
+		return Collections.<Class<? extends EntityKey>>singleton( EntityKey.class );
+	}
+
+	@Override
+	public Integer getId() {
+		return ExternalizerIds.ENTITY_KEY;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.infinispan.impl;
+
+/**
+ * Identifiers of the Infinispan externalizers of Hibernate OGM.
+ * They must not clash with the ones of Infinispan or of other frameworks
+ * sharing the same cache manager: Infinispan reserves the 1400-1499 range for Hibernate OGM
+ * (1300-1399 belongs to the Infinispan Lucene Directory used by Hibernate Search).
+ *
+ * @author agent <agent@local>
+ */
+public final class ExternalizerIds {
+	public static final int ENTITY_KEY = 1400;
+	public static final int ROW_KEY = 1401;
+	public static final int ASSOCIATION_KEY = 1402;
+	public static final int ASSOCIATION_BUCKET_KEY = 1403;
+
+	private ExternalizerIds() {}
+}
@@ -24,10 +24,14 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.hibernate.ogm.datastore.impl.SchemaIndexedTupleCodec;
+import org.hibernate.ogm.datastore.impl.TupleSchemaRegistry;
 import org.hibernate.ogm.datastore.spi.DatastoreProvider;
 import org.hibernate.ogm.datastore.spi.DefaultDatastoreNames;
 import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.datastore.spi.TupleCodec;
 import org.hibernate.ogm.dialect.infinispan.InfinispanDialect;
+import org.hibernate.service.classloading.spi.ClassLoaderService;
 import org.hibernate.service.jndi.spi.JndiService;
 import org.hibernate.service.spi.*;
 import org.infinispan.Cache;
@@ -39,6 +43,7 @@ import org.infinispan.manager.DefaultCacheManager;
 import org.infinispan.manager.EmbeddedCacheManager;
 
 import org.hibernate.HibernateException;
+import org.hibernate.internal.util.config.ConfigurationHelper;
 import org.hibernate.ogm.util.impl.Log;
 import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.hibernate.ogm.util.impl.StringHelper;
@@ -60,6 +65,11 @@ public class InfinispanDatastoreProvider implements DatastoreProvider, Startable
 	private Map cfg;
 	private Map<String,Cache> caches;
 	private boolean isCacheProvided;
+	private ClassLoaderService classLoaderService;
+	private TupleSchemaRegistry tupleSchemaRegistry;
+	private TupleCodec tupleCodec;
+	private int associationBuckets;
+	private int embeddedAssociationThreshold;
 
 	@Override
 	public Class<? extends GridDialect> getDefaultDialect() {
@@ -75,9 +85,32 @@ public class InfinispanDatastoreProvider implements DatastoreProvider, Startable
 	 * The key for the configuration property to define the jndi name of the cachemanager.
 	 * If this property is defined, the cachemanager will be looked up via JNDI.
 	 * JNDI properties passed in the form <tt>hibernate.jndi.*</tt> are used to define the context properties.
+	 * The key externalizers (see {@link ExternalizerIds}) are not registered on such a cache manager,
+	 * it has to register them itself on every node.
 	 */
 	public static final String CACHE_MANAGER_RESOURCE_PROP = "hibernate.ogm.infinispan.cachemanager_jndiname";
 	
+	/**
+	 * The configuration property to enable the compact encoding of the entity tuples.
+	 * The value is the name of a {@link TupleCodec} implementation,
+	 * typically {@link SchemaIndexedTupleCodec}. Tuples are stored as atomic maps when not set.
+	 */
+	public static final String TUPLE_CODEC = "hibernate.ogm.infinispan.tuple_codec";
+
+	/**
+	 * The configuration property to split the associations into the given number of buckets,
+	 * each stored in its own cache entry. Associations are stored in a single entry when not set.
+	 */
+	public static final String ASSOCIATION_BUCKETS = "hibernate.ogm.infinispan.association_buckets";
+
+	/**
+	 * The configuration property to store the collections of an entity within the entity tuple
+	 * as long as they do not hold more rows than the given value. Larger collections are moved
+	 * to the association cache. Collections are always stored in the association cache when not set.
+	 * Ignored when tuples are encoded or associations split into buckets.
+	 */
+	public static final String EMBEDDED_ASSOCIATION_THRESHOLD = "hibernate.ogm.infinispan.embedded_association_threshold";
+
 	public static final String INFINISPAN_DEFAULT_CONFIG = "org/hibernate/ogm/datastore/infinispan/default-config.xml";
 	
 	private static final Log log = LoggerFactory.make();
@@ -106,9 +139,16 @@ public class InfinispanDatastoreProvider implements DatastoreProvider, Startable
 			log.unableToInitializeInfinispan(e);
 		}
 		eagerlyInitializeCaches(cacheManager);
+		tupleCodec = createTupleCodec( (String) cfg.get( TUPLE_CODEC ) );
+		if ( tupleCodec != null ) {
+			tupleSchemaRegistry.setSchemaStore( new CacheTupleSchemaStore( getCache( DefaultDatastoreNames.IDENTIFIER_STORE ) ) );
+		}
+		associationBuckets = ConfigurationHelper.getInt( ASSOCIATION_BUCKETS, cfg, 0 );
+		embeddedAssociationThreshold = ConfigurationHelper.getInt( EMBEDDED_ASSOCIATION_THRESHOLD, cfg, 0 );
 		//clear resources
 		this.jtaPlatform = null;
 		this.jndiService = null;
+		this.classLoaderService = null;
 		this.cfg = null;
 	}
 
@@ -139,6 +179,7 @@ public class InfinispanDatastoreProvider implements DatastoreProvider, Startable
 					new ConfigurationValidatingVisitor(),
 					Thread.currentThread().getContextClassLoader() );
 			GlobalConfiguration globalConfiguration = configuration.parseGlobalConfiguration();
+			addExternalizers( globalConfiguration );
 			Configuration defaultConfiguration = configuration.parseDefaultConfiguration();
 			TransactionManagerLookupDelegator transactionManagerLookupDelegator = new TransactionManagerLookupDelegator( platform );
 			final DefaultCacheManager cacheManager = new DefaultCacheManager( globalConfiguration, defaultConfiguration, true );
@@ -160,6 +201,30 @@ public class InfinispanDatastoreProvider implements DatastoreProvider, Startable
 		return null; //actually this line is unreachable
 	}
 
+	private TupleCodec createTupleCodec(String codecClassName) {
+		if ( StringHelper.isEmpty( codecClassName ) ) {
+			return null;
+		}
+		try {
+			return (TupleCodec) classLoaderService.classForName( codecClassName ).newInstance();
+		}
+		catch (Exception e) {
+			throw log.cannotInstantiateTupleCodec( codecClassName, e );
+		}
+	}
+
+	/**
+	 * Keys are marshalled on every remote operation: avoid the generic serialization.
+	 * A cache manager retrieved from JNDI has to register these externalizers itself.
+	 */
+	private void addExternalizers(GlobalConfiguration globalConfiguration) {
+		globalConfiguration.fluent().serialization()
+				.addAdvancedExternalizer( new EntityKeyExternalizer() )
+				.addAdvancedExternalizer( new RowKeyExternalizer() )
+				.addAdvancedExternalizer( new AssociationKeyExternalizer() )
+				.addAdvancedExternalizer( new AssociationBucketKeyExternalizer() );
+	}
+
 	public EmbeddedCacheManager getEmbeddedCacheManager() {
 		return cacheManager;
 	}
@@ -169,6 +234,31 @@ public class InfinispanDatastoreProvider implements DatastoreProvider, Startable
 		return caches.get(name);
 	}
 
+	/**
+	 * @return the codec of the entity tuples or null if they are stored as atomic maps
+	 */
+	public TupleCodec getTupleCodec() {
+		return tupleCodec;
+	}
+
+	/**
+	 * @return the number of buckets the associations are split into or 0 if they are stored in a single entry
+	 */
+	public int getAssociationBuckets() {
+		return associationBuckets;
+	}
+
+	/**
+	 * @return the maximum number of rows of a collection stored within its owner tuple or 0 if collections are not embedded
+	 */
+	public int getEmbeddedAssociationThreshold() {
+		return embeddedAssociationThreshold;
+	}
+
+	public TupleSchemaRegistry getTupleSchemaRegistry() {
+		return tupleSchemaRegistry;
+	}
+
 	public void stop() {
 		if ( !isCacheProvided && cacheManager != null ) {
 			cacheManager.stop();
@@ -185,6 +275,8 @@ public class InfinispanDatastoreProvider implements DatastoreProvider, Startable
 	public void injectServices(ServiceRegistryImplementor serviceRegistry) {
 		jtaPlatform = serviceRegistry.getService( JtaPlatform.class );
 		jndiService = serviceRegistry.getService( JndiService.class );
+		classLoaderService = serviceRegistry.getService( ClassLoaderService.class );
+		tupleSchemaRegistry = serviceRegistry.getService( TupleSchemaRegistry.class );
 	}
 
 	@Override
@@ -0,0 +1,104 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.infinispan.impl;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes and reads the table names and column name arrays of the keys.
+ *
+ * Names are written as objects rather than as plain strings: within one marshalled stream,
+ * such as the prepare command of a flush holding the changes of many keys, a name or column name
+ * array already written is replaced by a back-reference to it.
+ * The names read are replaced by canonical instances, so that the keys unmarshalled on a node
+ * share them instead of each holding its own copies. The number of entries is bounded by the mapping.
+ *
+ * The first occurrence of a name in a stream is still written in full: ids shared by the cluster
+ * would need every node, and every cache store holding keys, to resolve them while unmarshalling.
+ *
+ * @author agent <agent@local>
+ */
+final class KeyDictionary {
+	private static final ConcurrentMap<String, String> tables = new ConcurrentHashMap<String, String>();
+	private static final ConcurrentMap<ColumnNames, String[]> columnNames = new ConcurrentHashMap<ColumnNames, String[]>();
+
+	private KeyDictionary() {}
+
+	static void writeTable(ObjectOutput output, String table) throws IOException {
+		output.writeObject( table );
+	}
+
+	static String readTable(ObjectInput input) throws IOException, ClassNotFoundException {
+		final String table = (String) input.readObject();
+		final String existing = tables.putIfAbsent( table, table );
+		return existing == null ? table : existing;
+	}
+
+	static void writeColumnNames(ObjectOutput output, String[] names) throws IOException {
+		output.writeObject( names );
+	}
+
+	static String[] readColumnNames(ObjectInput input) throws IOException, ClassNotFoundException {
+		final String[] names = (String[]) input.readObject();
+		final String[] existing = columnNames.putIfAbsent( new ColumnNames( names ), names );
+		return existing == null ? names : existing;
+	}
+
+	static void writeColumnValues(ObjectOutput output, Object[] values) throws IOException {
+		output.writeShort( values.length );
+		for ( Object value : values ) {
+			output.writeObject( value );
+		}
+	}
+
+	static Object[] readColumnValues(ObjectInput input) throws IOException, ClassNotFoundException {
+		final Object[] values = new Object[ input.readUnsignedShort() ];
+		for ( int index = 0 ; index < values.length ; index++ ) {
+			values[index] = input.readObject();
+		}
+		return values;
+	}
+
+	private static final class ColumnNames {
+		private final String[] names;
+		private final int hashCode;
+
+		ColumnNames(String[] names) {
+			this.names = names;
+			this.hashCode = Arrays.hashCode( names );
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof ColumnNames && Arrays.equals( names, ( (ColumnNames) o ).names );
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
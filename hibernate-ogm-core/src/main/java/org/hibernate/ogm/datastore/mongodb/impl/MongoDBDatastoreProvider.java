@@ -20,22 +20,39 @@
  */
 package org.hibernate.ogm.datastore.mongodb.impl;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
 import com.mongodb.Mongo;
+import com.mongodb.MongoException;
+import com.mongodb.MongoOptions;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import org.hibernate.internal.util.config.ConfigurationHelper;
 import org.hibernate.ogm.datastore.spi.DatastoreProvider;
 import org.hibernate.ogm.dialect.GridDialect;
 import org.hibernate.ogm.dialect.mongodb.MongoDBDialect;
 import org.hibernate.ogm.util.impl.Log;
 import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.hibernate.ogm.util.impl.StringHelper;
+import org.hibernate.service.jndi.spi.JndiService;
 import org.hibernate.service.spi.*;
 
 import java.net.UnknownHostException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Provides access to MongoDB.
  *
+ * The {@link Mongo} client is either looked up in JNDI, in which case it is shared with other
+ * applications and left open on stop, or created with a connection pool configured from the properties.
+ * The pool bounds the number of connections per host and the number of threads waiting for one,
+ * so that many concurrent sessions queue for a bounded time instead of opening connections without limit.
+ *
  * @author Rikki Molecatert <pbdadmin@gmail.com>
  */
 public class MongoDBDatastoreProvider implements DatastoreProvider, Startable, Stoppable,
@@ -68,16 +85,82 @@ public class MongoDBDatastoreProvider implements DatastoreProvider, Startable, S
      */
     public static final String PASS_PROP = "hibernate.ogm.mongodb.password";
 
+    /**
+     * The configuration property to use as key to define the JNDI name of a shared {@link Mongo} client.
+     * When defined, the host, port and pooling properties are ignored.
+     */
+    public static final String MONGO_JNDI_PROP = "hibernate.ogm.mongodb.mongo_jndiname";
+
+    /**
+     * The configuration property to use as key to define the maximum number of connections per host.
+     */
+    public static final String CONNECTIONS_PER_HOST_PROP = "hibernate.ogm.mongodb.connections_per_host";
+
+    /**
+     * The configuration property to use as key to define how many threads may wait for a connection,
+     * as a multiple of the number of connections per host. Threads beyond that limit fail right away.
+     */
+    public static final String WAIT_QUEUE_MULTIPLIER_PROP = "hibernate.ogm.mongodb.wait_queue_multiplier";
+
+    /**
+     * The configuration property to use as key to define how long, in milliseconds, a thread waits for a connection.
+     */
+    public static final String MAX_WAIT_TIME_PROP = "hibernate.ogm.mongodb.max_wait_time";
+
+    /**
+     * The configuration property to use as key to define the connection timeout in milliseconds.
+     */
+    public static final String CONNECT_TIMEOUT_PROP = "hibernate.ogm.mongodb.connect_timeout";
+
+    /**
+     * The configuration property to use as key to define the socket read timeout in milliseconds.
+     */
+    public static final String SOCKET_TIMEOUT_PROP = "hibernate.ogm.mongodb.socket_timeout";
+
+    /**
+     * The configuration property to use as key to define the write concern of the writes, by name
+     * (eg NORMAL, SAFE, REPLICAS_SAFE). Suffix the key with a dot and the table name of an entity
+     * to override the write concern of the writes to this table. Defaults to the write concern of the client.
+     */
+    public static final String WRITE_CONCERN_PROP = "hibernate.ogm.mongodb.write_concern";
+
+    /**
+     * The collection storing the associations, one document per association.
+     */
+    public static final String ASSOCIATIONS_COLLECTION = "ogm_associations";
+
     /**
      * Connection to the MongoDB server.
      */
     private Mongo mongo;
 
+    /**
+     * Whether the connection has been looked up in JNDI, in which case it is not ours to close.
+     */
+    private boolean isMongoProvided;
+
     /**
      * Connection to the database in the MongoDB server.
      */
     private DB database;
 
+    /**
+     * The collections already resolved, per table.
+     */
+    private final ConcurrentMap<String, DBCollection> collections = new ConcurrentHashMap<String, DBCollection>();
+
+    /**
+     * The write concern of the tables not overridden, null for the one of the client.
+     */
+    private WriteConcern defaultWriteConcern;
+
+    /**
+     * The write concern of the tables having their own.
+     */
+    private final Map<String, WriteConcern> writeConcerns = new HashMap<String, WriteConcern>();
+
+    private JndiService jndiService;
+
     /**
      * Get the dialect which we use.
      *
@@ -97,46 +180,122 @@ public class MongoDBDatastoreProvider implements DatastoreProvider, Startable, S
     }
 
     /**
-     * Inject a service into this datastore provider.
+     * Inject the services used to start this datastore provider.
      *
-     * @param serviceRegistry The service.
+     * @param serviceRegistry The service registry.
      */
     public void injectServices(ServiceRegistryImplementor serviceRegistry) {
-        // Currently we do nothing or should we?
+        jndiService = serviceRegistry.getService(JndiService.class);
     }
 
     /**
      * Start the database connection.
+     * A missing database name, an unreachable host or a failed authentication prevent the startup.
      */
     public void start() {
-        String host = (String) cfg.get(SERVER_PROP);
-        String port = (String) cfg.get(PORT_PROP);
+        String databaseName = (String) cfg.get(DATABASE_PROP);
+        if (StringHelper.isEmpty(databaseName)) {
+            throw log.mongoDBDatabaseNotDefined();
+        }
+        //validate the settings before connecting
+        configureWriteConcerns();
+        String jndiName = (String) cfg.get(MONGO_JNDI_PROP);
+        if (jndiName == null) {
+            mongo = createMongo();
+            isMongoProvided = false;
+        } else {
+            log.tracef("Retrieving MongoDB client from JNDI at %1$s", jndiName);
+            mongo = (Mongo) jndiService.locate(jndiName);
+            isMongoProvided = true;
+        }
+        database = mongo.getDB(databaseName);
         String user = (String) cfg.get(USER_PROP);
         String pass = (String) cfg.get(PASS_PROP);
-        String database = (String) cfg.get(DATABASE_PROP);
-        if (host != null && port != null && user != null && pass != null && database != null) {
-            Integer portInt = Integer.valueOf(port);
-            if (portInt != null && !StringHelper.isEmpty(host)) {
-                try {
-                    mongo = new Mongo(host, portInt);
-                } catch (UnknownHostException e) {
-                    log.error(e.getStackTrace());
-                }
-                if (mongo != null) {
-                    this.database = mongo.getDB(database);
-                    if (this.database != null)
-                        this.database.authenticate(user, pass.toCharArray());
-                }
+        if (user != null && !database.isAuthenticated()) {
+            if (pass == null || !database.authenticate(user, pass.toCharArray())) {
+                stop();
+                throw log.mongoDBAuthenticationFailed(user, databaseName);
             }
         }
+        createIndexes();
+        //clear resources
+        this.jndiService = null;
+        this.cfg = null;
     }
 
     /**
-     * Stop the database connection.
+     * Create a client whose connection pool is configured from the properties,
+     * the defaults of the driver apply to the properties not set.
+     *
+     * @return The client.
+     */
+    private Mongo createMongo() {
+        String host = (String) cfg.get(SERVER_PROP);
+        if (StringHelper.isEmpty(host)) {
+            host = ServerAddress.defaultHost();
+        }
+        int port = ConfigurationHelper.getInt(PORT_PROP, cfg, ServerAddress.defaultPort());
+        MongoOptions options = new MongoOptions();
+        options.connectionsPerHost = ConfigurationHelper.getInt(CONNECTIONS_PER_HOST_PROP, cfg, options.connectionsPerHost);
+        options.threadsAllowedToBlockForConnectionMultiplier = ConfigurationHelper.getInt(
+                WAIT_QUEUE_MULTIPLIER_PROP, cfg, options.threadsAllowedToBlockForConnectionMultiplier);
+        options.maxWaitTime = ConfigurationHelper.getInt(MAX_WAIT_TIME_PROP, cfg, options.maxWaitTime);
+        options.connectTimeout = ConfigurationHelper.getInt(CONNECT_TIMEOUT_PROP, cfg, options.connectTimeout);
+        options.socketTimeout = ConfigurationHelper.getInt(SOCKET_TIMEOUT_PROP, cfg, options.socketTimeout);
+        log.tracef("Connecting to MongoDB at %1$s:%2$s with %3$s", host, port, options);
+        try {
+            return new Mongo(new ServerAddress(host, port), options);
+        } catch (UnknownHostException e) {
+            throw log.unableToInitializeMongoDB(host, port, e);
+        } catch (MongoException e) {
+            throw log.unableToInitializeMongoDB(host, port, e);
+        }
+    }
+
+    /**
+     * Read the default write concern and the ones overridden per table.
+     */
+    private void configureWriteConcerns() {
+        String prefix = WRITE_CONCERN_PROP + ".";
+        for (Object entry : cfg.entrySet()) {
+            Map.Entry property = (Map.Entry) entry;
+            String name = String.valueOf(property.getKey());
+            if (name.equals(WRITE_CONCERN_PROP)) {
+                defaultWriteConcern = parseWriteConcern(name, property.getValue());
+            } else if (name.startsWith(prefix)) {
+                writeConcerns.put(name.substring(prefix.length()), parseWriteConcern(name, property.getValue()));
+            }
+        }
+    }
+
+    private WriteConcern parseWriteConcern(String property, Object value) {
+        WriteConcern writeConcern = WriteConcern.valueOf(String.valueOf(value).trim().toUpperCase());
+        if (writeConcern == null) {
+            throw log.unknownMongoDBWriteConcern(String.valueOf(value), property);
+        }
+        return writeConcern;
+    }
+
+    /**
+     * Create the indexes the dialect relies on, if they do not exist yet.
+     * Associations are looked up by their key, so that reading one does not scan the others.
+     */
+    private void createIndexes() {
+        DBObject associationKey = new BasicDBObject(MongoDBDialect.ASSOCIATION_TABLE_FIELD, 1)
+                .append(MongoDBDialect.ASSOCIATION_KEY_FIELD, 1);
+        getAssociationCollection().ensureIndex(associationKey, "association_key", true);
+    }
+
+    /**
+     * Stop the database connection, closing the pool unless the client has been looked up in JNDI.
      */
     public void stop() {
+        collections.clear();
+        database = null;
         if (mongo != null) {
-            database = null;
+            if (!isMongoProvided) {
+                mongo.close();
+            }
             mongo = null;
         }
     }
@@ -149,4 +308,45 @@ public class MongoDBDatastoreProvider implements DatastoreProvider, Startable, S
     public DB getDatabase() {
         return database;
     }
+
+    /**
+     * Get the collection storing a table, resolving it only once.
+     *
+     * @param table The name of the table.
+     * @return The collection.
+     */
+    public DBCollection getCollection(String table) {
+        DBCollection collection = collections.get(table);
+        if (collection == null) {
+            collection = database.getCollection(table);
+            DBCollection previous = collections.putIfAbsent(table, collection);
+            if (previous != null) {
+                collection = previous;
+            }
+        }
+        return collection;
+    }
+
+    /**
+     * Get the collection storing the associations.
+     *
+     * @return The collection.
+     */
+    public DBCollection getAssociationCollection() {
+        return getCollection(ASSOCIATIONS_COLLECTION);
+    }
+
+    /**
+     * Get the write concern of the writes to a table.
+     *
+     * @param table The name of the table.
+     * @return The write concern configured for the table, the default one otherwise.
+     */
+    public WriteConcern getWriteConcern(String table) {
+        WriteConcern writeConcern = writeConcerns.get(table);
+        if (writeConcern != null) {
+            return writeConcern;
+        }
+        return defaultWriteConcern != null ? defaultWriteConcern : database.getWriteConcern();
+    }
 }
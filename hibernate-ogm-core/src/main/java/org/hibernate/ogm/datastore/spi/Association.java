@@ -20,11 +20,14 @@
  */
 package org.hibernate.ogm.datastore.spi;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.hibernate.ogm.grid.RowKey;
@@ -47,6 +50,14 @@ public class Association {
 	private final AssociationSnapshot snapshot;
 	private final Map<RowKey, AssociationOperation> currentState = new HashMap<RowKey, AssociationOperation>();
 	private boolean cleared;
+	/**
+	 * Number of rows added minus number of rows removed since the snapshot (or the clear)
+	 */
+	private int sizeDelta;
+	/**
+	 * Size of the snapshot before the first change, -1 until measured
+	 */
+	private int snapshotSize = -1;
 
 	public Association(AssociationSnapshot snapshot) {
 		this.snapshot = snapshot;
@@ -64,16 +75,34 @@ public class Association {
 	}
 
 	public void put(RowKey key, Tuple value) {
+		snapshotSize();
+		if ( !contains( key ) ) {
+			sizeDelta++;
+		}
 		if ( value == null ) {
 			currentState.put( key, new AssociationOperation( key, null, PUT_NULL )  );
 		}
-		currentState.put( key, new AssociationOperation( key, value, PUT ) );
+		else {
+			currentState.put( key, new AssociationOperation( key, value, PUT ) );
+		}
 	}
 
 	public void remove(RowKey key) {
+		snapshotSize();
+		if ( contains( key ) ) {
+			sizeDelta--;
+		}
 		currentState.put( key, new AssociationOperation( key, null, REMOVE ) );
 	}
 
+	private boolean contains(RowKey key) {
+		AssociationOperation operation = currentState.get( key );
+		if ( operation == null ) {
+			return !cleared && snapshot.containsKey( key );
+		}
+		return operation.getType() != REMOVE;
+	}
+
 	/**
 	 * Return the list of actions on the tuple.
 	 * Inherently deduplicate operations
@@ -94,59 +123,106 @@ public class Association {
 	}
 
 	public boolean isEmpty() {
-		int snapshotSize = cleared ? 0 : snapshot.size();
-		//nothing in both
-		if ( snapshotSize == 0 && currentState.isEmpty() ) {
-			return true;
-		}
-		//snapshot bigger than changeset
-		if ( snapshotSize > currentState.size() ) {
-			return false;
-		}
 		return size() == 0;
 	}
 
+	/**
+	 * The size is maintained as changes are made
+	 */
 	public int size() {
-		int size = cleared ? 0 : snapshot.size();
-		for ( Map.Entry<RowKey,AssociationOperation> op : currentState.entrySet() ) {
-			switch ( op.getValue().getType() ) {
-				case PUT:
-				case PUT_NULL:
-					if ( cleared || !snapshot.containsKey( op.getKey() ) ) {
-						size++;
-					}
-					break;
-				case REMOVE:
-					if ( !cleared && snapshot.containsKey( op.getKey() ) ) {
-						size--;
-					}
-					break;
-			}
+		return ( cleared ? 0 : snapshotSize() ) + sizeDelta;
+	}
+
+	/**
+	 * The size of the snapshot is measured once, before the first change: a snapshot backed by the datastore
+	 * receives the changes of this association when the dialect applies them, and these are already
+	 * counted by sizeDelta.
+	 */
+	private int snapshotSize() {
+		if ( snapshotSize == -1 ) {
+			snapshotSize = snapshot.size();
 		}
-		return size;
+		return snapshotSize;
 	}
 
+	/**
+	 * Return a read-only view of the row keys merging the snapshot and the changes.
+	 * The view reflects later changes but must not be iterated over while the association is changed.
+	 */
 	public Set<RowKey> getKeys() {
-		Set<RowKey> keys = new HashSet<RowKey>();
-		if (!cleared) {
-			keys.addAll( snapshot.getRowKeys() );
-		}
-		for ( Map.Entry<RowKey,AssociationOperation> op : currentState.entrySet() ) {
-			switch ( op.getValue().getType() ) {
-				case PUT:
-				case PUT_NULL:
-					keys.add( op.getKey() );
-					break;
-				case REMOVE:
-					keys.remove( op.getKey() );
-					break;
-			}
-		}
 		return keys;
 	}
 
 	public void clear() {
 		cleared = true;
+		sizeDelta = 0;
 		currentState.clear();
 	}
+
+	private final Set<RowKey> keys = new AbstractSet<RowKey>() {
+		@Override
+		public Iterator<RowKey> iterator() {
+			return new KeysIterator();
+		}
+
+		@Override
+		public int size() {
+			return Association.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof RowKey && Association.this.contains( (RowKey) o );
+		}
+	};
+
+	/**
+	 * Iterate over the snapshot keys left untouched, then over the keys put since.
+	 */
+	private class KeysIterator implements Iterator<RowKey> {
+		private final Iterator<RowKey> snapshotKeys;
+		private final Iterator<AssociationOperation> operations = currentState.values().iterator();
+		private RowKey next;
+
+		KeysIterator() {
+			this.snapshotKeys = cleared ? Collections.<RowKey>emptySet().iterator() : snapshot.getRowKeys().iterator();
+			this.next = computeNext();
+		}
+
+		private RowKey computeNext() {
+			while ( snapshotKeys.hasNext() ) {
+				RowKey key = snapshotKeys.next();
+				if ( !currentState.containsKey( key ) ) {
+					return key;
+				}
+			}
+			while ( operations.hasNext() ) {
+				AssociationOperation operation = operations.next();
+				if ( operation.getType() != REMOVE ) {
+					return operation.getKey();
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public RowKey next() {
+			if ( next == null ) {
+				throw new NoSuchElementException();
+			}
+			RowKey result = next;
+			next = computeNext();
+			return result;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException( "Association keys are read-only" );
+		}
+	}
 }
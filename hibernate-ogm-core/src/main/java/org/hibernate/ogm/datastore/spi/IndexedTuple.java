@@ -0,0 +1,192 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.spi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.ogm.datastore.impl.SetFromCollection;
+
+import static org.hibernate.ogm.datastore.spi.TupleOperationType.*;
+
+/**
+ * A {@link Tuple} keeping the changes of the columns of its {@link TupleSchema}
+ * in arrays indexed by column instead of a map of {@link TupleOperation}s.
+ *
+ * Changing a column does not allocate anything; the columns unknown to the schema
+ * are kept the {@link Tuple} way. Dialects can read the changes by index with
+ * {@link #nextChangedColumn(int)} and {@link #getUnindexedOperations()}.
+ *
+ * @author agent <agent@local>
+ */
+public class IndexedTuple extends Tuple {
+	private final TupleSchema schema;
+	private final Object[] values;
+	/**
+	 * Type of the latest change of each column, null when unchanged
+	 */
+	private final TupleOperationType[] operationTypes;
+	private boolean hasUnindexedOperations;
+	private Set<String> columnNames;
+
+	public IndexedTuple(TupleSchema schema, TupleSnapshot snapshot) {
+		super( snapshot );
+		this.schema = schema;
+		this.values = new Object[schema.getColumnCount()];
+		this.operationTypes = new TupleOperationType[schema.getColumnCount()];
+	}
+
+	/**
+	 * Index the state of an existing tuple, including its pending changes
+	 */
+	public IndexedTuple(TupleSchema schema, Tuple tuple) {
+		this( schema, tuple.getSnapshot() );
+		for ( TupleOperation operation : tuple.getOperations() ) {
+			if ( operation.getType() == REMOVE ) {
+				remove( operation.getColumn() );
+			}
+			else {
+				put( operation.getColumn(), operation.getValue() );
+			}
+		}
+	}
+
+	@Override
+	public Object get(String column) {
+		final int index = schema.getColumnIndex( column );
+		if ( index == -1 ) {
+			return super.get( column );
+		}
+		final TupleOperationType type = operationTypes[index];
+		if ( type == null ) {
+			return getSnapshot().get( column );
+		}
+		return type == PUT ? values[index] : null;
+	}
+
+	@Override
+	public void put(String column, Object value) {
+		final int index = schema.getColumnIndex( column );
+		if ( index == -1 ) {
+			super.put( column, value );
+			hasUnindexedOperations = true;
+		}
+		else {
+			values[index] = value;
+			operationTypes[index] = value == null ? PUT_NULL : PUT;
+		}
+		if ( columnNames != null && !columnNames.contains( column ) ) {
+			columnNames = null;
+		}
+	}
+
+	@Override
+	public void remove(String column) {
+		final int index = schema.getColumnIndex( column );
+		if ( index == -1 ) {
+			super.remove( column );
+			hasUnindexedOperations = true;
+		}
+		else {
+			values[index] = null;
+			operationTypes[index] = REMOVE;
+		}
+		if ( columnNames != null && columnNames.contains( column ) ) {
+			columnNames = null;
+		}
+	}
+
+	/**
+	 * Build the operations, prefer the index based accessors when possible
+	 */
+	@Override
+	public Set<TupleOperation> getOperations() {
+		final List<TupleOperation> operations = new ArrayList<TupleOperation>();
+		for ( int index = nextChangedColumn( 0 ) ; index != -1 ; index = nextChangedColumn( index + 1 ) ) {
+			operations.add( new TupleOperation( schema.getColumnName( index ), values[index], operationTypes[index] ) );
+		}
+		operations.addAll( getUnindexedOperations() );
+		return new SetFromCollection<TupleOperation>( operations );
+	}
+
+	/**
+	 * The returned set is read-only and remains valid until the next change of the tuple
+	 */
+	@Override
+	public Set<String> getColumnNames() {
+		if ( columnNames == null ) {
+			final Set<String> names = new HashSet<String>( super.getColumnNames() );
+			for ( int index = nextChangedColumn( 0 ) ; index != -1 ; index = nextChangedColumn( index + 1 ) ) {
+				if ( operationTypes[index] == REMOVE ) {
+					names.remove( schema.getColumnName( index ) );
+				}
+				else {
+					names.add( schema.getColumnName( index ) );
+				}
+			}
+			columnNames = Collections.unmodifiableSet( names );
+		}
+		return columnNames;
+	}
+
+	public TupleSchema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * @return the index of the first changed column at or after {@code fromIndex}, -1 if there is none
+	 */
+	public int nextChangedColumn(int fromIndex) {
+		for ( int index = fromIndex ; index < operationTypes.length ; index++ ) {
+			if ( operationTypes[index] != null ) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the type of the latest change of the column at {@code index}, null if unchanged
+	 */
+	public TupleOperationType getOperationType(int index) {
+		return operationTypes[index];
+	}
+
+	/**
+	 * @return the value set by the latest change of the column at {@code index}
+	 */
+	public Object getValue(int index) {
+		return values[index];
+	}
+
+	/**
+	 * @return the operations on the columns unknown to the schema
+	 */
+	public Set<TupleOperation> getUnindexedOperations() {
+		if ( hasUnindexedOperations ) {
+			return super.getOperations();
+		}
+		return Collections.emptySet();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.spi;
+
+import java.util.Map;
+
+/**
+ * Converts the columns of a tuple to and from a compact binary form.
+ *
+ * Implementations must be thread-safe and have a public no-arg constructor.
+ *
+ * @author agent <agent@local>
+ */
+public interface TupleCodec {
+
+	/**
+	 * Encode the columns of a tuple of the given table.
+	 * Columns absent from the schema must be supported as well.
+	 */
+	byte[] encode(TupleSchema schema, Map<String, Object> columns);
+
+	/**
+	 * Decode a tuple encoded by {@link #encode(TupleSchema, Map)}.
+	 * Tuples encoded with a former schema of the table are decoded with the
+	 * schema {@code formerSchemas} returns for it.
+	 * The returned map can be modified by the caller.
+	 */
+	Map<String, Object> decode(TupleSchema schema, TupleSchemaResolver formerSchemas, byte[] data);
+}
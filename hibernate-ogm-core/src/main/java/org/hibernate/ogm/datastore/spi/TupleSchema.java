@@ -0,0 +1,96 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.spi;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The columns a table is known to contain, as declared by the mapping.
+ *
+ * Columns are sorted by name so that every node derives the same column indexes
+ * from the same mapping. The version identifies a given list of columns of the table,
+ * it is assigned by the {@link TupleSchemaStore} when there is one.
+ *
+ * @author agent <agent@local>
+ */
+public final class TupleSchema {
+	private final String table;
+	private final String[] columnNames;
+	private final Map<String, Integer> columnIndexes;
+	private final int version;
+
+	public TupleSchema(String table, Collection<String> columnNames) {
+		this( table, columnNames, 0 );
+	}
+
+	public TupleSchema(String table, Collection<String> columnNames, int version) {
+		this.table = table;
+		this.columnNames = columnNames.toArray( new String[columnNames.size()] );
+		Arrays.sort( this.columnNames );
+		this.columnIndexes = new HashMap<String, Integer>( this.columnNames.length );
+		for ( int index = 0 ; index < this.columnNames.length ; index++ ) {
+			columnIndexes.put( this.columnNames[index], index );
+		}
+		this.version = version;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(int index) {
+		return columnNames[index];
+	}
+
+	/**
+	 * @return a copy of the sorted column names
+	 */
+	public String[] getColumnNames() {
+		return columnNames.clone();
+	}
+
+	/**
+	 * @return the index of the column or -1 if the column is not part of the schema
+	 */
+	public int getColumnIndex(String columnName) {
+		Integer index = columnIndexes.get( columnName );
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Two schemas of the same table with different columns never share a version.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "TupleSchema{table=" + table + ", version=" + version + ", columns=" + Arrays.toString( columnNames ) + '}';
+	}
+}
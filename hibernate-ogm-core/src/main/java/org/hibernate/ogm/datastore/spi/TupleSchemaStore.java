@@ -0,0 +1,47 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.datastore.spi;
+
+/**
+ * Keeps the column list of every schema tuples have been encoded with,
+ * so that they can be decoded once the mapping of the table has changed.
+ *
+ * Implementations must be thread-safe.
+ *
+ * @author agent <agent@local>
+ */
+public interface TupleSchemaStore {
+
+	/**
+	 * Persist the columns of a schema under a version of the table.
+	 * The same column list always gets the same version, a different column list a version
+	 * never used before by the table; versions of a table are assigned from 1 upwards.
+	 *
+	 * @param columnNames the sorted column names
+	 * @return the version of the schema
+	 */
+	int storeColumnNames(String table, String[] columnNames);
+
+	/**
+	 * @return the columns of the schema or null if no schema of the table has this version
+	 */
+	String[] loadColumnNames(String table, int version);
+}
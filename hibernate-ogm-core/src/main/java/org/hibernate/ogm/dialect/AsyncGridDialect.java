@@ -0,0 +1,73 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect;
+
+import java.util.concurrent.Future;
+
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
+
+/**
+ * A {@link GridDialect} able to start operations without waiting for them
+ * so that independent reads and writes can overlap.
+ *
+ * Implementations are free to execute an operation synchronously and return an already
+ * completed future, typically when the data is local or when the operation must be
+ * applied in the calling thread to join the ongoing transaction.
+ * As their synchronous counterparts, reads see the changes written earlier in the current transaction.
+ * Errors are reported by {@link Future#get()}.
+ *
+ * @author agent <agent@local>
+ */
+public interface AsyncGridDialect extends GridDialect {
+
+	/**
+	 * @see GridDialect#getTuple(EntityKey)
+	 */
+	Future<Tuple> getTupleAsync(EntityKey key);
+
+	/**
+	 * @see GridDialect#updateTuple(Tuple, EntityKey)
+	 */
+	Future<Void> updateTupleAsync(Tuple tuple, EntityKey key);
+
+	/**
+	 * @see GridDialect#removeTuple(EntityKey)
+	 */
+	Future<Void> removeTupleAsync(EntityKey key);
+
+	/**
+	 * @see GridDialect#getAssociation(AssociationKey)
+	 */
+	Future<Association> getAssociationAsync(AssociationKey key);
+
+	/**
+	 * @see GridDialect#updateAssociation(Association, AssociationKey)
+	 */
+	Future<Void> updateAssociationAsync(Association association, AssociationKey key);
+
+	/**
+	 * @see GridDialect#removeAssociation(AssociationKey)
+	 */
+	Future<Void> removeAssociationAsync(AssociationKey key);
+}
@@ -44,21 +44,55 @@ public interface GridDialect extends Service {
 	 * Return the tuple for a given key or null if not present
 	 */
 	Tuple getTuple(EntityKey key);
+
+	/**
+	 * Return the tuples for the given keys in a single operation whenever the grid allows it.
+	 * The returned array follows the order of the keys, elements are null for tuples not present.
+	 */
+	Tuple[] getTuples(EntityKey[] keys);
+
 	/**
 	 * Return a new tuple for a given key
 	 * Only used if the tuple is not present
 	 */
 	Tuple createTuple(EntityKey key);
+
+	/**
+	 * Return a new tuple for a given key or null if a tuple is already present.
+	 * The existence check is part of the creation whenever the datastore allows it
+	 * so that inserts do not need to read the tuple first.
+	 */
+	Tuple createTupleIfAbsent(EntityKey key);
 	/**
 	 * Update the tuple for a given key or null if not present
 	 */
 	void updateTuple(Tuple tuple, EntityKey key);
 
+	/**
+	 * Update the tuple for a given key if the version column of the stored tuple holds the expected value.
+	 * The comparison and the write are done as one operation whenever the datastore allows it,
+	 * so that optimistic locking needs neither a prior read of the version nor a lock.
+	 *
+	 * @param versionColumn the name of the version column
+	 * @param expectedVersion the version, as stored in the datastore, the tuple is expected to have
+	 * @return false if the stored version differs from the expected one, in which case nothing is written
+	 */
+	boolean updateTupleIfVersion(Tuple tuple, EntityKey key, String versionColumn, Object expectedVersion);
+
 	/**
 	 * Remove the tuple for a given key
 	 */
 	void removeTuple(EntityKey key);
 
+	/**
+	 * Pass every tuple of the given table to the consumer, without holding the whole table in memory.
+	 *
+	 * Every tuple of the table is visited, including the ones a datastore keeps out of memory.
+	 * A dialect unable to reach the whole table from the local node rejects the scan.
+	 * Operations not yet applied to the datastore, such as the ones of the current flush, are not visible.
+	 */
+	void forEachTuple(String table, TupleConsumer consumer);
+
 	/**
 	 * Return the list of tuples corresponding to a given association
 	 */
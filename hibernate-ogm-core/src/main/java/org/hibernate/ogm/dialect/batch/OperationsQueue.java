@@ -0,0 +1,150 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.batch;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
+
+/**
+ * Ordered list of the operations gathered during a flush.
+ *
+ * Operations are executed in the order they have been added. The queue also keeps
+ * the latest pending state of each key so that reads happening during the flush
+ * see the changes not yet applied to the grid.
+ * A tuple or association already pending is not added twice: being the same
+ * instance, it carries all the changes applied to it since.
+ *
+ * @author agent <agent@local>
+ */
+public class OperationsQueue {
+
+	private final Queue<Operation> operations = new LinkedList<Operation>();
+
+	//a null value means the tuple or the association is pending removal
+	private final Map<EntityKey, Tuple> tuples = new HashMap<EntityKey, Tuple>();
+	private final Map<AssociationKey, Association> associations = new HashMap<AssociationKey, Association>();
+	//the pending update of each tuple
+	private final Map<EntityKey, UpdateTupleOperation> tupleUpdates = new HashMap<EntityKey, UpdateTupleOperation>();
+	//associations created during the flush and not updated since
+	private final Map<AssociationKey, Association> createdAssociations = new HashMap<AssociationKey, Association>();
+
+	public void add(UpdateTupleOperation operation) {
+		final EntityKey key = operation.getEntityKey();
+		if ( tuples.get( key ) != operation.getTuple() ) {
+			operations.add( operation );
+			tuples.put( key, operation.getTuple() );
+			tupleUpdates.put( key, operation );
+		}
+	}
+
+	public void add(RemoveTupleOperation operation) {
+		operations.add( operation );
+		tuples.put( operation.getEntityKey(), null );
+		tupleUpdates.remove( operation.getEntityKey() );
+	}
+
+	public void add(UpdateAssociationOperation operation) {
+		final AssociationKey key = operation.getAssociationKey();
+		createdAssociations.remove( key );
+		if ( associations.get( key ) != operation.getAssociation() ) {
+			operations.add( operation );
+			associations.put( key, operation.getAssociation() );
+		}
+	}
+
+	public void add(RemoveAssociationOperation operation) {
+		createdAssociations.remove( operation.getAssociationKey() );
+		operations.add( operation );
+		associations.put( operation.getAssociationKey(), null );
+	}
+
+	/**
+	 * Whether the given tuple has pending changes
+	 */
+	public boolean contains(EntityKey key) {
+		return tuples.containsKey( key );
+	}
+
+	/**
+	 * Return the pending tuple, null if it is pending removal
+	 */
+	public Tuple getTuple(EntityKey key) {
+		return tuples.get( key );
+	}
+
+	/**
+	 * Make the pending update of the given tuple conditional on the version
+	 * held by the datastore when the operation is executed
+	 */
+	public void expectVersion(EntityKey key, String versionColumn, Object expectedVersion) {
+		final UpdateTupleOperation update = tupleUpdates.get( key );
+		if ( update != null ) {
+			update.expectVersion( versionColumn, expectedVersion );
+		}
+	}
+
+	/**
+	 * Make an association created during the flush visible to the reads of the flush
+	 * so that it is created only once. Nothing is written unless it is updated.
+	 */
+	public void addCreated(AssociationKey key, Association association) {
+		createdAssociations.put( key, association );
+	}
+
+	/**
+	 * Whether the given association has pending changes or has been created during the flush
+	 */
+	public boolean contains(AssociationKey key) {
+		return createdAssociations.containsKey( key ) || associations.containsKey( key );
+	}
+
+	/**
+	 * Return the pending association, null if it is pending removal
+	 */
+	public Association getAssociation(AssociationKey key) {
+		if ( createdAssociations.containsKey( key ) ) {
+			return createdAssociations.get( key );
+		}
+		return associations.get( key );
+	}
+
+	/**
+	 * Retrieve and remove the next operation to execute, null if the queue is empty
+	 */
+	public Operation poll() {
+		return operations.poll();
+	}
+
+	public boolean isEmpty() {
+		return operations.isEmpty();
+	}
+
+	public int size() {
+		return operations.size();
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.batch;
+
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.grid.AssociationKey;
+
+/**
+ * Write the changes of an association.
+ *
+ * @author agent <agent@local>
+ */
+public class UpdateAssociationOperation implements Operation {
+	private final Association association;
+	private final AssociationKey associationKey;
+
+	public UpdateAssociationOperation(Association association, AssociationKey associationKey) {
+		this.association = association;
+		this.associationKey = associationKey;
+	}
+
+	public Association getAssociation() {
+		return association;
+	}
+
+	public AssociationKey getAssociationKey() {
+		return associationKey;
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.hibernate.LockMode;
+import org.hibernate.dialect.lock.LockingStrategy;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.internal.util.compare.EqualsHelper;
+import org.hibernate.ogm.datastore.impl.EmptyAssociationSnapshot;
+import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.datastore.spi.TupleOperation;
+import org.hibernate.ogm.datastore.spi.TupleOperationType;
+import org.hibernate.ogm.dialect.AsyncGridDialect;
+import org.hibernate.ogm.dialect.BatchableGridDialect;
+import org.hibernate.ogm.dialect.TupleConsumer;
+import org.hibernate.ogm.dialect.batch.OperationsQueue;
+import org.hibernate.ogm.dialect.batch.RemoveAssociationOperation;
+import org.hibernate.ogm.dialect.batch.RemoveTupleOperation;
+import org.hibernate.ogm.dialect.batch.UpdateAssociationOperation;
+import org.hibernate.ogm.dialect.batch.UpdateTupleOperation;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.util.impl.CompletedFuture;
+import org.hibernate.persister.entity.Lockable;
+
+/**
+ * Wraps a {@link BatchableGridDialect} and, between {@link #prepareBatch()} and
+ * {@link #executeBatch()}, gathers the mutations instead of applying them.
+ *
+ * The batch is bound to the current thread, which is the one executing the flush.
+ * Outside of a batch, operations are delegated as is.
+ *
+ * Asynchronous operations are delegated when the wrapped dialect is an {@link AsyncGridDialect},
+ * they are otherwise executed synchronously.
+ *
+ * @author agent <agent@local>
+ */
+public class BatchOperationsDelegator implements BatchableGridDialect, AsyncGridDialect {
+
+	private final BatchableGridDialect dialect;
+	private final AsyncGridDialect asyncDialect;
+	private final ThreadLocal<OperationsQueue> operationsQueue = new ThreadLocal<OperationsQueue>();
+
+	public BatchOperationsDelegator(BatchableGridDialect dialect) {
+		this.dialect = dialect;
+		this.asyncDialect = dialect instanceof AsyncGridDialect ? (AsyncGridDialect) dialect : null;
+	}
+
+	/**
+	 * Start gathering the operations of the current thread
+	 */
+	public void prepareBatch() {
+		operationsQueue.set( new OperationsQueue() );
+	}
+
+	/**
+	 * Whether the operations of the current thread are being gathered
+	 */
+	public boolean isBatchPrepared() {
+		return operationsQueue.get() != null;
+	}
+
+	/**
+	 * Apply the operations gathered so far
+	 */
+	public void executeBatch() {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue != null && !queue.isEmpty() ) {
+			dialect.executeBatch( queue );
+		}
+	}
+
+	/**
+	 * Stop gathering operations; operations not yet executed are discarded
+	 */
+	public void clearBatch() {
+		operationsQueue.remove();
+	}
+
+	@Override
+	public void executeBatch(OperationsQueue queue) {
+		dialect.executeBatch( queue );
+	}
+
+	@Override
+	public LockingStrategy getLockingStrategy(Lockable lockable, LockMode lockMode) {
+		return dialect.getLockingStrategy( lockable, lockMode );
+	}
+
+	@Override
+	public Tuple getTuple(EntityKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue != null && queue.contains( key ) ) {
+			return queue.getTuple( key );
+		}
+		return dialect.getTuple( key );
+	}
+
+	@Override
+	public Tuple[] getTuples(EntityKey[] keys) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue == null ) {
+			return dialect.getTuples( keys );
+		}
+		final Tuple[] tuples = new Tuple[keys.length];
+		final List<Integer> positionsToLoad = new ArrayList<Integer>( keys.length );
+		for ( int index = 0 ; index < keys.length ; index++ ) {
+			if ( queue.contains( keys[index] ) ) {
+				tuples[index] = queue.getTuple( keys[index] );
+			}
+			else {
+				positionsToLoad.add( index );
+			}
+		}
+		if ( !positionsToLoad.isEmpty() ) {
+			final EntityKey[] keysToLoad = new EntityKey[positionsToLoad.size()];
+			for ( int index = 0 ; index < keysToLoad.length ; index++ ) {
+				keysToLoad[index] = keys[ positionsToLoad.get( index ) ];
+			}
+			final Tuple[] loadedTuples = dialect.getTuples( keysToLoad );
+			for ( int index = 0 ; index < loadedTuples.length ; index++ ) {
+				tuples[ positionsToLoad.get( index ) ] = loadedTuples[index];
+			}
+		}
+		return tuples;
+	}
+
+	@Override
+	public Tuple createTuple(EntityKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue != null && queue.contains( key ) && queue.getTuple( key ) == null ) {
+			//pending removal: the datastore still holds the old state
+			return new Tuple( EmptyTupleSnapshot.SINGLETON );
+		}
+		return dialect.createTuple( key );
+	}
+
+	@Override
+	public Tuple createTupleIfAbsent(EntityKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue != null && queue.contains( key ) ) {
+			//the pending operations decide, not the datastore
+			return queue.getTuple( key ) == null ? new Tuple( EmptyTupleSnapshot.SINGLETON ) : null;
+		}
+		return dialect.createTupleIfAbsent( key );
+	}
+
+	@Override
+	public void updateTuple(Tuple tuple, EntityKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue == null ) {
+			dialect.updateTuple( tuple, key );
+		}
+		else {
+			queue.add( new UpdateTupleOperation( tuple, key ) );
+		}
+	}
+
+	@Override
+	public boolean updateTupleIfVersion(Tuple tuple, EntityKey key, String versionColumn, Object expectedVersion) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue == null ) {
+			return dialect.updateTupleIfVersion( tuple, key, versionColumn, expectedVersion );
+		}
+		if ( !queue.contains( key ) ) {
+			//the version is checked by the datastore when the batch is executed,
+			//a concurrent update then fails the batch
+			queue.add( new UpdateTupleOperation( tuple, key ) );
+			queue.expectVersion( key, versionColumn, expectedVersion );
+			return true;
+		}
+		final Tuple pending = queue.getTuple( key );
+		if ( pending == null ) {
+			return false;
+		}
+		//the tuple has already been written during this flush: the changes, possibly
+		//made without reading the tuple, are applied to its pending state
+		if ( pending != tuple ) {
+			if ( !EqualsHelper.equals( expectedVersion, pending.get( versionColumn ) ) ) {
+				return false;
+			}
+			for ( TupleOperation operation : tuple.getOperations() ) {
+				if ( operation.getType() == TupleOperationType.REMOVE ) {
+					pending.remove( operation.getColumn() );
+				}
+				else {
+					pending.put( operation.getColumn(), operation.getValue() );
+				}
+			}
+		}
+		if ( !pending.getSnapshot().isEmpty() ) {
+			//the tuple is stored: the datastore is checked to still hold the expected version
+			//when the batch is executed, a concurrent update is not overwritten
+			queue.expectVersion( key, versionColumn, expectedVersion );
+		}
+		return true;
+	}
+
+	@Override
+	public void removeTuple(EntityKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue == null ) {
+			dialect.removeTuple( key );
+		}
+		else {
+			queue.add( new RemoveTupleOperation( key ) );
+		}
+	}
+
+	@Override
+	public void forEachTuple(String table, TupleConsumer consumer) {
+		dialect.forEachTuple( table, consumer );
+	}
+
+	@Override
+	public Association getAssociation(AssociationKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue != null && queue.contains( key ) ) {
+			return queue.getAssociation( key );
+		}
+		return dialect.getAssociation( key );
+	}
+
+	@Override
+	public Association createAssociation(AssociationKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue == null ) {
+			return dialect.createAssociation( key );
+		}
+		Association association = queue.contains( key ) ? queue.getAssociation( key ) : dialect.getAssociation( key );
+		if ( association == null ) {
+			//creation is deferred to the update applied when the batch is executed
+			//and an association emptied again before the end of the flush is never created
+			association = new Association( EmptyAssociationSnapshot.SINGLETON );
+		}
+		//inverse associations touched by several entities of the flush share the same instance
+		//and are written only once, existing rows are kept
+		if ( queue.getAssociation( key ) != association ) {
+			queue.addCreated( key, association );
+		}
+		return association;
+	}
+
+	@Override
+	public void updateAssociation(Association association, AssociationKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue == null ) {
+			dialect.updateAssociation( association, key );
+		}
+		else {
+			queue.add( new UpdateAssociationOperation( association, key ) );
+		}
+	}
+
+	@Override
+	public void removeAssociation(AssociationKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( queue == null ) {
+			dialect.removeAssociation( key );
+		}
+		else {
+			queue.add( new RemoveAssociationOperation( key ) );
+		}
+	}
+
+	@Override
+	public Future<Tuple> getTupleAsync(EntityKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( asyncDialect == null || ( queue != null && queue.contains( key ) ) ) {
+			return new CompletedFuture<Tuple>( getTuple( key ) );
+		}
+		return asyncDialect.getTupleAsync( key );
+	}
+
+	@Override
+	public Future<Void> updateTupleAsync(Tuple tuple, EntityKey key) {
+		if ( asyncDialect == null || isBatchPrepared() ) {
+			updateTuple( tuple, key );
+			return CompletedFuture.done();
+		}
+		return asyncDialect.updateTupleAsync( tuple, key );
+	}
+
+	@Override
+	public Future<Void> removeTupleAsync(EntityKey key) {
+		if ( asyncDialect == null || isBatchPrepared() ) {
+			removeTuple( key );
+			return CompletedFuture.done();
+		}
+		return asyncDialect.removeTupleAsync( key );
+	}
+
+	@Override
+	public Future<Association> getAssociationAsync(AssociationKey key) {
+		OperationsQueue queue = operationsQueue.get();
+		if ( asyncDialect == null || ( queue != null && queue.contains( key ) ) ) {
+			return new CompletedFuture<Association>( getAssociation( key ) );
+		}
+		return asyncDialect.getAssociationAsync( key );
+	}
+
+	@Override
+	public Future<Void> updateAssociationAsync(Association association, AssociationKey key) {
+		if ( asyncDialect == null || isBatchPrepared() ) {
+			updateAssociation( association, key );
+			return CompletedFuture.done();
+		}
+		return asyncDialect.updateAssociationAsync( association, key );
+	}
+
+	@Override
+	public Future<Void> removeAssociationAsync(AssociationKey key) {
+		if ( asyncDialect == null || isBatchPrepared() ) {
+			removeAssociation( key );
+			return CompletedFuture.done();
+		}
+		return asyncDialect.removeAssociationAsync( key );
+	}
+
+	@Override
+	public Tuple createTupleAssociation(AssociationKey associationKey, RowKey rowKey) {
+		return dialect.createTupleAssociation( associationKey, rowKey );
+	}
+
+	@Override
+	public void nextValue(RowKey key, IntegralDataTypeHolder value, int increment, int initialValue) {
+		dialect.nextValue( key, value, increment, initialValue );
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.impl;
+
+import org.hibernate.ogm.dialect.BatchableGridDialect;
+import org.hibernate.ogm.dialect.batch.Operation;
+import org.hibernate.ogm.dialect.batch.OperationsQueue;
+import org.hibernate.ogm.dialect.batch.RemoveAssociationOperation;
+import org.hibernate.ogm.dialect.batch.RemoveTupleOperation;
+import org.hibernate.ogm.dialect.batch.UpdateAssociationOperation;
+import org.hibernate.ogm.dialect.batch.UpdateTupleOperation;
+import org.hibernate.ogm.stat.GridOperation;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
+
+/**
+ * Records the operations of a {@link BatchableGridDialect}, batches included.
+ *
+ * The operations of a batch are counted per table when the batch is executed, the batch
+ * execution itself is timed as a single operation.
+ *
+ * @author agent <agent@local>
+ */
+public class BatchableGridStatisticsDelegator extends GridStatisticsDelegator implements BatchableGridDialect {
+
+	private final BatchableGridDialect batchableDialect;
+	private final GridStatisticsImpl statistics;
+
+	public BatchableGridStatisticsDelegator(BatchableGridDialect dialect, GridStatisticsImpl statistics) {
+		super( dialect, statistics );
+		this.batchableDialect = dialect;
+		this.statistics = statistics;
+	}
+
+	@Override
+	public void executeBatch(OperationsQueue queue) {
+		if ( !statistics.isStatisticsEnabled() ) {
+			batchableDialect.executeBatch( queue );
+			return;
+		}
+		final OperationsQueue recordedQueue = new OperationsQueue();
+		Operation operation;
+		while ( ( operation = queue.poll() ) != null ) {
+			if ( operation instanceof UpdateTupleOperation ) {
+				UpdateTupleOperation update = (UpdateTupleOperation) operation;
+				statistics.recordDeferred( GridOperation.UPDATE_TUPLE, update.getEntityKey().getTable() );
+				recordedQueue.add( update );
+			}
+			else if ( operation instanceof RemoveTupleOperation ) {
+				RemoveTupleOperation remove = (RemoveTupleOperation) operation;
+				statistics.recordDeferred( GridOperation.REMOVE_TUPLE, remove.getEntityKey().getTable() );
+				recordedQueue.add( remove );
+			}
+			else if ( operation instanceof UpdateAssociationOperation ) {
+				UpdateAssociationOperation update = (UpdateAssociationOperation) operation;
+				statistics.recordDeferred( GridOperation.UPDATE_ASSOCIATION, update.getAssociationKey().getTable() );
+				recordedQueue.add( update );
+			}
+			else if ( operation instanceof RemoveAssociationOperation ) {
+				RemoveAssociationOperation remove = (RemoveAssociationOperation) operation;
+				statistics.recordDeferred( GridOperation.REMOVE_ASSOCIATION, remove.getAssociationKey().getTable() );
+				recordedQueue.add( remove );
+			}
+		}
+		final long start = System.nanoTime();
+		batchableDialect.executeBatch( recordedQueue );
+		//the columns and rows of the batched operations are not known
+		statistics.record( GridOperation.EXECUTE_BATCH, (String) null, start, 0 );
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.impl;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+
+/**
+ * Gather the grid operations executed during a flush and apply them once the
+ * flush is over.
+ *
+ * Wraps the flush listeners of the session factory; nested flushes join the
+ * batch of the outer one.
+ *
+ * @author agent <agent@local>
+ */
+public class FlushBatchManagerEventListener implements FlushEventListener {
+
+	private final FlushEventListener delegate;
+	private final BatchOperationsDelegator gridDialect;
+
+	public FlushBatchManagerEventListener(FlushEventListener delegate, BatchOperationsDelegator gridDialect) {
+		this.delegate = delegate;
+		this.gridDialect = gridDialect;
+	}
+
+	@Override
+	public void onFlush(FlushEvent event) throws HibernateException {
+		if ( gridDialect.isBatchPrepared() ) {
+			delegate.onFlush( event );
+			return;
+		}
+		gridDialect.prepareBatch();
+		try {
+			delegate.onFlush( event );
+			gridDialect.executeBatch();
+		}
+		finally {
+			gridDialect.clearBatch();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.dialect.GridDialect;
+
+/**
+ * Wraps the flush listeners with {@link FlushBatchManagerEventListener} once the
+ * session factory is built, ie after every integrator had a chance to replace them.
+ *
+ * @author agent <agent@local>
+ */
+public class FlushBatchingInstaller implements SessionFactoryObserver {
+
+	@Override
+	public void sessionFactoryCreated(SessionFactory factory) {
+		final SessionFactoryImplementor factoryImplementor = (SessionFactoryImplementor) factory;
+		final GridDialect gridDialect = factoryImplementor.getServiceRegistry()
+				.getService( DatastoreServices.class )
+				.getGridDialect();
+		if ( !( gridDialect instanceof BatchOperationsDelegator ) ) {
+			return;
+		}
+		final EventListenerGroup<FlushEventListener> flushListeners = factoryImplementor.getServiceRegistry()
+				.getService( EventListenerRegistry.class )
+				.getEventListenerGroup( EventType.FLUSH );
+		final List<FlushEventListener> wrappedListeners = new ArrayList<FlushEventListener>( flushListeners.count() );
+		for ( FlushEventListener listener : flushListeners.listeners() ) {
+			if ( listener instanceof FlushBatchManagerEventListener ) {
+				wrappedListeners.add( listener );
+			}
+			else {
+				wrappedListeners.add( new FlushBatchManagerEventListener( listener, (BatchOperationsDelegator) gridDialect ) );
+			}
+		}
+		flushListeners.clear();
+		for ( FlushEventListener listener : wrappedListeners ) {
+			flushListeners.appendListener( listener );
+		}
+	}
+
+	@Override
+	public void sessionFactoryClosed(SessionFactory factory) {
+	}
+}
@@ -21,6 +21,7 @@
 package org.hibernate.ogm.dialect.impl;
 
 import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
 import org.hibernate.service.Service;
 import org.hibernate.service.ServiceRegistry;
 
@@ -32,5 +33,14 @@ import java.util.Map;
 public interface GridDialectFactory extends Service {
 	public static final String GRID_DIALECT = "hibernate.ogm.datastore.grid_dialect";
 
-	public GridDialect buildGridDialect(Map configurationValues, ServiceRegistry registry);
+	/**
+	 * Whether the operations executed against the datastore are recorded.
+	 * Defaults to the value of {@link org.hibernate.cfg.AvailableSettings#GENERATE_STATISTICS}
+	 */
+	public static final String GRID_STATISTICS = "hibernate.ogm.datastore.grid_statistics";
+
+	/**
+	 * @param statistics where to record the operations of the dialect, null if they are not recorded
+	 */
+	public GridDialect buildGridDialect(Map configurationValues, ServiceRegistry registry, GridStatisticsImpl statistics);
 }
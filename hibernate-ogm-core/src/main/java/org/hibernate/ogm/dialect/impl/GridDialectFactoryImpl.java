@@ -21,7 +21,10 @@
 package org.hibernate.ogm.dialect.impl;
 
 import org.hibernate.ogm.datastore.spi.DatastoreProvider;
+import org.hibernate.ogm.dialect.BatchableGridDialect;
 import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.stat.impl.GridStatisticsAware;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
 import org.hibernate.ogm.util.impl.Log;
 import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.hibernate.service.Service;
@@ -38,7 +41,7 @@ public class GridDialectFactoryImpl implements GridDialectFactory {
 
 	private static final Log log = LoggerFactory.make();
 
-	public GridDialect buildGridDialect(Map configurationValues, ServiceRegistry registry) {
+	public GridDialect buildGridDialect(Map configurationValues, ServiceRegistry registry, GridStatisticsImpl statistics) {
 		Object value = configurationValues.get(GRID_DIALECT);
 		Class<? extends GridDialect> dialectClass = null;
 		if ( value == null ) {
@@ -77,7 +80,23 @@ public class GridDialectFactoryImpl implements GridDialectFactory {
 			if ( injector == null ) {
 				log.gridDialectHasNoProperConstrutor(dialectClass);
 			}
-			return (GridDialect) injector.newInstance( registry.getService(DatastoreProvider.class) );
+			final GridDialect datastoreDialect = (GridDialect) injector.newInstance( registry.getService(DatastoreProvider.class) );
+			GridDialect gridDialect = datastoreDialect;
+			if ( statistics != null ) {
+				if ( datastoreDialect instanceof GridStatisticsAware ) {
+					( (GridStatisticsAware) datastoreDialect ).setGridStatistics( statistics );
+				}
+				if ( datastoreDialect instanceof BatchableGridDialect ) {
+					gridDialect = new BatchableGridStatisticsDelegator( (BatchableGridDialect) gridDialect, statistics );
+				}
+				else {
+					gridDialect = new GridStatisticsDelegator( gridDialect, statistics );
+				}
+			}
+			if ( datastoreDialect instanceof BatchableGridDialect ) {
+				gridDialect = new BatchOperationsDelegator( (BatchableGridDialect) gridDialect );
+			}
+			return gridDialect;
 		} catch (Exception e) {
 			throw log.cannotInstantiateGridDialect(dialectClass, e);
 		}
@@ -0,0 +1,267 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import org.hibernate.LockMode;
+import org.hibernate.dialect.lock.LockingStrategy;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.AsyncGridDialect;
+import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.dialect.TupleConsumer;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.stat.GridOperation;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
+import org.hibernate.ogm.util.impl.CompletedFuture;
+import org.hibernate.persister.entity.Lockable;
+
+/**
+ * Wraps the {@link GridDialect} of the datastore and records the operations executed against it
+ * in a {@link GridStatisticsImpl}.
+ *
+ * It sits below the {@link BatchOperationsDelegator}: a batch is recorded once executed, operations
+ * served from the pending batch never reach the datastore and are not recorded.
+ * Asynchronous operations are delegated when the wrapped dialect supports them and are otherwise
+ * executed synchronously. {@link BatchableGridStatisticsDelegator} wraps the dialects supporting batches.
+ *
+ * @author agent <agent@local>
+ */
+public class GridStatisticsDelegator implements AsyncGridDialect {
+
+	private final GridDialect dialect;
+	private final AsyncGridDialect asyncDialect;
+	private final GridStatisticsImpl statistics;
+
+	public GridStatisticsDelegator(GridDialect dialect, GridStatisticsImpl statistics) {
+		this.dialect = dialect;
+		this.asyncDialect = dialect instanceof AsyncGridDialect ? (AsyncGridDialect) dialect : null;
+		this.statistics = statistics;
+	}
+
+	@Override
+	public LockingStrategy getLockingStrategy(Lockable lockable, LockMode lockMode) {
+		return dialect.getLockingStrategy( lockable, lockMode );
+	}
+
+	@Override
+	public Tuple getTuple(EntityKey key) {
+		final long start = System.nanoTime();
+		final Tuple tuple = dialect.getTuple( key );
+		statistics.record( GridOperation.GET_TUPLE, key.getTable(), start, countOf( tuple ) );
+		return tuple;
+	}
+
+	@Override
+	public Tuple[] getTuples(EntityKey[] keys) {
+		final long start = System.nanoTime();
+		final Tuple[] tuples = dialect.getTuples( keys );
+		if ( statistics.isStatisticsEnabled() ) {
+			long columns = 0;
+			for ( Tuple tuple : tuples ) {
+				columns += countOf( tuple );
+			}
+			//a batch load may span the tables of an entity hierarchy
+			final Set<String> tables = new HashSet<String>();
+			for ( EntityKey key : keys ) {
+				tables.add( key.getTable() );
+			}
+			statistics.record( GridOperation.GET_TUPLES, tables, start, columns );
+		}
+		return tuples;
+	}
+
+	@Override
+	public Tuple createTuple(EntityKey key) {
+		final long start = System.nanoTime();
+		final Tuple tuple = dialect.createTuple( key );
+		statistics.record( GridOperation.CREATE_TUPLE, key.getTable(), start, 0 );
+		return tuple;
+	}
+
+	@Override
+	public Tuple createTupleIfAbsent(EntityKey key) {
+		final long start = System.nanoTime();
+		final Tuple tuple = dialect.createTupleIfAbsent( key );
+		statistics.record( GridOperation.CREATE_TUPLE_IF_ABSENT, key.getTable(), start, 0 );
+		return tuple;
+	}
+
+	@Override
+	public void updateTuple(Tuple tuple, EntityKey key) {
+		final long start = System.nanoTime();
+		dialect.updateTuple( tuple, key );
+		statistics.record( GridOperation.UPDATE_TUPLE, key.getTable(), start, countOfUpdate( tuple ) );
+	}
+
+	@Override
+	public boolean updateTupleIfVersion(Tuple tuple, EntityKey key, String versionColumn, Object expectedVersion) {
+		final long start = System.nanoTime();
+		final boolean updated = dialect.updateTupleIfVersion( tuple, key, versionColumn, expectedVersion );
+		statistics.record( GridOperation.UPDATE_TUPLE_IF_VERSION, key.getTable(), start, countOfUpdate( tuple ) );
+		return updated;
+	}
+
+	@Override
+	public void removeTuple(EntityKey key) {
+		final long start = System.nanoTime();
+		dialect.removeTuple( key );
+		statistics.record( GridOperation.REMOVE_TUPLE, key.getTable(), start, 0 );
+	}
+
+	@Override
+	public void forEachTuple(String table, TupleConsumer consumer) {
+		final long start = System.nanoTime();
+		dialect.forEachTuple( table, consumer );
+		statistics.record( GridOperation.FOR_EACH_TUPLE, table, start, 0 );
+	}
+
+	@Override
+	public Association getAssociation(AssociationKey key) {
+		final long start = System.nanoTime();
+		final Association association = dialect.getAssociation( key );
+		statistics.record( GridOperation.GET_ASSOCIATION, key.getTable(), start, countOf( association ) );
+		return association;
+	}
+
+	@Override
+	public Association createAssociation(AssociationKey key) {
+		final long start = System.nanoTime();
+		final Association association = dialect.createAssociation( key );
+		statistics.record( GridOperation.CREATE_ASSOCIATION, key.getTable(), start, 0 );
+		return association;
+	}
+
+	@Override
+	public void updateAssociation(Association association, AssociationKey key) {
+		final long start = System.nanoTime();
+		dialect.updateAssociation( association, key );
+		statistics.record( GridOperation.UPDATE_ASSOCIATION, key.getTable(), start, countOfUpdate( association ) );
+	}
+
+	@Override
+	public void removeAssociation(AssociationKey key) {
+		final long start = System.nanoTime();
+		dialect.removeAssociation( key );
+		statistics.record( GridOperation.REMOVE_ASSOCIATION, key.getTable(), start, 0 );
+	}
+
+	@Override
+	public Tuple createTupleAssociation(AssociationKey associationKey, RowKey rowKey) {
+		//does not access the datastore
+		return dialect.createTupleAssociation( associationKey, rowKey );
+	}
+
+	@Override
+	public void nextValue(RowKey key, IntegralDataTypeHolder value, int increment, int initialValue) {
+		final long start = System.nanoTime();
+		dialect.nextValue( key, value, increment, initialValue );
+		statistics.record( GridOperation.NEXT_VALUE, key.getTable(), start, 0 );
+	}
+
+	@Override
+	public Future<Tuple> getTupleAsync(EntityKey key) {
+		if ( asyncDialect == null ) {
+			return new CompletedFuture<Tuple>( getTuple( key ) );
+		}
+		statistics.recordDeferred( GridOperation.GET_TUPLE, key.getTable() );
+		return asyncDialect.getTupleAsync( key );
+	}
+
+	@Override
+	public Future<Void> updateTupleAsync(Tuple tuple, EntityKey key) {
+		if ( asyncDialect == null ) {
+			updateTuple( tuple, key );
+			return CompletedFuture.done();
+		}
+		statistics.recordDeferred( GridOperation.UPDATE_TUPLE, key.getTable() );
+		return asyncDialect.updateTupleAsync( tuple, key );
+	}
+
+	@Override
+	public Future<Void> removeTupleAsync(EntityKey key) {
+		if ( asyncDialect == null ) {
+			removeTuple( key );
+			return CompletedFuture.done();
+		}
+		statistics.recordDeferred( GridOperation.REMOVE_TUPLE, key.getTable() );
+		return asyncDialect.removeTupleAsync( key );
+	}
+
+	@Override
+	public Future<Association> getAssociationAsync(AssociationKey key) {
+		if ( asyncDialect == null ) {
+			return new CompletedFuture<Association>( getAssociation( key ) );
+		}
+		statistics.recordDeferred( GridOperation.GET_ASSOCIATION, key.getTable() );
+		return asyncDialect.getAssociationAsync( key );
+	}
+
+	@Override
+	public Future<Void> updateAssociationAsync(Association association, AssociationKey key) {
+		if ( asyncDialect == null ) {
+			updateAssociation( association, key );
+			return CompletedFuture.done();
+		}
+		statistics.recordDeferred( GridOperation.UPDATE_ASSOCIATION, key.getTable() );
+		return asyncDialect.updateAssociationAsync( association, key );
+	}
+
+	@Override
+	public Future<Void> removeAssociationAsync(AssociationKey key) {
+		if ( asyncDialect == null ) {
+			removeAssociation( key );
+			return CompletedFuture.done();
+		}
+		statistics.recordDeferred( GridOperation.REMOVE_ASSOCIATION, key.getTable() );
+		return asyncDialect.removeAssociationAsync( key );
+	}
+
+	//column and row counts are only computed when they are recorded
+
+	private long countOf(Tuple tuple) {
+		if ( tuple == null || !statistics.isStatisticsEnabled() ) {
+			return 0;
+		}
+		return tuple.getSnapshot().getColumnNames().size();
+	}
+
+	private long countOfUpdate(Tuple tuple) {
+		return statistics.isStatisticsEnabled() ? tuple.getOperations().size() : 0;
+	}
+
+	private long countOf(Association association) {
+		if ( association == null || !statistics.isStatisticsEnabled() ) {
+			return 0;
+		}
+		return association.size();
+	}
+
+	private long countOfUpdate(Association association) {
+		return statistics.isStatisticsEnabled() ? association.getOperations().size() : 0;
+	}
+}
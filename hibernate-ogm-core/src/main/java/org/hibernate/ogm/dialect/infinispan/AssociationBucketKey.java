@@ -0,0 +1,70 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.infinispan;
+
+import java.io.Serializable;
+
+import org.hibernate.ogm.grid.AssociationKey;
+
+/**
+ * Key of one of the buckets an association is split into when stored in segments.
+ *
+ * @author agent <agent@local>
+ */
+public final class AssociationBucketKey implements Serializable {
+	private final AssociationKey associationKey;
+	private final int bucket;
+
+	public AssociationBucketKey(AssociationKey associationKey, int bucket) {
+		this.associationKey = associationKey;
+		this.bucket = bucket;
+	}
+
+	public AssociationKey getAssociationKey() {
+		return associationKey;
+	}
+
+	public int getBucket() {
+		return bucket;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if ( this == o ) {
+			return true;
+		}
+		if ( o == null || AssociationBucketKey.class != o.getClass() ) {
+			return false;
+		}
+		AssociationBucketKey that = (AssociationBucketKey) o;
+		return bucket == that.bucket && associationKey.equals( that.associationKey );
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * associationKey.hashCode() + bucket;
+	}
+
+	@Override
+	public String toString() {
+		return "AssociationBucketKey{bucket=" + bucket + ", " + associationKey + "}";
+	}
+}
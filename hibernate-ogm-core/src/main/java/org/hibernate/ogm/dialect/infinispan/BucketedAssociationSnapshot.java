@@ -0,0 +1,190 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.infinispan;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.hibernate.annotations.common.AssertionFailure;
+import org.hibernate.ogm.datastore.impl.MapBasedTupleSnapshot;
+import org.hibernate.ogm.datastore.spi.AssociationSnapshot;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.RowKey;
+import org.infinispan.Cache;
+import org.infinispan.atomic.AtomicMapLookup;
+
+/**
+ * Association split into hash buckets, each stored in its own atomic map.
+ *
+ * The header, stored under the association key, holds the number of buckets
+ * under {@link #BUCKETS} and a marker under the index of each bucket a row has been put in.
+ * The header never depends on the rows of a bucket so that concurrent changes to different
+ * buckets do not conflict; sizes and iteration are derived from the buckets themselves.
+ * Buckets are only read when a row they hold is needed.
+ *
+ * @author agent <agent@local>
+ */
+public class BucketedAssociationSnapshot implements AssociationSnapshot {
+	/**
+	 * Header entry holding the number of buckets
+	 */
+	public static final Integer BUCKETS = -1;
+
+	/**
+	 * Header value of the buckets that exist
+	 */
+	private static final Integer PRESENT = 1;
+
+	private final Cache<Object, ?> cache;
+	private final AssociationKey key;
+	private final Map<Integer, Integer> header;
+	private final Map<RowKey, Map<String, Object>>[] buckets;
+	private final Set<RowKey> rowKeys = new RowKeys();
+
+	@SuppressWarnings("unchecked")
+	public BucketedAssociationSnapshot(Cache<Object, ?> cache, AssociationKey key, Map<Integer, Integer> header) {
+		this.cache = cache;
+		this.key = key;
+		this.header = header;
+		Integer bucketNumber = header.get( BUCKETS );
+		if ( bucketNumber == null ) {
+			throw new AssertionFailure( "Association not stored in buckets: " + key );
+		}
+		this.buckets = new Map[bucketNumber];
+	}
+
+	@Override
+	public Tuple get(RowKey column) {
+		Map<String, Object> rawResult = getBucket( bucketOf( column ), false ).get( column );
+		return rawResult != null ? new Tuple( new MapBasedTupleSnapshot( rawResult ) ) : null;
+	}
+
+	@Override
+	public boolean containsKey(RowKey column) {
+		return getBucket( bucketOf( column ), false ).containsKey( column );
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for ( int bucket = 0; bucket < buckets.length; bucket++ ) {
+			size += getBucket( bucket, false ).size();
+		}
+		return size;
+	}
+
+	@Override
+	public Set<RowKey> getRowKeys() {
+		return rowKeys;
+	}
+
+	public int getBucketNumber() {
+		return buckets.length;
+	}
+
+	public int bucketOf(RowKey rowKey) {
+		return ( rowKey.hashCode() & Integer.MAX_VALUE ) % buckets.length;
+	}
+
+	/**
+	 * Return the rows of a bucket, an empty map if it does not exist and create is false
+	 */
+	public Map<RowKey, Map<String, Object>> getBucket(int bucket, boolean create) {
+		Map<RowKey, Map<String, Object>> rows = buckets[bucket];
+		if ( rows == null ) {
+			//a bucket never marked in the header has never been created
+			if ( !create && !header.containsKey( bucket ) ) {
+				return Collections.emptyMap();
+			}
+			rows = AtomicMapLookup.getFineGrainedAtomicMap( cache, new AssociationBucketKey( key, bucket ), create );
+			if ( rows == null ) {
+				return Collections.emptyMap();
+			}
+			buckets[bucket] = rows;
+		}
+		return rows;
+	}
+
+	/**
+	 * Record in the header that a bucket exists once a row has been put in it.
+	 * The marker is the same whatever the rows, concurrent writers of the bucket agree on it.
+	 */
+	public void markBucketPresent(int bucket) {
+		if ( !header.containsKey( bucket ) ) {
+			header.put( bucket, PRESENT );
+		}
+	}
+
+	public void removeBucket(int bucket) {
+		AtomicMapLookup.removeAtomicMap( cache, new AssociationBucketKey( key, bucket ) );
+		buckets[bucket] = null;
+		header.remove( bucket );
+	}
+
+	private class RowKeys extends AbstractSet<RowKey> {
+		@Override
+		public Iterator<RowKey> iterator() {
+			return new Iterator<RowKey>() {
+				private int bucket = -1;
+				private Iterator<RowKey> current = Collections.<RowKey>emptySet().iterator();
+
+				@Override
+				public boolean hasNext() {
+					while ( !current.hasNext() ) {
+						if ( ++bucket >= buckets.length ) {
+							return false;
+						}
+						current = getBucket( bucket, false ).keySet().iterator();
+					}
+					return true;
+				}
+
+				@Override
+				public RowKey next() {
+					if ( !hasNext() ) {
+						throw new NoSuchElementException();
+					}
+					return current.next();
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException( "Association keys are read-only" );
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return BucketedAssociationSnapshot.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof RowKey && containsKey( (RowKey) o );
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.infinispan;
+
+import java.util.Map;
+
+import org.hibernate.ogm.datastore.impl.MapBasedAssociationSnapshot;
+import org.hibernate.ogm.grid.RowKey;
+
+/**
+ * Rows of an association stored within the atomic map of the owner tuple.
+ *
+ * Each row is held by its own entry of the owner map, keyed by an {@link EmbeddedRowKey},
+ * so that concurrent changes of different rows do not conflict. A column named after
+ * the association table and key columns and prefixed by {@link #COLUMN_PREFIX} marks
+ * the association as embedded. Loading the owner and its small collections only touches
+ * the owner entry. The map of the snapshot is a copy of the rows read.
+ *
+ * @author agent <agent@local>
+ */
+public class EmbeddedAssociationSnapshot extends MapBasedAssociationSnapshot {
+	public static final String COLUMN_PREFIX = "__association:";
+
+	public EmbeddedAssociationSnapshot(Map<RowKey, Map<String, Object>> map) {
+		super( map );
+	}
+}
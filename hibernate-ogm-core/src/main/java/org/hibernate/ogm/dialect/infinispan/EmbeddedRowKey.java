@@ -0,0 +1,74 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.infinispan;
+
+import java.io.Serializable;
+
+import org.hibernate.ogm.grid.RowKey;
+
+/**
+ * Key of a row of an association embedded in the atomic map of its owner tuple,
+ * see {@link EmbeddedAssociationSnapshot}.
+ *
+ * @author agent <agent@local>
+ */
+public final class EmbeddedRowKey implements Serializable {
+	private final String column;
+	private final RowKey rowKey;
+
+	public EmbeddedRowKey(String column, RowKey rowKey) {
+		this.column = column;
+		this.rowKey = rowKey;
+	}
+
+	/**
+	 * @return the owner column marking the association the row belongs to
+	 */
+	public String getColumn() {
+		return column;
+	}
+
+	public RowKey getRowKey() {
+		return rowKey;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if ( this == o ) {
+			return true;
+		}
+		if ( o == null || EmbeddedRowKey.class != o.getClass() ) {
+			return false;
+		}
+		EmbeddedRowKey that = (EmbeddedRowKey) o;
+		return column.equals( that.column ) && rowKey.equals( that.rowKey );
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * column.hashCode() + rowKey.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "EmbeddedRowKey{column=" + column + ", " + rowKey + "}";
+	}
+}
@@ -20,36 +20,79 @@
  */
 package org.hibernate.ogm.dialect.infinispan;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
 
 import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.internal.util.compare.EqualsHelper;
+import org.hibernate.ogm.datastore.impl.TupleSchemaRegistry;
 import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
 import org.hibernate.ogm.datastore.spi.Association;
 import org.hibernate.ogm.datastore.spi.AssociationOperation;
+import org.hibernate.ogm.datastore.spi.IndexedTuple;
 import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.datastore.spi.TupleCodec;
 import org.hibernate.ogm.datastore.spi.TupleOperation;
+import org.hibernate.ogm.datastore.spi.TupleOperationType;
+import org.hibernate.ogm.datastore.spi.TupleSchema;
 import org.hibernate.ogm.datastore.spi.TupleSnapshot;
 import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
+import org.infinispan.atomic.AtomicHashMap;
 import org.infinispan.atomic.AtomicMapLookup;
 import org.infinispan.atomic.FineGrainedAtomicMap;
 
 import org.hibernate.LockMode;
+import org.hibernate.TransactionException;
 import org.hibernate.dialect.lock.LockingStrategy;
 import org.hibernate.dialect.lock.OptimisticForceIncrementLockingStrategy;
 import org.hibernate.dialect.lock.OptimisticLockingStrategy;
 import org.hibernate.dialect.lock.PessimisticForceIncrementLockingStrategy;
 import org.hibernate.dialect.lock.SelectLockingStrategy;
+import org.hibernate.ogm.datastore.impl.EmptyAssociationSnapshot;
 import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.impl.MapBasedAssociationSnapshot;
 import org.hibernate.ogm.datastore.impl.MapBasedTupleSnapshot;
-import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.dialect.AsyncGridDialect;
+import org.hibernate.ogm.dialect.BatchableGridDialect;
+import org.hibernate.ogm.dialect.TupleConsumer;
+import org.hibernate.ogm.dialect.batch.Operation;
+import org.hibernate.ogm.dialect.batch.OperationsQueue;
+import org.hibernate.ogm.dialect.batch.RemoveAssociationOperation;
+import org.hibernate.ogm.dialect.batch.RemoveTupleOperation;
+import org.hibernate.ogm.dialect.batch.UpdateAssociationOperation;
+import org.hibernate.ogm.dialect.batch.UpdateTupleOperation;
 import org.hibernate.ogm.grid.AssociationKey;
 import org.hibernate.ogm.grid.EntityKey;
 import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.stat.impl.GridStatisticsAware;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
+import org.hibernate.ogm.util.impl.CompletedFuture;
+import org.hibernate.ogm.util.impl.FutureHelper;
+import org.hibernate.ogm.util.impl.Log;
+import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.hibernate.persister.entity.Lockable;
+import org.infinispan.config.Configuration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.loaders.CacheLoader;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.transaction.LocalTransaction;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.transaction.TransactionTable;
+import org.infinispan.util.concurrent.IsolationLevel;
+import org.infinispan.util.concurrent.NotifyingFuture;
 
 import static org.hibernate.ogm.datastore.spi.DefaultDatastoreNames.ENTITY_STORE;
 import static org.hibernate.ogm.datastore.spi.DefaultDatastoreNames.ASSOCIATION_STORE;
@@ -59,12 +102,37 @@ import static org.hibernate.ogm.datastore.spi.DefaultDatastoreNames.IDENTIFIER_S
 /**
  * @author Emmanuel Bernard
  */
-public class InfinispanDialect implements GridDialect {
+public class InfinispanDialect implements BatchableGridDialect, AsyncGridDialect, GridStatisticsAware {
+
+	private static final Log log = LoggerFactory.make();
 
 	private final InfinispanDatastoreProvider provider;
+	/**
+	 * When set, entity tuples are stored as encoded byte arrays instead of atomic maps
+	 */
+	private final TupleCodec tupleCodec;
+	/**
+	 * When positive, associations are split into this number of buckets, see {@link BucketedAssociationSnapshot}
+	 */
+	private final int associationBuckets;
+	/**
+	 * When positive, the collections whose owner is known are stored within the owner tuple
+	 * up to this number of rows, see {@link EmbeddedAssociationSnapshot}
+	 */
+	private final int embeddedAssociationThreshold;
+	private volatile GridStatisticsImpl statistics;
 
 	public InfinispanDialect(InfinispanDatastoreProvider provider) {
 		this.provider = provider;
+		this.tupleCodec = provider.getTupleCodec();
+		this.associationBuckets = provider.getAssociationBuckets();
+		this.embeddedAssociationThreshold = tupleCodec == null && associationBuckets == 0 ?
+				provider.getEmbeddedAssociationThreshold() :
+				0;
+		if ( !isVersionCheckAtomic( provider.getCache( ENTITY_STORE ).getConfiguration() ) ) {
+			//see lockAndGet
+			log.versionCheckNotAtomic( ENTITY_STORE );
+		}
 	}
 
 	/**
@@ -85,8 +153,7 @@ public class InfinispanDialect implements GridDialect {
 			return new InfinispanPessimisticWriteLockingStrategy( lockable, lockMode );
 		}
 		else if ( lockMode==LockMode.PESSIMISTIC_READ ) {
-			//TODO find a more efficient pessimistic read
-			return new InfinispanPessimisticWriteLockingStrategy( lockable, lockMode );
+			return new InfinispanPessimisticReadLockingStrategy( lockable, lockMode );
 		}
 		else if ( lockMode==LockMode.OPTIMISTIC ) {
 			return new OptimisticLockingStrategy( lockable, lockMode );
@@ -99,34 +166,325 @@ public class InfinispanDialect implements GridDialect {
 
 	@Override
 	public Tuple getTuple(EntityKey key) {
+		if ( tupleCodec != null ) {
+			Cache<EntityKey, byte[]> cache = provider.getCache(ENTITY_STORE);
+			return decodeTuple( key.getTable(), cache.get( key ) );
+		}
 		Cache<EntityKey, Map<String, Object>> cache = provider.getCache(ENTITY_STORE);
 		FineGrainedAtomicMap<String,Object> atomicMap = AtomicMapLookup.getFineGrainedAtomicMap( cache, key, false );
 		if (atomicMap == null) {
 			return null;
 		}
 		else {
-			return new Tuple( new InfinispanTupleSnapshot( atomicMap ) );
+			return new Tuple( new InfinispanTupleSnapshot( atomicMap, embeddedAssociationThreshold > 0 ) );
+		}
+	}
+
+	@Override
+	public Tuple[] getTuples(EntityKey[] keys) {
+		//Infinispan has no multi-key get: the remote keys are all requested at once, see getTupleAsync,
+		//so that the batch costs roughly one round trip instead of one per key
+		final List<Future<Tuple>> reads = new ArrayList<Future<Tuple>>( keys.length );
+		for ( EntityKey key : keys ) {
+			reads.add( getTupleAsync( key ) );
+		}
+		final Tuple[] tuples = new Tuple[keys.length];
+		for ( int index = 0 ; index < keys.length ; index++ ) {
+			tuples[index] = FutureHelper.get( reads.get( index ), keys[index] );
+		}
+		return tuples;
+	}
+
+	@Override
+	public Future<Tuple> getTupleAsync(EntityKey key) {
+		final Cache<EntityKey, Map<String, Object>> cache = provider.getCache(ENTITY_STORE);
+		if ( isLocal( cache, key ) || isInTransactionContext( cache, key ) ) {
+			return new CompletedFuture<Tuple>( getTuple( key ) );
+		}
+		if ( tupleCodec != null ) {
+			final Cache<EntityKey, byte[]> encodedCache = provider.getCache(ENTITY_STORE);
+			return FutureHelper.convert( getDetachedAsync( encodedCache, key ), new TupleDecoder( key.getTable() ) );
+		}
+		return FutureHelper.convert( getDetachedAsync( cache, key ), TO_DETACHED_TUPLE );
+	}
+
+	private Tuple decodeTuple(String table, byte[] data) {
+		if ( data == null ) {
+			return null;
+		}
+		return new Tuple( new MapBasedTupleSnapshot( decodeColumns( table, data ) ) );
+	}
+
+	private Map<String, Object> decodeColumns(String table, byte[] data) {
+		final TupleSchemaRegistry schemas = provider.getTupleSchemaRegistry();
+		return tupleCodec.decode( schemas.getSchema( table ), schemas, data );
+	}
+
+	private class TupleDecoder implements FutureHelper.Converter<byte[], Tuple> {
+		private final String table;
+
+		TupleDecoder(String table) {
+			this.table = table;
+		}
+
+		@Override
+		public Tuple convert(byte[] data) {
+			return decodeTuple( table, data );
+		}
+	}
+
+	/**
+	 * Whether a key is stored on this node: local keys are read synchronously, a round trip
+	 * is not worth saving.
+	 */
+	protected boolean isLocal(Cache<?, ?> cache, Object key) {
+		final DistributionManager distributionManager = cache.getAdvancedCache().getDistributionManager();
+		return distributionManager == null || distributionManager.isLocal( key );
+	}
+
+	/**
+	 * Asynchronous reads are executed outside of the transaction context, see {@link #getDetachedAsync}:
+	 * the keys the current transaction has already read or written are read synchronously so that its
+	 * changes are seen.
+	 */
+	private boolean isInTransactionContext(Cache<?, ?> cache, Object key) {
+		final AdvancedCache<?, ?> advancedCache = cache.getAdvancedCache();
+		final TransactionManager transactionManager = advancedCache.getTransactionManager();
+		if ( transactionManager == null ) {
+			return false;
+		}
+		final Transaction transaction;
+		try {
+			transaction = transactionManager.getTransaction();
+		}
+		catch (SystemException e) {
+			throw new TransactionException( "Unable to check transaction status", e );
+		}
+		if ( transaction == null ) {
+			return false;
+		}
+		final LocalTransaction localTransaction = advancedCache.getComponentRegistry()
+				.getComponent( TransactionTable.class )
+				.getLocalTransaction( transaction );
+		return localTransaction != null && localTransaction.lookupEntry( key ) != null;
+	}
+
+	/**
+	 * Start reading a key outside of the current transaction, which is suspended while the read is issued.
+	 * The value read is not registered in the transaction: the detached tuples and associations built
+	 * from it are written back through their atomic map, looked up in the transaction at that time
+	 * (see {@link #getAtomicMap} and {@link #updateAssociation}).
+	 */
+	private <K, V> NotifyingFuture<V> getDetachedAsync(Cache<K, V> cache, K key) {
+		final AdvancedCache<K, V> advancedCache = cache.getAdvancedCache();
+		final TransactionManager transactionManager = advancedCache.getTransactionManager();
+		if ( transactionManager == null ) {
+			return advancedCache.getAsync( key );
+		}
+		final Transaction suspended;
+		try {
+			suspended = transactionManager.suspend();
+		}
+		catch (SystemException e) {
+			throw new TransactionException( "Unable to suspend the transaction", e );
+		}
+		try {
+			return advancedCache.getAsync( key );
+		}
+		finally {
+			if ( suspended != null ) {
+				try {
+					transactionManager.resume( suspended );
+				}
+				catch (Exception e) {
+					throw new TransactionException( "Unable to resume the transaction", e );
+				}
+			}
+		}
+	}
+
+	/**
+	 * The value read asynchronously is the raw atomic map, outside of the transaction context: copy it.
+	 * Updates of such tuples go through the atomic map again (see updateTuple).
+	 */
+	private static final FutureHelper.Converter<Map<String, Object>, Tuple> TO_DETACHED_TUPLE =
+			new FutureHelper.Converter<Map<String, Object>, Tuple>() {
+				@Override
+				public Tuple convert(Map<String, Object> value) {
+					return value == null ?
+							null :
+							new Tuple( new MapBasedTupleSnapshot( copyColumns( value ) ) );
+				}
+			};
+
+	/**
+	 * Copy the columns of an owner atomic map, leaving out the rows of its embedded associations
+	 */
+	private static Map<String, Object> copyColumns(Map<?, Object> atomicMap) {
+		final Map<String, Object> columns = new HashMap<String, Object>( atomicMap.size() );
+		for ( Map.Entry<?, Object> entry : atomicMap.entrySet() ) {
+			if ( InfinispanTupleSnapshot.isColumn( entry.getKey() ) ) {
+				columns.put( (String) entry.getKey(), entry.getValue() );
+			}
 		}
+		return columns;
 	}
 
+	private static final FutureHelper.Converter<Map<RowKey, Map<String, Object>>, Association> TO_DETACHED_ASSOCIATION =
+			new FutureHelper.Converter<Map<RowKey, Map<String, Object>>, Association>() {
+				@Override
+				public Association convert(Map<RowKey, Map<String, Object>> value) {
+					return value == null ?
+							null :
+							new Association( new MapBasedAssociationSnapshot( new HashMap<RowKey, Map<String, Object>>( value ) ) );
+				}
+			};
+
 	@Override
 	public Tuple createTuple(EntityKey key) {
 		//TODO we don't verify that it does not yet exist assuming that this ahs been done before by the calling code
 		//should we improve?
+		if ( tupleCodec != null ) {
+			//nothing is stored until updateTuple
+			return new Tuple( EmptyTupleSnapshot.SINGLETON );
+		}
 		Cache<EntityKey, Map<String, Object>> cache = provider.getCache(ENTITY_STORE);
 		FineGrainedAtomicMap<String,Object> atomicMap =  AtomicMapLookup.getFineGrainedAtomicMap( cache, key, true );
-		return new Tuple( new InfinispanTupleSnapshot( atomicMap ) );
+		return new Tuple( new InfinispanTupleSnapshot( atomicMap, embeddedAssociationThreshold > 0 ) );
+	}
+
+	@Override
+	public Tuple createTupleIfAbsent(EntityKey key) {
+		if ( tupleCodec != null ) {
+			final Cache<EntityKey, byte[]> cache = provider.getCache( ENTITY_STORE );
+			final byte[] noColumns = tupleCodec.encode(
+					provider.getTupleSchemaRegistry().getSchema( key.getTable() ),
+					Collections.<String, Object>emptyMap()
+			);
+			return cache.putIfAbsent( key, noColumns ) == null ? new Tuple( EmptyTupleSnapshot.SINGLETON ) : null;
+		}
+		//same as AtomicMapLookup but without reading the key first
+		final Cache<EntityKey, Object> cache = provider.getCache( ENTITY_STORE );
+		if ( cache.putIfAbsent( key, new AtomicHashMap<String, Object>() ) != null ) {
+			return null;
+		}
+		//the atomic map is now in the transaction context
+		FineGrainedAtomicMap<String,Object> atomicMap = AtomicMapLookup.getFineGrainedAtomicMap( cache, key, true );
+		return new Tuple( new InfinispanTupleSnapshot( atomicMap, embeddedAssociationThreshold > 0 ) );
 	}
 
 	@Override
 	public void updateTuple(Tuple tuple, EntityKey key) {
-		Cache<EntityKey, Map<String, Object>> cache = provider.getCache(ENTITY_STORE);
-		Map<String,Object> atomicMap = ( (InfinispanTupleSnapshot) tuple.getSnapshot() ).getAtomicMap();
+		if ( tupleCodec != null ) {
+			updateEncodedTuple( tuple, key );
+			return;
+		}
+		applyTupleOpsOnMap( tuple, getAtomicMap( tuple, key, true ) );
+	}
+
+	@Override
+	public boolean updateTupleIfVersion(Tuple tuple, EntityKey key, String versionColumn, Object expectedVersion) {
+		if ( tupleCodec != null ) {
+			return updateEncodedTupleIfVersion( tuple, key, versionColumn, expectedVersion );
+		}
+		final Cache<EntityKey, Object> cache = provider.getCache( ENTITY_STORE );
+		if ( lockAndGet( cache, key ) == null ) {
+			return false;
+		}
+		final Map<String,Object> atomicMap = getAtomicMap( tuple, key, false );
+		if ( atomicMap == null || !EqualsHelper.equals( expectedVersion, atomicMap.get( versionColumn ) ) ) {
+			return false;
+		}
 		applyTupleOpsOnMap( tuple, atomicMap );
+		return true;
+	}
+
+	/**
+	 * Lock the entry of a tuple before comparing its version: a concurrent transaction
+	 * cannot change the tuple between the comparison and the update.
+	 * The lock is only acquired right away when the entity cache uses pessimistic locking.
+	 * Under optimistic locking it is acquired when the transaction is prepared: the write skew check,
+	 * when enabled, then fails the transaction if the entry has changed since it was read, otherwise
+	 * a concurrent update committed in between is overwritten.
+	 */
+	private <V> V lockAndGet(Cache<EntityKey, V> cache, EntityKey key) {
+		return cache.getAdvancedCache().withFlags( Flag.FORCE_WRITE_LOCK ).get( key );
+	}
+
+	private static boolean isVersionCheckAtomic(Configuration configuration) {
+		return configuration.getTransactionLockingMode() == LockingMode.PESSIMISTIC
+				|| ( configuration.isWriteSkewCheck() && configuration.getIsolationLevel() == IsolationLevel.REPEATABLE_READ );
+	}
+
+	private Map<String, Object> getAtomicMap(Tuple tuple, EntityKey key, boolean create) {
+		if ( tuple.getSnapshot() instanceof InfinispanTupleSnapshot ) {
+			return ( (InfinispanTupleSnapshot) tuple.getSnapshot() ).getAtomicMap();
+		}
+		else {
+			//the tuple has been read outside of the atomic map (see getTupleAsync)
+			Cache<EntityKey, Map<String, Object>> cache = provider.getCache(ENTITY_STORE);
+			return AtomicMapLookup.getFineGrainedAtomicMap( cache, key, create );
+		}
+	}
+
+	/**
+	 * The encoded tuple is replaced as a whole: concurrent changes of different columns
+	 * of the same tuple are not merged as they are with atomic maps.
+	 */
+	private void updateEncodedTuple(Tuple tuple, EntityKey key) {
+		final Map<String, Object> columns;
+		if ( tuple.getSnapshot() instanceof MapBasedTupleSnapshot ) {
+			columns = new HashMap<String, Object>( ( (MapBasedTupleSnapshot) tuple.getSnapshot() ).getMap() );
+		}
+		else {
+			columns = new HashMap<String, Object>();
+		}
+		applyTupleOpsOnMap( tuple, columns );
+		Cache<EntityKey, byte[]> cache = provider.getCache(ENTITY_STORE);
+		cache.put( key, tupleCodec.encode( provider.getTupleSchemaRegistry().getSchema( key.getTable() ), columns ) );
+	}
+
+	/**
+	 * The stored tuple is locked while its version is checked and replaced.
+	 */
+	private boolean updateEncodedTupleIfVersion(Tuple tuple, EntityKey key, String versionColumn, Object expectedVersion) {
+		final Cache<EntityKey, byte[]> cache = provider.getCache(ENTITY_STORE);
+		final byte[] stored = lockAndGet( cache, key );
+		if ( stored == null ) {
+			return false;
+		}
+		final Map<String, Object> columns = new HashMap<String, Object>( decodeColumns( key.getTable(), stored ) );
+		if ( !EqualsHelper.equals( expectedVersion, columns.get( versionColumn ) ) ) {
+			return false;
+		}
+		applyTupleOpsOnMap( tuple, columns );
+		cache.put( key, tupleCodec.encode( provider.getTupleSchemaRegistry().getSchema( key.getTable() ), columns ) );
+		return true;
 	}
 
 	private void applyTupleOpsOnMap(Tuple tuple, Map<String, Object> map) {
-		for( TupleOperation action : tuple.getOperations() ) {
+		if ( tuple instanceof IndexedTuple ) {
+			applyIndexedTupleOpsOnMap( (IndexedTuple) tuple, map );
+			return;
+		}
+		applyTupleOpsOnMap( tuple.getOperations(), map );
+	}
+
+	private void applyIndexedTupleOpsOnMap(IndexedTuple tuple, Map<String, Object> map) {
+		final TupleSchema schema = tuple.getSchema();
+		for ( int index = tuple.nextChangedColumn( 0 ) ; index != -1 ; index = tuple.nextChangedColumn( index + 1 ) ) {
+			if ( tuple.getOperationType( index ) == TupleOperationType.REMOVE ) {
+				map.remove( schema.getColumnName( index ) );
+			}
+			else {
+				map.put( schema.getColumnName( index ), tuple.getValue( index ) );
+			}
+		}
+		applyTupleOpsOnMap( tuple.getUnindexedOperations(), map );
+	}
+
+	private void applyTupleOpsOnMap(Set<TupleOperation> operations, Map<String, Object> map) {
+		for( TupleOperation action : operations ) {
 			switch ( action.getType() ) {
 				case PUT_NULL:
 				case PUT:
@@ -141,21 +499,126 @@ public class InfinispanDialect implements GridDialect {
 
 	@Override
 	public void removeTuple(EntityKey key) {
+		if ( tupleCodec != null ) {
+			provider.getCache(ENTITY_STORE).remove( key );
+			return;
+		}
 		Cache<EntityKey, Map<String, Object>> cache = provider.getCache(ENTITY_STORE);
 		AtomicMapLookup.removeAtomicMap( cache, key );
 	}
 
+	/**
+	 * Within a transaction, a write only registers the change in the transaction context,
+	 * the datastore is accessed when the transaction is prepared: the write is applied in the
+	 * calling thread, which owns the transaction, and costs no round trip.
+	 */
+	@Override
+	public Future<Void> updateTupleAsync(Tuple tuple, EntityKey key) {
+		updateTuple( tuple, key );
+		return CompletedFuture.done();
+	}
+
+	@Override
+	public Future<Void> removeTupleAsync(EntityKey key) {
+		removeTuple( key );
+		return CompletedFuture.done();
+	}
+
+	/**
+	 * Visit the in-memory entries, then the entries of the cache store not in memory, such as the
+	 * passivated ones. Only the cache modes holding every entry on each node are supported:
+	 * in distributed or invalidation mode, the local node does not hold the whole table.
+	 */
+	@Override
+	public void forEachTuple(String table, TupleConsumer consumer) {
+		final AdvancedCache<EntityKey, Object> cache = provider.getCache(ENTITY_STORE).getAdvancedCache();
+		final Configuration.CacheMode cacheMode = cache.getConfiguration().getCacheMode();
+		if ( cacheMode != Configuration.CacheMode.LOCAL && !cacheMode.isReplicated() ) {
+			throw log.tupleScanNotSupported( cache.getName(), cacheMode.name() );
+		}
+		final DataContainer dataContainer = cache.getDataContainer();
+		for ( InternalCacheEntry entry : dataContainer ) {
+			if ( !entry.isExpired() ) {
+				consumeTuple( table, entry.getKey(), entry.getValue(), consumer );
+			}
+		}
+		final CacheLoaderManager loaderManager = cache.getComponentRegistry().getComponent( CacheLoaderManager.class );
+		if ( loaderManager == null || !loaderManager.isEnabled() ) {
+			return;
+		}
+		final CacheLoader loader = loaderManager.getCacheLoader();
+		try {
+			for ( Object key : loader.loadAllKeys( null ) ) {
+				if ( isTupleOf( table, key ) && !dataContainer.containsKey( key ) ) {
+					final InternalCacheEntry entry = loader.load( key );
+					if ( entry != null ) {
+						consumeTuple( table, key, entry.getValue(), consumer );
+					}
+				}
+			}
+		}
+		catch (CacheLoaderException e) {
+			throw log.unableToScanCacheStore( cache.getName(), e );
+		}
+	}
+
+	private static boolean isTupleOf(String table, Object key) {
+		return key instanceof EntityKey && table.equals( ( (EntityKey) key ).getTable() );
+	}
+
+	private void consumeTuple(String table, Object key, Object value, TupleConsumer consumer) {
+		if ( !isTupleOf( table, key ) ) {
+			return;
+		}
+		if ( value instanceof byte[] ) {
+			consumer.consume( (EntityKey) key, decodeTuple( table, (byte[]) value ) );
+		}
+		else if ( value != null ) {
+			@SuppressWarnings( "unchecked" )
+			final Map<String, Object> columns = (Map<String, Object>) value;
+			consumer.consume( (EntityKey) key, new Tuple( new MapBasedTupleSnapshot( copyColumns( columns ) ) ) );
+		}
+	}
+
 	@Override
 	public Association getAssociation(AssociationKey key) {
+		if ( isEmbeddable( key ) ) {
+			final Map<String, Object> owner = getOwnerAtomicMap( key, false );
+			final String column = getEmbeddedColumn( key );
+			if ( owner != null && owner.containsKey( column ) ) {
+				return new Association( new EmbeddedAssociationSnapshot( getEmbeddedRows( owner, column ) ) );
+			}
+		}
+		if ( associationBuckets > 0 ) {
+			BucketedAssociationSnapshot snapshot = getBucketedSnapshot( key, false );
+			return snapshot == null ? null : new Association( snapshot );
+		}
 		Cache<AssociationKey, Map<RowKey, Map<String, Object>>> cache = provider.getCache(ASSOCIATION_STORE);
 		Map<RowKey, Map<String, Object>> atomicMap = AtomicMapLookup.getFineGrainedAtomicMap( cache, key, false );
 		return atomicMap == null ? null : new Association( new InfinispanAssociationSnapshot( atomicMap ) );
 	}
 
+	@Override
+	public Future<Association> getAssociationAsync(AssociationKey key) {
+		final Cache<AssociationKey, Map<RowKey, Map<String, Object>>> cache = provider.getCache(ASSOCIATION_STORE);
+		//the header of a bucketed association is small, buckets are read when the rows are needed
+		if ( associationBuckets > 0 || isEmbeddable( key ) || isLocal( cache, key ) || isInTransactionContext( cache, key ) ) {
+			return new CompletedFuture<Association>( getAssociation( key ) );
+		}
+		return FutureHelper.convert( getDetachedAsync( cache, key ), TO_DETACHED_ASSOCIATION );
+	}
+
 	@Override
 	public Association createAssociation(AssociationKey key) {
 		//TODO we don't verify that it does not yet exist assuming that this ahs been done before by the calling code
 		//should we improve?
+		if ( isEmbeddable( key ) ) {
+			//written within the owner tuple by updateAssociation
+			return new Association( new EmbeddedAssociationSnapshot( Collections.<RowKey, Map<String, Object>>emptyMap() ) );
+		}
+		if ( associationBuckets > 0 ) {
+			return new Association( getBucketedSnapshot( key, true ) );
+		}
 		Cache<AssociationKey, Map<RowKey, Map<String, Object>>> cache = provider.getCache(ASSOCIATION_STORE);
 		Map<RowKey, Map<String, Object>> atomicMap =  AtomicMapLookup.getFineGrainedAtomicMap( cache, key, true );
 		return new Association( new InfinispanAssociationSnapshot( atomicMap ) );
@@ -163,17 +626,169 @@ public class InfinispanDialect implements GridDialect {
 
 	@Override
 	public void updateAssociation(Association association, AssociationKey key) {
-		Map<RowKey, Map<String, Object>> atomicMap = ( (InfinispanAssociationSnapshot) association.getSnapshot() ).getAtomicMap();
+		if ( isEmbeddable( key ) && ( association.getSnapshot() instanceof EmbeddedAssociationSnapshot
+				|| association.getSnapshot() == EmptyAssociationSnapshot.SINGLETON ) ) {
+			if ( updateEmbeddedAssociation( association, key ) ) {
+				return;
+			}
+		}
+		if ( associationBuckets > 0 ) {
+			updateBucketedAssociation( association, key );
+			return;
+		}
+		Map<RowKey, Map<String, Object>> atomicMap;
+		if ( association.getSnapshot() instanceof InfinispanAssociationSnapshot ) {
+			atomicMap = ( (InfinispanAssociationSnapshot) association.getSnapshot() ).getAtomicMap();
+		}
+		else {
+			Cache<AssociationKey, Map<RowKey, Map<String, Object>>> cache = provider.getCache(ASSOCIATION_STORE);
+			atomicMap = AtomicMapLookup.getFineGrainedAtomicMap( cache, key, true );
+		}
+		applyAssociationOpsOnMap( association, atomicMap );
+	}
+
+	private void applyAssociationOpsOnMap(Association association, Map<RowKey, Map<String, Object>> map) {
 		for( AssociationOperation action : association.getOperations() ) {
 			switch ( action.getType() ) {
 				case CLEAR:
-					atomicMap.clear();
+					map.clear();
+					break;
 				case PUT_NULL:
 				case PUT:
-					atomicMap.put( action.getKey(), tupleToMap( action.getValue() ) );
+					map.put( action.getKey(), tupleToMap( action.getValue() ) );
 					break;
 				case REMOVE:
-					atomicMap.remove( action.getKey() );
+					map.remove( action.getKey() );
+					break;
+			}
+		}
+	}
+
+	private boolean isEmbeddable(AssociationKey key) {
+		return embeddedAssociationThreshold > 0 && key.getOwnerEntityKey() != null;
+	}
+
+	private Map<String, Object> getOwnerAtomicMap(AssociationKey key, boolean create) {
+		final Cache<EntityKey, Map<String, Object>> cache = provider.getCache( ENTITY_STORE );
+		return AtomicMapLookup.getFineGrainedAtomicMap( cache, key.getOwnerEntityKey(), create );
+	}
+
+	private static String getEmbeddedColumn(AssociationKey key) {
+		final StringBuilder column = new StringBuilder( EmbeddedAssociationSnapshot.COLUMN_PREFIX ).append( key.getTable() );
+		for ( String keyColumn : key.getColumns() ) {
+			column.append( ':' ).append( keyColumn );
+		}
+		return column.toString();
+	}
+
+	/**
+	 * Read the rows of an embedded association from the entries of the owner atomic map
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<RowKey, Map<String, Object>> getEmbeddedRows(Map<String, Object> owner, String column) {
+		final Map<RowKey, Map<String, Object>> rows = new HashMap<RowKey, Map<String, Object>>();
+		for ( Map.Entry<?, Object> entry : ( (Map<?, Object>) owner ).entrySet() ) {
+			if ( entry.getKey() instanceof EmbeddedRowKey ) {
+				final EmbeddedRowKey rowKey = (EmbeddedRowKey) entry.getKey();
+				if ( column.equals( rowKey.getColumn() ) ) {
+					rows.put( rowKey.getRowKey(), (Map<String, Object>) entry.getValue() );
+				}
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Write the changed rows of the association within the owner tuple, one entry of its atomic map
+	 * per row, so that concurrent changes of different rows are merged by the fine-grained atomic map.
+	 * Once it holds more rows than the threshold, the association moves to the association cache.
+	 *
+	 * @return false if the owner tuple does not exist and the association has not been written
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean updateEmbeddedAssociation(Association association, AssociationKey key) {
+		final Map<String, Object> owner = getOwnerAtomicMap( key, false );
+		if ( owner == null ) {
+			return false;
+		}
+		final Map<Object, Object> entries = (Map<Object, Object>) (Map<?, Object>) owner;
+		final String column = getEmbeddedColumn( key );
+		final Map<RowKey, Map<String, Object>> storedRows = getEmbeddedRows( owner, column );
+		final Map<RowKey, Map<String, Object>> rows = new HashMap<RowKey, Map<String, Object>>( storedRows );
+		applyAssociationOpsOnMap( association, rows );
+		if ( rows.size() <= embeddedAssociationThreshold ) {
+			if ( !owner.containsKey( column ) ) {
+				owner.put( column, Boolean.TRUE );
+			}
+			for ( RowKey rowKey : storedRows.keySet() ) {
+				if ( !rows.containsKey( rowKey ) ) {
+					entries.remove( new EmbeddedRowKey( column, rowKey ) );
+				}
+			}
+			for ( AssociationOperation action : association.getOperations() ) {
+				if ( rows.containsKey( action.getKey() ) ) {
+					entries.put( new EmbeddedRowKey( column, action.getKey() ), rows.get( action.getKey() ) );
+				}
+			}
+		}
+		else {
+			removeEmbeddedAssociation( owner, column, storedRows.keySet() );
+			Cache<AssociationKey, Map<RowKey, Map<String, Object>>> cache = provider.getCache(ASSOCIATION_STORE);
+			AtomicMapLookup.getFineGrainedAtomicMap( cache, key, true ).putAll( rows );
+		}
+		return true;
+	}
+
+	private static void removeEmbeddedAssociation(Map<String, Object> owner, String column, Set<RowKey> rowKeys) {
+		owner.remove( column );
+		for ( RowKey rowKey : rowKeys ) {
+			( (Map<?, Object>) owner ).remove( new EmbeddedRowKey( column, rowKey ) );
+		}
+	}
+
+	private BucketedAssociationSnapshot getBucketedSnapshot(AssociationKey key, boolean create) {
+		Cache<Object, ?> cache = provider.getCache( ASSOCIATION_STORE );
+		Map<Integer, Integer> header = AtomicMapLookup.getFineGrainedAtomicMap( cache, key, create );
+		if ( header == null ) {
+			return null;
+		}
+		if ( create && !header.containsKey( BucketedAssociationSnapshot.BUCKETS ) ) {
+			header.put( BucketedAssociationSnapshot.BUCKETS, associationBuckets );
+		}
+		return new BucketedAssociationSnapshot( cache, key, header );
+	}
+
+	/**
+	 * Only the buckets holding changed rows are written, the header only when a bucket is created,
+	 * so concurrent changes to the same association rarely touch the same entries.
+	 */
+	private void updateBucketedAssociation(Association association, AssociationKey key) {
+		BucketedAssociationSnapshot snapshot;
+		if ( association.getSnapshot() instanceof BucketedAssociationSnapshot ) {
+			snapshot = (BucketedAssociationSnapshot) association.getSnapshot();
+		}
+		else {
+			snapshot = getBucketedSnapshot( key, true );
+		}
+		for ( AssociationOperation action : association.getOperations() ) {
+			switch ( action.getType() ) {
+				case CLEAR:
+					for ( int bucket = 0; bucket < snapshot.getBucketNumber(); bucket++ ) {
+						snapshot.removeBucket( bucket );
+					}
+					break;
+				case PUT_NULL:
+				case PUT:
+					int bucket = snapshot.bucketOf( action.getKey() );
+					snapshot.getBucket( bucket, true ).put( action.getKey(), tupleToMap( action.getValue() ) );
+					snapshot.markBucketPresent( bucket );
+					break;
+				case REMOVE:
+					bucket = snapshot.bucketOf( action.getKey() );
+					Map<RowKey, Map<String, Object>> rows = snapshot.getBucket( bucket, false );
+					if ( rows.containsKey( action.getKey() ) ) {
+						rows.remove( action.getKey() );
+					}
 					break;
 			}
 		}
@@ -200,15 +815,73 @@ public class InfinispanDialect implements GridDialect {
 
 	@Override
 	public void removeAssociation(AssociationKey key) {
+		if ( isEmbeddable( key ) ) {
+			final Map<String, Object> owner = getOwnerAtomicMap( key, false );
+			if ( owner != null ) {
+				final String column = getEmbeddedColumn( key );
+				removeEmbeddedAssociation( owner, column, getEmbeddedRows( owner, column ).keySet() );
+			}
+		}
+		if ( associationBuckets > 0 ) {
+			BucketedAssociationSnapshot snapshot = getBucketedSnapshot( key, false );
+			if ( snapshot != null ) {
+				for ( int bucket = 0; bucket < snapshot.getBucketNumber(); bucket++ ) {
+					snapshot.removeBucket( bucket );
+				}
+			}
+		}
 		Cache<AssociationKey, Map<RowKey, Map<String, Object>>> cache = provider.getCache(ASSOCIATION_STORE);
 		AtomicMapLookup.removeAtomicMap( cache, key );
 	}
 
+	/**
+	 * Applied in the calling thread, see {@link #updateTupleAsync}
+	 */
+	@Override
+	public Future<Void> updateAssociationAsync(Association association, AssociationKey key) {
+		updateAssociation( association, key );
+		return CompletedFuture.done();
+	}
+
+	@Override
+	public Future<Void> removeAssociationAsync(AssociationKey key) {
+		removeAssociation( key );
+		return CompletedFuture.done();
+	}
+
 	@Override
 	public Tuple createTupleAssociation(AssociationKey associationKey, RowKey rowKey) {
 		return new Tuple( EmptyTupleSnapshot.SINGLETON );
 	}
 
+	@Override
+	public void executeBatch(OperationsQueue queue) {
+		//operations join the current transaction: Infinispan only sends them to the owners
+		//of the keys when the transaction is prepared, in one command per node
+		Operation operation;
+		while ( ( operation = queue.poll() ) != null ) {
+			if ( operation instanceof UpdateTupleOperation ) {
+				UpdateTupleOperation update = (UpdateTupleOperation) operation;
+				if ( !update.isConditional() ) {
+					updateTuple( update.getTuple(), update.getEntityKey() );
+				}
+				else if ( !updateTupleIfVersion( update.getTuple(), update.getEntityKey(), update.getVersionColumn(), update.getExpectedVersion() ) ) {
+					throw log.tupleVersionChanged( update.getEntityKey() );
+				}
+			}
+			else if ( operation instanceof RemoveTupleOperation ) {
+				removeTuple( ( (RemoveTupleOperation) operation ).getEntityKey() );
+			}
+			else if ( operation instanceof UpdateAssociationOperation ) {
+				UpdateAssociationOperation update = (UpdateAssociationOperation) operation;
+				updateAssociation( update.getAssociation(), update.getAssociationKey() );
+			}
+			else if ( operation instanceof RemoveAssociationOperation ) {
+				removeAssociation( ( (RemoveAssociationOperation) operation ).getAssociationKey() );
+			}
+		}
+	}
+
 	@Override
 	public void nextValue(RowKey key, IntegralDataTypeHolder value, int increment, int initialValue) {
 		final AdvancedCache<RowKey, Object> identifierCache = provider.getCache(IDENTIFIER_STORE).getAdvancedCache();
@@ -241,7 +914,16 @@ public class InfinispanDialect implements GridDialect {
 			//TODO should we use GridTypes here?
 			final Object newValueFromDb = updateValue.makeValue().longValue();
 			done = identifierCache.replace( key, valueFromDb, newValueFromDb );
+			if ( !done && statistics != null ) {
+				statistics.recordIdentifierUpdateRetry();
+			}
 		}
 		while ( !done );
 	}
+
+	@Override
+	public void setGridStatistics(GridStatisticsImpl statistics) {
+		//records the retries of nextValue
+		this.statistics = statistics;
+	}
 }
@@ -0,0 +1,148 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.dialect.infinispan;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.hibernate.JDBCException;
+import org.hibernate.LockMode;
+import org.hibernate.OptimisticLockException;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.dialect.lock.LockingStrategy;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.ogm.persister.OgmEntityPersister;
+import org.hibernate.persister.entity.Lockable;
+import org.hibernate.pretty.MessageHelper;
+
+/**
+ * Shared read lock validated when the transaction completes.
+ *
+ * Locking an entity does not touch the grid: the entity is recorded and, before the
+ * transaction completes, the versions of all the entities read-locked by the session
+ * are read back in one batch and compared to the versions of the persistence context.
+ * A version which has changed behind the session raises an
+ * {@link OptimisticLockException}, so readers never block each other nor the writers.
+ * When the cache uses pessimistic transactions, the keys are locked in a single call
+ * before being validated, so that no writer can commit in between.
+ *
+ * Entities without a version are locked for write as there is nothing to validate.
+ *
+ * @author agent <agent@local>
+ */
+public class InfinispanPessimisticReadLockingStrategy implements LockingStrategy {
+	private final Lockable lockable;
+	private final InfinispanPessimisticWriteLockingStrategy writeLockingStrategy;
+	private final Map<SessionImplementor, ReadLockValidation> validations = new WeakHashMap<SessionImplementor, ReadLockValidation>();
+
+	public InfinispanPessimisticReadLockingStrategy(Lockable lockable, LockMode lockMode) {
+		this.lockable = lockable;
+		this.writeLockingStrategy = new InfinispanPessimisticWriteLockingStrategy( lockable, lockMode );
+	}
+
+	@Override
+	public void lock(Serializable id, Object version, Object object, int timeout, SessionImplementor session)
+			throws StaleObjectStateException, JDBCException {
+		if ( !lockable.isVersioned() || !( lockable instanceof OgmEntityPersister ) ) {
+			writeLockingStrategy.lock( id, version, object, timeout, session );
+			return;
+		}
+		getValidation( session ).add( object );
+	}
+
+	private ReadLockValidation getValidation(SessionImplementor session) {
+		synchronized ( validations ) {
+			ReadLockValidation validation = validations.get( session );
+			if ( validation == null ) {
+				validation = new ReadLockValidation();
+				validations.put( session, validation );
+				final ActionQueue actionQueue = ( (EventSource) session ).getActionQueue();
+				actionQueue.registerProcess( (BeforeTransactionCompletionProcess) validation );
+				actionQueue.registerProcess( (AfterTransactionCompletionProcess) validation );
+			}
+			return validation;
+		}
+	}
+
+	private class ReadLockValidation implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+		private final List<Object> entities = new ArrayList<Object>();
+
+		void add(Object entity) {
+			entities.add( entity );
+		}
+
+		/**
+		 * Like {@link org.hibernate.action.internal.EntityVerifyVersionProcess}, the grid version is
+		 * compared to the version of the entity in the persistence context, so that the entity
+		 * can be updated by the session after being locked.
+		 */
+		@Override
+		public void doBeforeTransactionCompletion(SessionImplementor session) {
+			final List<EntityEntry> entries = new ArrayList<EntityEntry>( entities.size() );
+			final List<Object> lockedEntities = new ArrayList<Object>( entities.size() );
+			for ( Object entity : entities ) {
+				final EntityEntry entry = session.getPersistenceContext().getEntry( entity );
+				//entities evicted or deleted by the session have nothing left to validate
+				if ( entry != null && entry.getStatus() != Status.DELETED && entry.getStatus() != Status.GONE ) {
+					entries.add( entry );
+					lockedEntities.add( entity );
+				}
+			}
+			if ( entries.isEmpty() ) {
+				return;
+			}
+			final Serializable[] lockedIds = new Serializable[entries.size()];
+			for ( int index = 0 ; index < lockedIds.length ; index++ ) {
+				lockedIds[index] = entries.get( index ).getId();
+			}
+			if ( writeLockingStrategy.isExplicitLockingSupported( session ) ) {
+				writeLockingStrategy.lock( lockedIds, session );
+			}
+			final Object[] currentVersions = ( (OgmEntityPersister) lockable ).getCurrentVersions( lockedIds, session );
+			for ( int index = 0 ; index < lockedIds.length ; index++ ) {
+				if ( !lockable.getVersionType().isEqual( entries.get( index ).getVersion(), currentVersions[index] ) ) {
+					throw new OptimisticLockException(
+							"Newer version [" + currentVersions[index] + "] of entity ["
+									+ MessageHelper.infoString( lockable.getEntityName(), lockedIds[index] )
+									+ "] found in the datastore",
+							lockedEntities.get( index )
+					);
+				}
+			}
+		}
+
+		@Override
+		public void doAfterTransactionCompletion(boolean success, SessionImplementor session) {
+			synchronized ( validations ) {
+				validations.remove( session );
+			}
+		}
+	}
+}
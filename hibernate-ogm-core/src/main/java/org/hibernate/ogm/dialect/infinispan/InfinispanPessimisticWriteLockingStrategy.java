@@ -21,18 +21,22 @@
 package org.hibernate.ogm.dialect.infinispan;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
 import org.hibernate.ogm.datastore.spi.DatastoreProvider;
 import org.hibernate.ogm.util.impl.Log;
 import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.infinispan.AdvancedCache;
+import org.infinispan.transaction.LockingMode;
 
 import org.hibernate.JDBCException;
 import org.hibernate.LockMode;
 import org.hibernate.StaleObjectStateException;
 import org.hibernate.dialect.lock.LockingStrategy;
 import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.ogm.grid.EntityKey;
 import org.hibernate.ogm.persister.EntityKeyBuilder;
 import org.hibernate.persister.entity.Lockable;
 
@@ -64,6 +68,34 @@ public class InfinispanPessimisticWriteLockingStrategy implements LockingStrateg
 		//FIXME check the version number as well and raise an optimistic lock exception if there is an issue JPA 2 spec: 3.4.4.2
 	}
 
+	/**
+	 * Lock several entities in a single call: Infinispan acquires the locks of all the keys
+	 * with one command instead of one per entity.
+	 */
+	public void lock(Serializable[] ids, SessionImplementor session) {
+		if ( ids.length == 0 ) {
+			return;
+		}
+		AdvancedCache advCache = getProvider(session).getCache(ENTITY_STORE).getAdvancedCache();
+		List<EntityKey> keys = new ArrayList<EntityKey>( ids.length );
+		for ( Serializable id : ids ) {
+			keys.add( new EntityKeyBuilder()
+					.tableName( lockable.getRootTableName() )
+					.id( id )
+					.getKey()
+			);
+		}
+		advCache.lock( keys );
+	}
+
+	/**
+	 * Whether the entity cache accepts explicit locks, which requires pessimistic transactions
+	 */
+	boolean isExplicitLockingSupported(SessionImplementor session) {
+		return getProvider(session).getCache(ENTITY_STORE).getConfiguration()
+				.getTransactionLockingMode() == LockingMode.PESSIMISTIC;
+	}
+
 	private InfinispanDatastoreProvider getProvider(SessionImplementor session) {
 		if ( provider == null ) {
 			DatastoreProvider service = session.getFactory().getServiceRegistry().getService(DatastoreProvider.class);
@@ -20,6 +20,7 @@
  */
 package org.hibernate.ogm.dialect.infinispan;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import org.hibernate.ogm.datastore.spi.TupleSnapshot;
@@ -30,10 +31,20 @@ import org.infinispan.atomic.FineGrainedAtomicMap;
  */
 public class InfinispanTupleSnapshot implements TupleSnapshot {
 	private final FineGrainedAtomicMap<String, Object> atomicMap;
+	private final boolean embeddedAssociations;
 
 	public InfinispanTupleSnapshot(FineGrainedAtomicMap<String,Object> atomicMap) {
+		this( atomicMap, false );
+	}
+
+	/**
+	 * @param embeddedAssociations whether the map may hold the rows of embedded associations
+	 */
+	public InfinispanTupleSnapshot(FineGrainedAtomicMap<String,Object> atomicMap, boolean embeddedAssociations) {
 		this.atomicMap = atomicMap;
+		this.embeddedAssociations = embeddedAssociations;
 	}
+
 	@Override
 	public Object get(String column) {
 		return atomicMap.get( column );
@@ -44,12 +55,32 @@ public class InfinispanTupleSnapshot implements TupleSnapshot {
 		return atomicMap.isEmpty();
 	}
 
+	/**
+	 * The rows of the embedded associations (see {@link EmbeddedRowKey}) and the columns
+	 * marking them are not columns of the tuple.
+	 */
 	@Override
 	public Set<String> getColumnNames() {
-		return atomicMap.keySet();
+		if ( !embeddedAssociations ) {
+			return atomicMap.keySet();
+		}
+		final Set<String> columnNames = new HashSet<String>();
+		for ( Object key : atomicMap.keySet() ) {
+			if ( isColumn( key ) ) {
+				columnNames.add( (String) key );
+			}
+		}
+		return columnNames;
 	}
 
 	public FineGrainedAtomicMap<String, Object> getAtomicMap() {
 		return atomicMap;
 	}
+
+	/**
+	 * Whether the given key of a tuple map is a column, as opposed to an entry of an embedded association
+	 */
+	static boolean isColumn(Object key) {
+		return key instanceof String && !( (String) key ).startsWith( EmbeddedAssociationSnapshot.COLUMN_PREFIX );
+	}
 }
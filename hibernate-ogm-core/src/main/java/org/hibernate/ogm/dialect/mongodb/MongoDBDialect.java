@@ -22,31 +22,96 @@ package org.hibernate.ogm.dialect.mongodb;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import org.hibernate.HibernateException;
 import org.hibernate.LockMode;
 import org.hibernate.dialect.lock.LockingStrategy;
 import org.hibernate.id.IntegralDataTypeHolder;
 import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.impl.MapBasedAssociationSnapshot;
 import org.hibernate.ogm.datastore.impl.MapBasedTupleSnapshot;
 import org.hibernate.ogm.datastore.mongodb.impl.MongoDBDatastoreProvider;
 import org.hibernate.ogm.datastore.spi.*;
-import org.hibernate.ogm.dialect.GridDialect;
-import org.hibernate.ogm.dialect.infinispan.InfinispanAssociationSnapshot;
+import org.hibernate.ogm.dialect.BatchableGridDialect;
+import org.hibernate.ogm.dialect.TupleConsumer;
+import org.hibernate.ogm.dialect.batch.Operation;
+import org.hibernate.ogm.dialect.batch.OperationsQueue;
+import org.hibernate.ogm.dialect.batch.RemoveAssociationOperation;
+import org.hibernate.ogm.dialect.batch.RemoveTupleOperation;
+import org.hibernate.ogm.dialect.batch.UpdateAssociationOperation;
+import org.hibernate.ogm.dialect.batch.UpdateTupleOperation;
 import org.hibernate.ogm.grid.AssociationKey;
 import org.hibernate.ogm.grid.EntityKey;
 import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.util.impl.Log;
+import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.hibernate.persister.entity.Lockable;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Dialect abstracting Hibernate OGM from the grid implementation
  *
  * @author Rikki Molecatert <pbdadmin@gmail.com>
  */
-public class MongoDBDialect implements GridDialect {
+public class MongoDBDialect implements BatchableGridDialect {
+    private static final Log log = LoggerFactory.make();
+
+    /**
+     * The number of documents fetched per round trip when iterating over a collection.
+     */
+    private static final int SCAN_BATCH_SIZE = 100;
+
+    /**
+     * The field of an association document holding the table of the association.
+     */
+    public static final String ASSOCIATION_TABLE_FIELD = "table";
+
+    /**
+     * The field of an association document holding the columns and values of the association key.
+     */
+    public static final String ASSOCIATION_KEY_FIELD = "key";
+
+    /**
+     * The field of an association document holding the array of rows.
+     */
+    public static final String ROWS_FIELD = "rows";
+
+    /**
+     * The field of an association document holding the names of the columns identifying a row.
+     */
+    public static final String ROW_KEY_COLUMNS_FIELD = "rowKeyColumns";
+
+    /**
+     * The field of a sequence document holding the next value of the sequence.
+     */
+    public static final String SEQUENCE_VALUE_FIELD = "next_val";
+
+    /**
+     * The fields read from a sequence document.
+     */
+    private static final DBObject SEQUENCE_FIELDS = new BasicDBObject(SEQUENCE_VALUE_FIELD, 1);
+
+    /**
+     * The fields read from an association document.
+     */
+    private static final DBObject ASSOCIATION_FIELDS = new BasicDBObject(ROWS_FIELD, 1).append(ROW_KEY_COLUMNS_FIELD, 1);
+
+    /**
+     * The snapshot of the Tuples whose document is inserted by the next write.
+     */
+    private static final TupleSnapshot NEW_DOCUMENT = new NewDocumentSnapshot();
+
     /**
      * The provider that gives access to a MongoDB database.
      */
@@ -57,7 +122,7 @@ public class MongoDBDialect implements GridDialect {
      *
      * @param provider The MongoDB provider.
      */
-    MongoDBDialect(MongoDBDatastoreProvider provider) {
+    public MongoDBDialect(MongoDBDatastoreProvider provider) {
         this.provider = provider;
     }
 
@@ -74,7 +139,7 @@ public class MongoDBDialect implements GridDialect {
      * @return The Tuple based off the key.
      */
     public Tuple getTuple(EntityKey key) {
-        DBCollection dbCollection = provider.getDatabase().getCollection(key.getTable());
+        DBCollection dbCollection = provider.getCollection(key.getTable());
         DBObject dbObject = dbCollection.findOne(key.getId());
         if (dbObject != null) {
             TupleSnapshot tupleSnapshot = new MapBasedTupleSnapshot(dbObject.toMap());
@@ -84,42 +149,190 @@ public class MongoDBDialect implements GridDialect {
     }
 
     /**
-     * Get the database object based on a key.
+     * Get the Tuples of several EntityKeys using a single $in query per collection.
      *
-     * @param key The database row and table to get from.
-     * @return The database object.
+     * @param keys The EntityKeys.
+     * @return The Tuples in the order of the keys, null for the missing documents.
      */
-    private DBObject getDBObject(EntityKey key) {
-        DBCollection dbCollection = provider.getDatabase().getCollection(key.getTable());
-        return dbCollection.findOne(key.getId());
+    public Tuple[] getTuples(EntityKey[] keys) {
+        Map<String, List<Object>> idsPerTable = new HashMap<String, List<Object>>();
+        for (EntityKey key : keys) {
+            List<Object> ids = idsPerTable.get(key.getTable());
+            if (ids == null) {
+                ids = new ArrayList<Object>();
+                idsPerTable.put(key.getTable(), ids);
+            }
+            ids.add(key.getId());
+        }
+        Map<String, Map<Object, DBObject>> documentsPerTable = new HashMap<String, Map<Object, DBObject>>();
+        for (Map.Entry<String, List<Object>> entry : idsPerTable.entrySet()) {
+            DBCollection dbCollection = provider.getCollection(entry.getKey());
+            DBObject query = new BasicDBObject("_id", new BasicDBObject("$in", entry.getValue()));
+            Map<Object, DBObject> documents = new HashMap<Object, DBObject>();
+            DBCursor cursor = dbCollection.find(query);
+            try {
+                while (cursor.hasNext()) {
+                    DBObject dbObject = cursor.next();
+                    documents.put(dbObject.get("_id"), dbObject);
+                }
+            } finally {
+                cursor.close();
+            }
+            documentsPerTable.put(entry.getKey(), documents);
+        }
+        Tuple[] tuples = new Tuple[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            DBObject dbObject = documentsPerTable.get(keys[i].getTable()).get(keys[i].getId());
+            if (dbObject != null) {
+                tuples[i] = new Tuple(new MapBasedTupleSnapshot(dbObject.toMap()));
+            }
+        }
+        return tuples;
     }
 
     /**
-     * Create a new collection and add a new document.
+     * Create an empty Tuple for a new document without accessing the server:
+     * the document is written by the upsert of {@link #updateTuple(Tuple, EntityKey)}.
      *
      * @param key The key that represents the document.
      * @return The Tuple that represents the new document.
      */
     public Tuple createTuple(EntityKey key) {
-        DBObject dbObject = new BasicDBObject();
-        if (key.getId() != null)
-            dbObject.put("id", key.getId());
-        provider.getDatabase().createCollection(key.getTable(), dbObject);
-        return getTuple(key);
+        return new Tuple(EmptyTupleSnapshot.SINGLETON);
     }
 
     /**
-     * Update a document with a new Tuple value.
+     * Create a Tuple for a new document without accessing the server:
+     * {@link #updateTuple(Tuple, EntityKey)} inserts the document with its content,
+     * relying on the unique index of _id to detect an existing one.
+     * Nothing is written if the flush fails before.
      *
-     * @param tuple The Tuple to update to.
+     * @param key The key that represents the document.
+     * @return The Tuple that represents the new document.
+     */
+    public Tuple createTupleIfAbsent(EntityKey key) {
+        return new Tuple(NEW_DOCUMENT);
+    }
+
+    /**
+     * Update the changed columns of a document with $set and $unset,
+     * the other fields of the document are not sent.
+     * The update of a tuple from {@link #createTuple(EntityKey)} is an upsert, so that the new document
+     * is created by the same round trip; a loaded document removed meanwhile is not recreated.
+     *
+     * @param tuple The Tuple holding the changes.
      * @param key   The key that represents the document to update to.
      */
     public void updateTuple(Tuple tuple, EntityKey key) {
-        BasicDBObject basicDBObject = new BasicDBObject();
-        for (String tKey : tuple.getColumnNames()) {
-            basicDBObject.put(tKey, tuple.get(tKey));
+        if (tuple.getSnapshot() == NEW_DOCUMENT) {
+            insertDocument(tuple, key);
+        } else {
+            updateDocument(tuple, key);
         }
-        provider.getDatabase().getCollection(key.getTable()).update(getDBObject(key), basicDBObject);
+    }
+
+    /**
+     * @param tuple The Tuple holding the changes.
+     * @param key   The key that represents the document to update to.
+     */
+    private void updateDocument(Tuple tuple, EntityKey key) {
+        DBObject update = getUpdate(tuple);
+        if (update != null) {
+            //only new tuples have an empty snapshot, loaded ones hold at least the _id
+            boolean upsert = tuple.getSnapshot().isEmpty();
+            provider.getCollection(key.getTable()).update(getIdQuery(key), update, upsert, false,
+                    provider.getWriteConcern(key.getTable()));
+        }
+    }
+
+    /**
+     * Insert the document of a Tuple created by {@link #createTupleIfAbsent(EntityKey)}.
+     *
+     * @param tuple The Tuple holding the columns of the document.
+     * @param key   The key of the document.
+     * @throws HibernateException if a document already exists for the key.
+     */
+    private void insertDocument(Tuple tuple, EntityKey key) {
+        DBObject document = getIdQuery(key);
+        for (TupleOperation operation : tuple.getOperations()) {
+            if (operation.getType() == TupleOperationType.PUT) {
+                document.put(operation.getColumn(), operation.getValue());
+            }
+        }
+        try {
+            provider.getCollection(key.getTable()).insert(document, getAcknowledgedWriteConcern(key.getTable()));
+        } catch (MongoException.DuplicateKey e) {
+            throw new HibernateException("trying to insert an already existing entity: " + key, e);
+        }
+    }
+
+    /**
+     * Update a document only if its version field holds the expected value.
+     * The version is part of the query of the update, so the check and the write are atomic.
+     *
+     * @param tuple The tuple holding the changes.
+     * @param key The key of the document.
+     * @param versionColumn The name of the version field.
+     * @param expectedVersion The value the version field is expected to have.
+     * @return false if no document matches the id and the expected version.
+     */
+    public boolean updateTupleIfVersion(Tuple tuple, EntityKey key, String versionColumn, Object expectedVersion) {
+        DBCollection collection = provider.getCollection(key.getTable());
+        DBObject query = getIdQuery(key);
+        query.put(versionColumn, expectedVersion);
+        DBObject update = getUpdate(tuple);
+        if (update == null) {
+            return collection.findOne(query, new BasicDBObject("_id", 1)) != null;
+        }
+        return collection.update(query, update, false, false, getAcknowledgedWriteConcern(key.getTable())).getN() == 1;
+    }
+
+    /**
+     * @param tuple The tuple holding the changes.
+     * @return The $set and $unset modifiers applying the changes, null if there is no change.
+     */
+    private DBObject getUpdate(Tuple tuple) {
+        BasicDBObject set = new BasicDBObject();
+        BasicDBObject unset = new BasicDBObject();
+        for (TupleOperation operation : tuple.getOperations()) {
+            switch (operation.getType()) {
+                case PUT:
+                    set.put(operation.getColumn(), operation.getValue());
+                    break;
+                case PUT_NULL:
+                case REMOVE:
+                    unset.put(operation.getColumn(), 1);
+                    break;
+            }
+        }
+        if (set.isEmpty() && unset.isEmpty()) {
+            return null;
+        }
+        BasicDBObject update = new BasicDBObject();
+        if (!set.isEmpty()) {
+            update.put("$set", set);
+        }
+        if (!unset.isEmpty()) {
+            update.put("$unset", unset);
+        }
+        return update;
+    }
+
+    /**
+     * @param key The key of the document.
+     * @return The query matching the document by its _id.
+     */
+    private DBObject getIdQuery(EntityKey key) {
+        return new BasicDBObject("_id", key.getId());
+    }
+
+    /**
+     * @param table The table written to.
+     * @return The write concern of the table if the server acknowledges the writes with it, SAFE otherwise.
+     */
+    private WriteConcern getAcknowledgedWriteConcern(String table) {
+        WriteConcern writeConcern = provider.getWriteConcern(table);
+        return writeConcern.callGetLastError() ? writeConcern : WriteConcern.SAFE;
     }
 
     /**
@@ -129,65 +342,292 @@ public class MongoDBDialect implements GridDialect {
      */
     public void removeTuple(EntityKey key) {
         if (key.getId() != null)
-            provider.getDatabase().getCollection(key.getTable()).remove(getDBObject(key));
+            provider.getCollection(key.getTable()).remove(getIdQuery(key), provider.getWriteConcern(key.getTable()));
         else
-            provider.getDatabase().getCollection(key.getTable()).drop();
+            provider.getCollection(key.getTable()).drop();
     }
 
+    /**
+     * Iterate over the documents of a collection with a server side cursor,
+     * fetching them from the server a batch at a time.
+     *
+     * @param table    The collection to iterate over.
+     * @param consumer The consumer of the documents.
+     */
+    public void forEachTuple(String table, TupleConsumer consumer) {
+        DBCursor cursor = provider.getCollection(table).find().batchSize(SCAN_BATCH_SIZE);
+        try {
+            while (cursor.hasNext()) {
+                DBObject dbObject = cursor.next();
+                EntityKey key = new EntityKey(table, (Serializable) dbObject.get("_id"));
+                consumer.consume(key, new Tuple(new MapBasedTupleSnapshot(dbObject.toMap())));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Get the rows of an association from its document, found through the index on the association key.
+     *
+     * @param key The key of the association.
+     * @return The association or null if it has not been stored.
+     */
     public Association getAssociation(AssociationKey key) {
-        return createAssociation(key);
+        DBObject document = provider.getAssociationCollection().findOne(getAssociationQuery(key), ASSOCIATION_FIELDS);
+        if (document == null) {
+            return null;
+        }
+        return new Association(new MapBasedAssociationSnapshot(getRows(key, document)));
     }
 
+    /**
+     * Create an empty association; its document is written by the first update.
+     *
+     * @param key The key of the association.
+     * @return The empty association.
+     */
     public Association createAssociation(AssociationKey key) {
-        Map<RowKey, Map<String, Object>> ret = new HashMap<RowKey, Map<String, Object>>();
-        DBCollection col = provider.getDatabase().getCollection(key.getTable());
-        // Will assume to use all columns from db.
-        for (DBObject object : col.find().toArray()) {
-            Map map = new HashMap<String, Object>();
-            for (String sKey : object.keySet()) {
-                map.put(sKey, object.get(sKey));
-            }
-            RowKey rowKey = new RowKey(key.getTable(), (String[]) object.keySet().toArray(), map.values().toArray());
-            ret.put(rowKey, map);
-        }
-        return new Association(new InfinispanAssociationSnapshot(ret));
+        return new Association(new MapBasedAssociationSnapshot(new HashMap<RowKey, Map<String, Object>>()));
     }
 
+    /**
+     * Apply the changes of an association to its document with a single update, creating the document if needed.
+     * Added rows are appended with $pushAll and removed rows are taken out with $pull, so that adding
+     * or removing a row does not send the other ones. As an array cannot be both pushed to and pulled
+     * from in one update, an association which is cleared, has rows replaced, or mixes additions and
+     * removals has its whole array of rows set instead.
+     *
+     * @param association The association holding the changes.
+     * @param key The key of the association.
+     */
     public void updateAssociation(Association association, AssociationKey key) {
-        Map<RowKey, Map<String, Object>> atomicMap = ((InfinispanAssociationSnapshot) association.getSnapshot()).getAtomicMap();
-        for (AssociationOperation action : association.getOperations()) {
-            switch (action.getType()) {
+        AssociationSnapshot snapshot = association.getSnapshot();
+        List<DBObject> pushedRows = new ArrayList<DBObject>();
+        List<RowKey> pulledRowKeys = new ArrayList<RowKey>();
+        String[] rowKeyColumns = null;
+        boolean cleared = false;
+        for (AssociationOperation operation : association.getOperations()) {
+            RowKey rowKey = operation.getKey();
+            switch (operation.getType()) {
                 case CLEAR:
-                    atomicMap.clear();
-                case PUT_NULL:
+                    cleared = true;
+                    break;
                 case PUT:
-                    atomicMap.put(action.getKey(), tupleToMap(action.getValue()));
+                    rowKeyColumns = rowKey.getColumns();
+                    if (snapshot.containsKey(rowKey)) {
+                        pulledRowKeys.add(rowKey);
+                    }
+                    pushedRows.add(new BasicDBObject(tupleToMap(operation.getValue())));
                     break;
+                case PUT_NULL:
                 case REMOVE:
-                    atomicMap.remove(action.getKey());
+                    //rows not in the snapshot have never been written
+                    if (snapshot.containsKey(rowKey)) {
+                        pulledRowKeys.add(rowKey);
+                    }
                     break;
             }
         }
-        // Save everything...
-        for (RowKey rowKey : atomicMap.keySet()) {
-            DBCollection collection = provider.getDatabase().getCollection(rowKey.getTable());
-            DBObject object = collection.findOne(atomicMap.get("_ID"));
-            object.putAll(atomicMap.get(rowKey));
-            collection.save(object);
+        DBObject pullCondition = pulledRowKeys.isEmpty() ? null : getPullCondition(pulledRowKeys);
+        DBObject update;
+        if (cleared || (!pulledRowKeys.isEmpty() && (!pushedRows.isEmpty() || pullCondition == null))) {
+            update = new BasicDBObject("$set", getAllRows(association));
+        } else if (!pushedRows.isEmpty()) {
+            update = new BasicDBObject("$pushAll", new BasicDBObject(ROWS_FIELD, pushedRows))
+                    .append("$set", new BasicDBObject(ROW_KEY_COLUMNS_FIELD, rowKeyColumns));
+        } else if (pullCondition != null) {
+            update = new BasicDBObject("$pull", new BasicDBObject(ROWS_FIELD, pullCondition));
+        } else {
+            return;
         }
+        //a pull only applies to an existing document
+        boolean upsert = update.containsField("$set");
+        provider.getAssociationCollection().update(getAssociationQuery(key), update, upsert, false,
+                provider.getWriteConcern(key.getTable()));
     }
 
+    /**
+     * @param association The association.
+     * @return The fields setting the whole array of rows of the association.
+     */
+    private DBObject getAllRows(Association association) {
+        List<DBObject> rows = new ArrayList<DBObject>(association.size());
+        String[] rowKeyColumns = null;
+        for (RowKey rowKey : association.getKeys()) {
+            rowKeyColumns = rowKey.getColumns();
+            rows.add(new BasicDBObject(tupleToMap(association.get(rowKey))));
+        }
+        BasicDBObject set = new BasicDBObject(ROWS_FIELD, rows);
+        if (rowKeyColumns != null) {
+            set.put(ROW_KEY_COLUMNS_FIELD, rowKeyColumns);
+        }
+        return set;
+    }
+
+    /**
+     * Build the condition matching the rows to pull from the array: the values of a row key for a single row,
+     * an $in on the row key column for rows identified by one column.
+     *
+     * @param rowKeys The keys of the rows to remove.
+     * @return The condition, null if the rows cannot be matched by a single condition.
+     */
+    private DBObject getPullCondition(List<RowKey> rowKeys) {
+        if (rowKeys.size() == 1) {
+            RowKey rowKey = rowKeys.get(0);
+            BasicDBObject condition = new BasicDBObject();
+            for (int i = 0; i < rowKey.getColumns().length; i++) {
+                condition.put(rowKey.getColumns()[i], rowKey.getColumnsValues()[i]);
+            }
+            return condition;
+        }
+        String[] columns = rowKeys.get(0).getColumns();
+        if (columns.length != 1) {
+            return null;
+        }
+        List<Object> values = new ArrayList<Object>(rowKeys.size());
+        for (RowKey rowKey : rowKeys) {
+            values.add(rowKey.getColumnsValues()[0]);
+        }
+        return new BasicDBObject(columns[0], new BasicDBObject("$in", values));
+    }
+
+    /**
+     * Remove the document of an association.
+     *
+     * @param key The key of the association.
+     */
     public void removeAssociation(AssociationKey key) {
-        // Do nothing...
-        // Its just a variable that can be used to store stuff..
+        provider.getAssociationCollection().remove(getAssociationQuery(key), provider.getWriteConcern(key.getTable()));
+    }
+
+    /**
+     * @param key The key of the association.
+     * @return The query matching the document of the association, covered by the index on the association key.
+     */
+    private DBObject getAssociationQuery(AssociationKey key) {
+        String[] columns = key.getColumns();
+        Object[] values = key.getColumnsValues();
+        BasicDBObject keyObject = new BasicDBObject();
+        for (int i = 0; i < columns.length; i++) {
+            keyObject.put(columns[i], values[i]);
+        }
+        return new BasicDBObject(ASSOCIATION_TABLE_FIELD, key.getTable()).append(ASSOCIATION_KEY_FIELD, keyObject);
+    }
+
+    /**
+     * Rebuild the row keys of the rows of an association document, their values being columns of the rows.
+     *
+     * @param key The key of the association.
+     * @param document The association document.
+     * @return The rows per row key.
+     */
+    private Map<RowKey, Map<String, Object>> getRows(AssociationKey key, DBObject document) {
+        Map<RowKey, Map<String, Object>> result = new HashMap<RowKey, Map<String, Object>>();
+        List<?> rows = (List<?>) document.get(ROWS_FIELD);
+        List<?> rowKeyColumnList = (List<?>) document.get(ROW_KEY_COLUMNS_FIELD);
+        if (rows == null || rowKeyColumnList == null) {
+            return result;
+        }
+        String[] rowKeyColumns = rowKeyColumnList.toArray(new String[rowKeyColumnList.size()]);
+        for (Object row : rows) {
+            Map<String, Object> map = ((DBObject) row).toMap();
+            Object[] values = new Object[rowKeyColumns.length];
+            for (int i = 0; i < rowKeyColumns.length; i++) {
+                values[i] = map.get(rowKeyColumns[i]);
+            }
+            result.put(new RowKey(key.getTable(), rowKeyColumns, values), map);
+        }
+        return result;
     }
 
     public Tuple createTupleAssociation(AssociationKey associationKey, RowKey rowKey) {
         return new Tuple(EmptyTupleSnapshot.SINGLETON);
     }
 
+    /**
+     * Apply the operations gathered during a flush.
+     * Successive changes of the same document or association have already been merged by the queue,
+     * so each of them is written once. A conditional update is applied only if the document still holds
+     * the expected version, the flush fails otherwise.
+     *
+     * @param queue The operations to apply.
+     */
+    public void executeBatch(OperationsQueue queue) {
+        Set<EntityKey> insertedKeys = new HashSet<EntityKey>();
+        Operation operation;
+        while ((operation = queue.poll()) != null) {
+            if (operation instanceof UpdateTupleOperation) {
+                UpdateTupleOperation update = (UpdateTupleOperation) operation;
+                Tuple tuple = update.getTuple();
+                if (update.isConditional()) {
+                    if (!updateTupleIfVersion(tuple, update.getEntityKey(), update.getVersionColumn(), update.getExpectedVersion())) {
+                        throw log.tupleVersionChanged(update.getEntityKey());
+                    }
+                } else if (tuple.getSnapshot() == NEW_DOCUMENT && !insertedKeys.add(update.getEntityKey())) {
+                    //later changes of a document inserted by this batch: update it
+                    updateDocument(tuple, update.getEntityKey());
+                } else {
+                    updateTuple(tuple, update.getEntityKey());
+                }
+            } else if (operation instanceof RemoveTupleOperation) {
+                removeTuple(((RemoveTupleOperation) operation).getEntityKey());
+            } else if (operation instanceof UpdateAssociationOperation) {
+                UpdateAssociationOperation update = (UpdateAssociationOperation) operation;
+                updateAssociation(update.getAssociation(), update.getAssociationKey());
+            } else if (operation instanceof RemoveAssociationOperation) {
+                removeAssociation(((RemoveAssociationOperation) operation).getAssociationKey());
+            }
+        }
+    }
+
+    /**
+     * Reserve the next values of a sequence with a single findAndModify incrementing its document
+     * by the increment, which is the size of the block of values of the optimizer.
+     * The document of a sequence is inserted on its first use only.
+     *
+     * @param key The key of the sequence, one document per segment.
+     * @param value Initialized with the first value of the reserved block.
+     * @param increment The number of values to reserve.
+     * @param initialValue The first value of a new sequence.
+     */
     public void nextValue(RowKey key, IntegralDataTypeHolder value, int increment, int initialValue) {
-        //To change body of implemented methods use File | Settings | File Templates.
+        DBCollection collection = provider.getCollection(key.getTable());
+        DBObject query = getSequenceQuery(key);
+        DBObject update = new BasicDBObject("$inc", new BasicDBObject(SEQUENCE_VALUE_FIELD, increment));
+        while (true) {
+            DBObject sequence = collection.findAndModify(query, SEQUENCE_FIELDS, null, false, update, false, false);
+            if (sequence != null) {
+                value.initialize(((Number) sequence.get(SEQUENCE_VALUE_FIELD)).longValue());
+                return;
+            }
+            DBObject newSequence = new BasicDBObject("_id", query.get("_id"))
+                    .append(SEQUENCE_VALUE_FIELD, (long) initialValue + increment);
+            try {
+                collection.insert(newSequence, getAcknowledgedWriteConcern(key.getTable()));
+                value.initialize(initialValue);
+                return;
+            } catch (MongoException.DuplicateKey e) {
+                //created concurrently, increment it instead
+            }
+        }
+    }
+
+    /**
+     * @param key The key of the sequence.
+     * @return The query matching the document of the sequence, identified by the value of its segment column.
+     */
+    private DBObject getSequenceQuery(RowKey key) {
+        String[] columns = key.getColumns();
+        Object[] values = key.getColumnsValues();
+        if (columns.length == 1) {
+            return new BasicDBObject("_id", values[0]);
+        }
+        BasicDBObject id = new BasicDBObject();
+        for (int i = 0; i < columns.length; i++) {
+            id.put(columns[i], values[i]);
+        }
+        return new BasicDBObject("_id", id);
     }
 
     Map<String, Object> tupleToMap(Tuple tuple) {
@@ -209,7 +649,6 @@ public class MongoDBDialect implements GridDialect {
     }
 
     private void applyTupleOpsOnMap(Tuple tuple, Map<String, Object> map) {
-        Object id = map.get("_ID");
         for (TupleOperation action : tuple.getOperations()) {
             switch (action.getType()) {
                 case PUT_NULL:
@@ -221,6 +660,22 @@ public class MongoDBDialect implements GridDialect {
                     break;
             }
         }
-        map.put("_ID", id);
+    }
+
+    /**
+     * The empty state of a document that does not exist yet.
+     */
+    private static final class NewDocumentSnapshot implements TupleSnapshot {
+        public Object get(String column) {
+            return null;
+        }
+
+        public boolean isEmpty() {
+            return true;
+        }
+
+        public Set<String> getColumnNames() {
+            return Collections.emptySet();
+        }
     }
 }
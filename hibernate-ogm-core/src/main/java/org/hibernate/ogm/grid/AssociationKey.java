@@ -36,14 +36,24 @@ public final class AssociationKey implements Serializable {
     //column value types do have to be serializable so AssociationKey is serializable
     //should it be a Serializable[] type? It seems to be more pain than anything else
     private final Object[] columnValues;
+    //not part of the identity of the key
+    private final transient EntityKey ownerEntityKey;
 
     public AssociationKey(String table, String[] columnNames, Object[] columnValues) {
+        this(table, columnNames, columnValues, null);
+    }
+
+    /**
+     * @param ownerEntityKey The key of the entity owning the association, null if unknown.
+     */
+    public AssociationKey(String table, String[] columnNames, Object[] columnValues, EntityKey ownerEntityKey) {
         if (columnNames.length != columnValues.length) {
             throw new AssertionFailure("Column names do not match column values");
         }
         this.table = table;
         this.columnNames = columnNames;
         this.columnValues = columnValues;
+        this.ownerEntityKey = ownerEntityKey;
     }
 
     @Override
@@ -103,4 +113,14 @@ public final class AssociationKey implements Serializable {
     public final Object[] getColumnsValues() {
         return columnValues;
     }
+
+    /**
+     * The key of the entity owning the association, known for the collections keyed by the id of their owner.
+     * It lets the dialect store the association along with the owner; it is not kept when the key is serialized.
+     *
+     * @return The key of the owning entity or null if unknown.
+     */
+    public final EntityKey getOwnerEntityKey() {
+        return ownerEntityKey;
+    }
 }
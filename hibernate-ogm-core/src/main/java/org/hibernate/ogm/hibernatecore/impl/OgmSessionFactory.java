@@ -61,7 +61,10 @@ import org.hibernate.id.IdentifierGenerator;
 import org.hibernate.id.factory.IdentifierGeneratorFactory;
 import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.metadata.CollectionMetadata;
+import org.hibernate.ogm.datastore.impl.DatastoreServices;
 import org.hibernate.ogm.exception.NotSupportedException;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
+import org.hibernate.ogm.stat.impl.OgmStatisticsImpl;
 import org.hibernate.persister.collection.CollectionPersister;
 import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.proxy.EntityNotFoundDelegate;
@@ -77,9 +80,33 @@ import org.hibernate.type.TypeResolver;
  */
 public class OgmSessionFactory implements SessionFactoryImplementor {
 	private final SessionFactoryImplementor delegate;
+	private final GridStatisticsImpl gridStatistics;
+	private final Statistics statistics;
 
 	public OgmSessionFactory(SessionFactoryImplementor delegate) {
 		this.delegate = delegate;
+		this.gridStatistics = delegate.getServiceRegistry().getService( DatastoreServices.class ).getGridStatistics();
+		if ( gridStatistics != null ) {
+			gridStatistics.registerMBean( getStatisticsName() );
+			this.statistics = new OgmStatisticsImpl( delegate.getStatistics(), gridStatistics );
+		}
+		else {
+			this.statistics = delegate.getStatistics();
+		}
+	}
+
+	private String getStatisticsName() {
+		String name = delegate.getSettings().getSessionFactoryName();
+		if ( name == null ) {
+			//same uuid as the one used to bind the session factory
+			try {
+				name = String.valueOf( delegate.getReference().get( 0 ).getContent() );
+			}
+			catch (NamingException e) {
+				name = Integer.toHexString( System.identityHashCode( delegate ) );
+			}
+		}
+		return name;
 	}
 
 	@Override
@@ -331,12 +358,15 @@ public class OgmSessionFactory implements SessionFactoryImplementor {
 
 	@Override
 	public Statistics getStatistics() {
-		return delegate.getStatistics();
+		return statistics;
 	}
 
 	@Override
 	public void close() throws HibernateException {
 		delegate.close();
+		if ( gridStatistics != null ) {
+			gridStatistics.unregisterMBean();
+		}
 	}
 
 	@Override
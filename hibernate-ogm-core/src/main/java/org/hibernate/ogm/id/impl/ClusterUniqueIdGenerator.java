@@ -0,0 +1,186 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.id.impl;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.jdbc.AbstractReturningWork;
+import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.DatastoreProvider;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.type.Type;
+import org.infinispan.Cache;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.remoting.transport.Address;
+
+import static org.hibernate.ogm.datastore.spi.DefaultDatastoreNames.IDENTIFIER_STORE;
+
+/**
+ * Generates 64 bits identifiers unique across the cluster without accessing the datastore.
+ * <p/>
+ * An identifier is made of the milliseconds elapsed since 2011 (41 bits), the index of
+ * the node in the cluster (10 bits) and a counter of the identifiers generated by the node
+ * during the same millisecond (12 bits). When the counter overflows or the clock goes back,
+ * the generator runs ahead of the clock instead of waiting.
+ * <p/>
+ * The node index is read from the {@link #NODE_INDEX} property of each node. When it is not set,
+ * Infinispan derives it from the position of the node in the cluster view and claims it once in
+ * the identifier cache so that it is not used by another member; other datastores fail when the
+ * session factory is built, see {@link #initialize(SessionFactoryImplementor)}.
+ *
+ * @author agent <agent@local>
+ */
+public class ClusterUniqueIdGenerator implements IdentifierGenerator, Configurable {
+
+	public static final String STRATEGY_NAME = "cluster-unique";
+
+	/**
+	 * The index of the node in the cluster, between 0 and 1023. Being specific to each node,
+	 * it is a configuration property rather than a parameter of the generator mapping.
+	 */
+	public static final String NODE_INDEX = "hibernate.ogm.id.node_index";
+
+	//2011-01-01T00:00:00Z
+	private static final long EPOCH = 1293840000000L;
+	private static final int NODE_BITS = 10;
+	private static final int SEQUENCE_BITS = 12;
+	private static final int MAX_NODES = 1 << NODE_BITS;
+	private static final long MAX_SEQUENCE = ( 1L << SEQUENCE_BITS ) - 1;
+
+	private static final String NODES_TABLE = "hibernate_cluster_nodes";
+	private static final String NODES_COLUMN = "node_index";
+
+	private Class<?> identifierClass;
+	private String entityName;
+	private int nodeIndex = -1;
+	private long lastTimestamp = -1;
+	private long sequence;
+
+	@Override
+	public void configure(Type type, Properties params, Dialect dialect) throws MappingException {
+		identifierClass = type.getReturnedClass();
+		entityName = params.getProperty( ENTITY_NAME );
+		if ( identifierClass != Long.class && identifierClass != long.class
+				&& identifierClass != BigInteger.class && identifierClass != BigDecimal.class ) {
+			throw new MappingException(
+					STRATEGY_NAME + " identifier generator requires a 64 bits identifier: " + entityName
+			);
+		}
+	}
+
+	/**
+	 * Read the node index from the configuration of the session factory, once it is built.
+	 *
+	 * @throws HibernateException if the node index is invalid, or not set outside of Infinispan
+	 */
+	public synchronized void initialize(SessionFactoryImplementor factory) {
+		final int configuredIndex = ConfigurationHelper.getInt( NODE_INDEX, factory.getProperties(), -1 );
+		if ( configuredIndex >= MAX_NODES || configuredIndex < -1 ) {
+			throw new HibernateException( NODE_INDEX + " must be between 0 and " + ( MAX_NODES - 1 ) + ": " + configuredIndex );
+		}
+		if ( configuredIndex < 0 && !isInfinispan( factory ) ) {
+			throw new HibernateException(
+					STRATEGY_NAME + " identifier generator of " + entityName + " requires " + NODE_INDEX + " outside of Infinispan"
+			);
+		}
+		nodeIndex = configuredIndex;
+	}
+
+	private static boolean isInfinispan(SessionFactoryImplementor factory) {
+		return factory.getServiceRegistry().getService( DatastoreProvider.class ) instanceof InfinispanDatastoreProvider;
+	}
+
+	@Override
+	public synchronized Serializable generate(SessionImplementor session, Object object) throws HibernateException {
+		if ( nodeIndex < 0 ) {
+			nodeIndex = claimNodeIndex( session );
+		}
+		final long now = System.currentTimeMillis() - EPOCH;
+		if ( now > lastTimestamp ) {
+			lastTimestamp = now;
+			sequence = 0;
+		}
+		else if ( ++sequence > MAX_SEQUENCE ) {
+			lastTimestamp++;
+			sequence = 0;
+		}
+		final long id = ( lastTimestamp << ( NODE_BITS + SEQUENCE_BITS ) ) | ( (long) nodeIndex << SEQUENCE_BITS ) | sequence;
+		return IdentifierGeneratorHelper.getIntegralDataTypeHolder( identifierClass ).initialize( id ).makeValue();
+	}
+
+	private int claimNodeIndex(SessionImplementor session) {
+		if ( !isInfinispan( session.getFactory() ) ) {
+			throw new HibernateException(
+					STRATEGY_NAME + " identifier generator of " + entityName + " requires " + NODE_INDEX + " outside of Infinispan"
+			);
+		}
+		final InfinispanDatastoreProvider infinispan = (InfinispanDatastoreProvider) session.getFactory()
+				.getServiceRegistry()
+				.getService( DatastoreProvider.class );
+		final EmbeddedCacheManager cacheManager = infinispan.getEmbeddedCacheManager();
+		final Address address = cacheManager.getAddress();
+		if ( address == null ) {
+			//not clustered
+			return 0;
+		}
+		final Cache<RowKey, Object> cache = infinispan.getCache( IDENTIFIER_STORE );
+		class Work extends AbstractReturningWork<Integer> {
+			@Override
+			public Integer execute(Connection connection) throws SQLException {
+				return claimNodeIndex( cache, address, cacheManager.getMembers() );
+			}
+		}
+		//the claim must survive a rollback of the current transaction
+		return session.getTransactionCoordinator().getTransaction().createIsolationDelegate().delegateWork( new Work(), false );
+	}
+
+	private int claimNodeIndex(Cache<RowKey, Object> cache, Address address, List<Address> members) {
+		final int position = Math.max( 0, members.indexOf( address ) );
+		for ( int attempt = 0; attempt < MAX_NODES; attempt++ ) {
+			final int index = ( position + attempt ) % MAX_NODES;
+			final RowKey key = new RowKey( NODES_TABLE, new String[] { NODES_COLUMN }, new Object[] { index } );
+			final Object owner = cache.putIfAbsent( key, address );
+			if ( owner == null || owner.equals( address ) ) {
+				return index;
+			}
+			//the index of a node which has left the cluster can be reused
+			if ( !members.contains( owner ) && cache.replace( key, owner, address ) ) {
+				return index;
+			}
+		}
+		throw new HibernateException( "All the " + MAX_NODES + " node indexes are used, cannot generate identifiers for " + address );
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.id.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ogm.util.impl.Log;
+import org.hibernate.ogm.util.impl.LoggerFactory;
+
+/**
+ * Hands out identifiers from blocks reserved in the datastore.
+ * <p/>
+ * Identifiers of the current block are handed out without locking. When the block
+ * gets below its low water mark, the next block is reserved in the background so that
+ * threads rarely wait for the datastore.
+ *
+ * @author agent <agent@local>
+ */
+public class IdentifierBlockReservation {
+
+	private static final Log log = LoggerFactory.make();
+
+	private final BlockSource source;
+	private final int blockSize;
+	private final int lowWaterMark;
+
+	private volatile Block current = new Block( 0, 0, 0 );
+	//guarded by this
+	private Future<Long> prefetched;
+
+	private final AtomicLong reservationCount = new AtomicLong();
+	private final AtomicLong waitCount = new AtomicLong();
+
+	//a single thread at most, released when idle
+	private final ThreadPoolExecutor prefetcher = new ThreadPoolExecutor(
+			0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread( runnable, "OGM identifier prefetcher-" + source );
+					thread.setDaemon( true );
+					return thread;
+				}
+			}
+	);
+
+	/**
+	 * @param source reserves the blocks in the datastore
+	 * @param blockSize the number of identifiers of a block
+	 * @param lowWaterMark the number of identifiers left in the current block when the next one is reserved
+	 */
+	public IdentifierBlockReservation(BlockSource source, int blockSize, int lowWaterMark) {
+		this.source = source;
+		this.blockSize = blockSize;
+		this.lowWaterMark = lowWaterMark;
+	}
+
+	public long nextValue() {
+		while ( true ) {
+			final Block block = current;
+			final long value = block.next.getAndIncrement();
+			if ( value < block.end ) {
+				if ( value == block.refill ) {
+					prefetch();
+				}
+				return value;
+			}
+			switchBlock( block );
+		}
+	}
+
+	private synchronized void prefetch() {
+		//once closed, blocks are reserved by the threads asking for identifiers
+		if ( prefetched == null && !prefetcher.isShutdown() ) {
+			prefetched = prefetcher.submit( new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					return reserve();
+				}
+			} );
+		}
+	}
+
+	private synchronized void switchBlock(Block exhausted) {
+		if ( current != exhausted ) {
+			//another thread did it already
+			return;
+		}
+		final Future<Long> next = prefetched;
+		prefetched = null;
+		long start;
+		if ( next == null ) {
+			waitCount.incrementAndGet();
+			start = reserve();
+		}
+		else {
+			if ( !next.isDone() ) {
+				waitCount.incrementAndGet();
+			}
+			start = getPrefetched( next );
+		}
+		current = new Block( start, blockSize, lowWaterMark );
+	}
+
+	private long getPrefetched(Future<Long> next) {
+		try {
+			return next.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HibernateException( "Interrupted while reserving identifiers for " + source, e );
+		}
+		catch (ExecutionException e) {
+			log.unableToPrefetchIdentifierBlock( source, e );
+			return reserve();
+		}
+	}
+
+	private long reserve() {
+		final long start = source.reserveBlock( blockSize );
+		reservationCount.incrementAndGet();
+		if ( log.isTraceEnabled() ) {
+			log.tracef( "Reserved identifiers [%1$s, %2$s[ for %3$s", start, start + blockSize, source );
+		}
+		return start;
+	}
+
+	/**
+	 * Stop prefetching blocks; a pending reservation completes in the background.
+	 * Called when the session factory is closed.
+	 */
+	public synchronized void close() {
+		prefetcher.shutdown();
+	}
+
+	/**
+	 * @return the number of blocks reserved in the datastore
+	 */
+	public long getReservationCount() {
+		return reservationCount.get();
+	}
+
+	/**
+	 * @return the number of times a thread had to wait for a block to be reserved
+	 */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+
+	/**
+	 * Reserves blocks of identifiers in the datastore.
+	 * <p/>
+	 * A block is reserved from a background thread or, when no block has been prefetched, from the
+	 * thread asking for an identifier. The reservation must not join the transaction of that thread:
+	 * the identifiers of the block are handed out even if this transaction rolls back.
+	 */
+	public interface BlockSource {
+		/**
+		 * @return the first identifier of the newly reserved block of {@code size} identifiers
+		 */
+		long reserveBlock(int size);
+	}
+
+	private static final class Block {
+		private final AtomicLong next;
+		private final long end;
+		private final long refill;
+
+		Block(long start, int size, int lowWaterMark) {
+			this.next = new AtomicLong( start );
+			this.end = start + size;
+			this.refill = Math.max( start, end - lowWaterMark );
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.id.impl;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Stops the background reservation of identifier blocks when the session factory is closed,
+ * see {@link IdentifierBlockReservation}.
+ *
+ * @author agent <agent@local>
+ */
+public class IdentifierBlockReservationCloser implements SessionFactoryObserver {
+
+	@Override
+	public void sessionFactoryCreated(SessionFactory factory) {
+	}
+
+	@Override
+	public void sessionFactoryClosed(SessionFactory factory) {
+		final SessionFactoryImplementor factoryImplementor = (SessionFactoryImplementor) factory;
+		for ( Object entityName : factoryImplementor.getAllClassMetadata().keySet() ) {
+			final IdentifierBlockReservation reservation = getReservation(
+					factoryImplementor.getIdentifierGenerator( (String) entityName )
+			);
+			if ( reservation != null ) {
+				reservation.close();
+			}
+		}
+	}
+
+	private IdentifierBlockReservation getReservation(IdentifierGenerator generator) {
+		if ( generator instanceof OgmTableGenerator ) {
+			return ( (OgmTableGenerator) generator ).getReservation();
+		}
+		else if ( generator instanceof OgmSequenceGenerator ) {
+			return ( (OgmSequenceGenerator) generator ).getReservation();
+		}
+		return null;
+	}
+}
@@ -52,6 +52,14 @@ import org.hibernate.type.Type;
  * <td>{@link org.hibernate.id.enhanced.SequenceStyleGenerator#SEQUENCE_PARAM}</td>
  * <td>The name of the sequence to use store/retrieve sequence values</td>
  * </tr>
+ * <tr>
+ * <td>{@link OgmTableGenerator#RESERVATION_SIZE_PARAM}</td>
+ * <td>The number of values reserved at once by each node, see {@link IdentifierBlockReservation}</td>
+ * </tr>
+ * <tr>
+ * <td>{@link OgmTableGenerator#RESERVATION_LOW_WATER_MARK_PARAM}</td>
+ * <td>The number of reserved values left when the next block is reserved in the background</td>
+ * </tr>
  * </table>
  *
  * @author Nabeel Ali Memon <nabeel@nabeelalimemon.com>
@@ -107,6 +115,15 @@ public class OgmSequenceGenerator implements PersistentIdentifierGenerator, Conf
 		return tableGenerator.getTableName();
 	}
 
+	/**
+	 * The identifier blocks reserved by this generator if {@link OgmTableGenerator#RESERVATION_SIZE_PARAM} is set.
+	 *
+	 * @return The block reservation or null.
+	 */
+	public IdentifierBlockReservation getReservation() {
+		return tableGenerator.getReservation();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -29,10 +29,13 @@ import java.sql.SQLException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
 
 import org.hibernate.ogm.datastore.impl.DatastoreServices;
 import org.hibernate.ogm.dialect.GridDialect;
 import org.hibernate.ogm.type.TypeTranslator;
+import org.hibernate.service.jta.platform.spi.JtaPlatform;
 import org.hibernate.service.spi.ServiceRegistryImplementor;
 
 import org.hibernate.HibernateException;
@@ -133,6 +136,16 @@ import org.hibernate.type.Type;
  * <td><i>depends on defined increment size</i></td>
  * <td>Allows explicit definition of which optimization strategy to use</td>
  * </tr>
+ * <tr>
+ * <td>{@link #RESERVATION_SIZE_PARAM}</td>
+ * <td>0</td>
+ * <td>When positive, the number of identifiers reserved at once by each node, see {@link IdentifierBlockReservation}; the optimizer is then not used</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #RESERVATION_LOW_WATER_MARK_PARAM}</td>
+ * <td><i>a quarter of the reservation size</i></td>
+ * <td>The number of identifiers left in the reserved block when the next one is reserved in the background</td>
+ * </tr>
  * </table>
  *
  * @author Steve Ebersole
@@ -167,6 +180,10 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 
 	public static final String OPT_PARAM = "optimizer";
 
+	public static final String RESERVATION_SIZE_PARAM = "reservation_size";
+
+	public static final String RESERVATION_LOW_WATER_MARK_PARAM = "reservation_low_water_mark";
+
 
 	private Type identifierType;
 
@@ -185,10 +202,13 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 	private String updateQuery;
 
 	private Optimizer optimizer;
+	private IdentifierBlockReservation reservation;
 	private long accessCount = 0;
 	private volatile GridType identifierValueGridType;
 	private GridType segmentGridType = StringType.INSTANCE;
 	private volatile GridDialect gridDialect;
+	private volatile JtaPlatform jtaPlatform;
+	private volatile RowKey segmentKey;
 
 	/**
 	 * {@inheritDoc}
@@ -297,6 +317,15 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 		return accessCount;
 	}
 
+	/**
+	 * The identifier blocks reserved by this generator if {@link #RESERVATION_SIZE_PARAM} is set.
+	 *
+	 * @return The block reservation or null.
+	 */
+	public final IdentifierBlockReservation getReservation() {
+		return reservation;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -332,6 +361,15 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 				incrementSize,
 				ConfigurationHelper.getInt( INITIAL_PARAM, params, -1 )
 		);
+
+		final int reservationSize = ConfigurationHelper.getInt( RESERVATION_SIZE_PARAM, params, 0 );
+		if ( reservationSize > 0 ) {
+			reservation = new IdentifierBlockReservation(
+					new SegmentBlockSource(),
+					reservationSize,
+					ConfigurationHelper.getInt( RESERVATION_LOW_WATER_MARK_PARAM, params, reservationSize / 4 )
+			);
+		}
 	}
 
 	/**
@@ -487,14 +525,25 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 	/**
 	 * {@inheritDoc}
 	 */
-	public synchronized Serializable generate(final SessionImplementor session, Object obj) {
-		return optimizer.generate(
-				new AccessCallback() {
-					public IntegralDataTypeHolder getNextValue() {
-						return ( IntegralDataTypeHolder ) doWorkInIsolationTransaction( session );
+	public Serializable generate(final SessionImplementor session, Object obj) {
+		if ( reservation != null ) {
+			//make sure the block source can work without the session
+			getSegmentKey( session );
+			getDialect( session );
+			getJtaPlatform( session );
+			return IdentifierGeneratorHelper.getIntegralDataTypeHolder( identifierType.getReturnedClass() )
+					.initialize( reservation.nextValue() )
+					.makeValue();
+		}
+		synchronized ( this ) {
+			return optimizer.generate(
+					new AccessCallback() {
+						public IntegralDataTypeHolder getNextValue() {
+							return ( IntegralDataTypeHolder ) doWorkInIsolationTransaction( session );
+						}
 					}
-				}
-		);
+			);
+		}
 	}
 
 	//copied and altered from TransactionHelper
@@ -521,15 +570,7 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 	}
 
 	public IntegralDataTypeHolder doWorkInCurrentTransactionIfAny(SessionImplementor session) {
-		defineGridTypes( session );
-		final Object segmentColumnValue = nullSafeSet(
-				segmentGridType, segmentValue, segmentColumnName, session
-		);
-		RowKey key = new RowKey(
-				tableName,
-				new String[] { segmentColumnName },
-				new Object[] { segmentColumnValue }
-		);
+		RowKey key = getSegmentKey( session );
 
 		GridDialect dialect = getDialect(session);
 		IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder( identifierType.getReturnedClass() );
@@ -540,6 +581,61 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 		return value;
 	}
 
+	private RowKey getSegmentKey(SessionImplementor session) {
+		if ( segmentKey == null ) {
+			defineGridTypes( session );
+			final Object segmentColumnValue = nullSafeSet(
+					segmentGridType, segmentValue, segmentColumnName, session
+			);
+			segmentKey = new RowKey(
+					tableName,
+					new String[] { segmentColumnName },
+					new Object[] { segmentColumnValue }
+			);
+		}
+		return segmentKey;
+	}
+
+	/**
+	 * Reserves blocks from the thread asking for an identifier or from a background thread.
+	 * The transaction of the calling thread, if any, is suspended: a block must stay reserved
+	 * even if that transaction rolls back, as the generator keeps handing out its identifiers.
+	 * The segment key, the dialect and the JTA platform have been resolved by {@link #generate}.
+	 */
+	private class SegmentBlockSource implements IdentifierBlockReservation.BlockSource {
+		@Override
+		public long reserveBlock(int size) {
+			IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder( Long.class );
+			final TransactionManager transactionManager = jtaPlatform.retrieveTransactionManager();
+			try {
+				final Transaction suspended = transactionManager == null ? null : transactionManager.suspend();
+				try {
+					gridDialect.nextValue( segmentKey, value, size, initialValue );
+				}
+				finally {
+					if ( suspended != null ) {
+						transactionManager.resume( suspended );
+					}
+				}
+			}
+			catch ( HibernateException e ) {
+				throw e;
+			}
+			catch ( Exception e ) {
+				throw new HibernateException( "Could not get or update next value", e );
+			}
+			synchronized ( OgmTableGenerator.this ) {
+				accessCount++;
+			}
+			return value.makeValue().longValue();
+		}
+
+		@Override
+		public String toString() {
+			return tableName + '.' + segmentValue;
+		}
+	}
+
 	private GridDialect getDialect(SessionImplementor session) {
 		if (gridDialect == null) {
 			gridDialect = session.getFactory().getServiceRegistry().getService(DatastoreServices.class).getGridDialect();
@@ -547,6 +643,13 @@ public class OgmTableGenerator implements PersistentIdentifierGenerator, Configu
 		return gridDialect;
 	}
 
+	private JtaPlatform getJtaPlatform(SessionImplementor session) {
+		if ( jtaPlatform == null ) {
+			jtaPlatform = session.getFactory().getServiceRegistry().getService( JtaPlatform.class );
+		}
+		return jtaPlatform;
+	}
+
 	private Object nullSafeSet(GridType type, Object value, String columnName, SessionImplementor session) {
 		Tuple tuple = new Tuple( EmptyTupleSnapshot.SINGLETON );
 		type.nullSafeSet( tuple, value, new String[] { columnName }, session );
@@ -26,6 +26,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceException;
 import javax.persistence.spi.PersistenceProvider;
@@ -41,6 +42,7 @@ import org.hibernate.ejb.HibernatePersistence;
 import org.hibernate.ejb.packaging.PersistenceMetadata;
 import org.hibernate.ejb.packaging.PersistenceXmlLoader;
 import org.hibernate.ogm.cfg.impl.OgmNamingStrategy;
+import org.hibernate.ogm.jpa.impl.ClusterUniqueIdentifierGeneratorStrategyProvider;
 import org.hibernate.ogm.jpa.impl.DelegatorPersistenceUnitInfo;
 import org.hibernate.ogm.jpa.impl.OgmEntityManagerFactory;
 import org.hibernate.ogm.jpa.impl.OgmIdentifierGeneratorStrategyProvider;
@@ -85,7 +87,7 @@ public class HibernateOgmPersistence implements PersistenceProvider {
 					) ) {
 						//correct provider
 						Map<Object,Object> protectiveCopy = new HashMap<Object,Object>(integration);
-						enforceOgmConfig( protectiveCopy );
+						enforceOgmConfig( protectiveCopy, metadata.getProps() );
 						protectiveCopy.put( HibernatePersistence.PROVIDER, delegate.getClass().getName() );
 						final EntityManagerFactory coreEMF = delegate.createEntityManagerFactory(
 								emName, protectiveCopy
@@ -105,20 +107,30 @@ public class HibernateOgmPersistence implements PersistenceProvider {
 		}
 	}
 
-	private void enforceOgmConfig(Map<Object,Object> map) {
+	private void enforceOgmConfig(Map<Object,Object> map, Properties unitProperties) {
 		map.put( AvailableSettings.NAMING_STRATEGY, OgmNamingStrategy.class.getName() );
 		//we use a placeholder DS to make sure, Hibernate EntityManager (Ejb3Configuration) does not enforce a different connection provider
 		map.put( Environment.DATASOURCE, "---PlaceHolderDSForOGM---" );
-		map.put( AvailableSettings.IDENTIFIER_GENERATOR_STRATEGY_PROVIDER, OgmIdentifierGeneratorStrategyProvider.class.getName());
+		map.put( AvailableSettings.IDENTIFIER_GENERATOR_STRATEGY_PROVIDER, isClusterUniqueAuto( map, unitProperties ) ?
+				ClusterUniqueIdentifierGeneratorStrategyProvider.class.getName() :
+				OgmIdentifierGeneratorStrategyProvider.class.getName() );
 		map.put( Configuration.USE_NEW_ID_GENERATOR_MAPPINGS, "true" ); //needed to guarantee the table id generator mapping
 	}
 
+	private boolean isClusterUniqueAuto(Map<Object,Object> map, Properties unitProperties) {
+		Object value = map.get( OgmIdentifierGeneratorStrategyProvider.CLUSTER_UNIQUE_AUTO );
+		if ( value == null && unitProperties != null ) {
+			value = unitProperties.get( OgmIdentifierGeneratorStrategyProvider.CLUSTER_UNIQUE_AUTO );
+		}
+		return value != null && Boolean.parseBoolean( value.toString() );
+	}
+
 	@Override
 	public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map) {
 		final String persistenceProviderClassName = info.getPersistenceProviderClassName();
 		if ( persistenceProviderClassName == null || IMPLEMENTATION_NAME.equals( persistenceProviderClassName ) ) {
 			Map<Object,Object> protectiveCopy = map != null ? new HashMap<Object,Object>(map) : new HashMap<Object,Object>();
-			enforceOgmConfig( protectiveCopy );
+			enforceOgmConfig( protectiveCopy, info.getProperties() );
 			//HEM only builds an EntityManagerFactory when HibernatePersistence.class.getName() is the PersistenceProvider
 			//that's why we override it when
 			//new DelegatorPersistenceUnitInfo(info)
@@ -0,0 +1,45 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.jpa.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.ogm.id.impl.ClusterUniqueIdGenerator;
+
+/**
+ * Generates JPA AUTO and SEQUENCE identifiers with {@link ClusterUniqueIdGenerator}
+ * instead of the datastore sequences.
+ *
+ * @author agent <agent@local>
+ */
+public class ClusterUniqueIdentifierGeneratorStrategyProvider extends OgmIdentifierGeneratorStrategyProvider {
+	@Override
+	public Map<String, Class<?>> getStrategies() {
+		Map<String, Class<?>> strategies = new HashMap<String, Class<?>>( super.getStrategies() );
+		strategies.put(
+				org.hibernate.id.enhanced.SequenceStyleGenerator.class.getName(),
+				ClusterUniqueIdGenerator.class
+		);
+		return Collections.unmodifiableMap( strategies );
+	}
+}
@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.hibernate.ejb.cfg.spi.IdentifierGeneratorStrategyProvider;
+import org.hibernate.ogm.id.impl.ClusterUniqueIdGenerator;
 import org.hibernate.ogm.id.impl.OgmIdentityGenerator;
 import org.hibernate.ogm.id.impl.OgmSequenceGenerator;
 import org.hibernate.ogm.id.impl.OgmTableGenerator;
@@ -37,6 +38,11 @@ import org.hibernate.ogm.id.impl.OgmTableGenerator;
  * @author Nabeel Ali Memon <nabeel@nabeelalimemon.com>
  */
 public class OgmIdentifierGeneratorStrategyProvider implements IdentifierGeneratorStrategyProvider {
+	/**
+	 * When true, JPA AUTO and SEQUENCE identifiers are generated by {@link ClusterUniqueIdGenerator}
+	 */
+	public static final String CLUSTER_UNIQUE_AUTO = "hibernate.ogm.id.cluster_unique_auto";
+
 	/**
 	 * @return The registry of different JPA identifier generator names
 	 *         and their corresponding generator implementations for grid.
@@ -56,6 +62,10 @@ public class OgmIdentifierGeneratorStrategyProvider implements IdentifierGenerat
 				"identity",
 				OgmIdentityGenerator.class
 		);
+		strategies.put(
+				ClusterUniqueIdGenerator.STRATEGY_NAME,
+				ClusterUniqueIdGenerator.class
+		);
 		return Collections.unmodifiableMap( strategies );
 	}
 }
@@ -0,0 +1,85 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.loader;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.hibernate.HibernateException;
+import org.hibernate.LockOptions;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.loader.entity.UniqueEntityLoader;
+import org.hibernate.ogm.persister.OgmEntityPersister;
+
+/**
+ * Load an entity and, opportunistically, the other uninitialized proxies and
+ * {@code @BatchSize} eligible entities of the same type pending in the session.
+ *
+ * Unlike its ORM counterpart, no predefined batch sizes are needed as the grid
+ * does not need a prepared statement per number of keys.
+ *
+ * @author agent <agent@local>
+ */
+public class OgmBatchingEntityLoader implements UniqueEntityLoader {
+
+	private final OgmEntityPersister persister;
+	private final OgmLoader loader;
+	private final int batchSize;
+
+	public OgmBatchingEntityLoader(OgmEntityPersister persister, int batchSize) {
+		this.persister = persister;
+		this.batchSize = batchSize;
+		this.loader = new OgmLoader( new OgmEntityPersister[] { persister } );
+	}
+
+	@Override
+	public Object load(Serializable id, Object optionalObject, SessionImplementor session) throws HibernateException {
+		return load( id, optionalObject, session, LockOptions.NONE );
+	}
+
+	@Override
+	public Object load(Serializable id, Object optionalObject, SessionImplementor session, LockOptions lockOptions) {
+		final Serializable[] batch = session.getPersistenceContext()
+				.getBatchFetchQueue()
+				.getEntityBatch( persister, id, batchSize, persister.getEntityMode() );
+		int numberOfIds = 0;
+		while ( numberOfIds < batch.length && batch[numberOfIds] != null ) {
+			numberOfIds++;
+		}
+		if ( numberOfIds <= 1 ) {
+			return loader.load( id, optionalObject, session, lockOptions );
+		}
+		final Serializable[] ids = new Serializable[numberOfIds];
+		System.arraycopy( batch, 0, ids, 0, numberOfIds );
+		final List<Object> results = loader.loadEntityBatch( session, ids, optionalObject, id, lockOptions );
+		return getObjectFromList( results, id, session );
+	}
+
+	private Object getObjectFromList(List<Object> results, Serializable id, SessionImplementor session) {
+		for ( Object entity : results ) {
+			if ( entity != null
+					&& persister.getIdentifierType().isEqual( id, session.getContextEntityIdentifier( entity ), session.getFactory() ) ) {
+				return entity;
+			}
+		}
+		return null;
+	}
+}
@@ -63,6 +63,7 @@ import java.io.Serializable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -157,12 +158,50 @@ public class OgmLoader implements UniqueEntityLoader {
 		qp.setOptionalId( id );
 		qp.setLockOptions( lockOptions );
 
-		Object result = doQueryAndInitializeNonLazyCollections(
+		List<Object> results = doQueryAndInitializeNonLazyCollections(
 				session,
 				qp,
 				false
 			);
-		return result;
+		return results.isEmpty() ? null : results.get( 0 );
+	}
+
+	/**
+	 * Load a batch of entities of the same type, fetching their tuples in a single
+	 * grid operation.
+	 *
+	 * @return the loaded entities; ids not present in the grid have no matching entry
+	 */
+	public List<Object> loadEntityBatch(
+			SessionImplementor session,
+			Serializable[] ids,
+			Object optionalObject,
+			Serializable optionalId,
+			LockOptions lockOptions) {
+		final OgmEntityPersister currentPersister = entityPersisters[0];
+		if ( log.isDebugEnabled() ) {
+			log.debug(
+					"batch loading entity: " +
+					MessageHelper.infoString( currentPersister, ids, getFactory() )
+				);
+		}
+		Type[] types = new Type[ids.length];
+		Arrays.fill( types, currentPersister.getIdentifierType() );
+		QueryParameters qp = new QueryParameters();
+		qp.setPositionalParameterTypes( types );
+		qp.setPositionalParameterValues( ids );
+		qp.setOptionalObject( optionalObject );
+		qp.setOptionalEntityName( currentPersister.getEntityName() );
+		qp.setOptionalId( optionalId );
+		qp.setLockOptions( lockOptions );
+
+		List<Object> results = doQueryAndInitializeNonLazyCollections(
+				session,
+				qp,
+				false
+			);
+		log.debug( "done entity batch load" );
+		return results;
 	}
 
 	/**
@@ -199,7 +238,7 @@ public class OgmLoader implements UniqueEntityLoader {
 	/**
 	 * Load the entity activating the persistence context execution boundaries
 	 */
-	private Object doQueryAndInitializeNonLazyCollections(
+	private List<Object> doQueryAndInitializeNonLazyCollections(
 			SessionImplementor session,
 			QueryParameters qp,
 			boolean returnProxies) {
@@ -209,7 +248,7 @@ public class OgmLoader implements UniqueEntityLoader {
 		final PersistenceContext persistenceContext = session.getPersistenceContext();
 		boolean defaultReadOnlyOrig = persistenceContext.isDefaultReadOnly();
 		persistenceContext.beforeLoad();
-		Object result;
+		List<Object> result;
 		try {
 			try {
 				result = doQuery(
@@ -235,7 +274,7 @@ public class OgmLoader implements UniqueEntityLoader {
 	/**
 	 * Execute the physical query and initialize the various entities and collections
 	 */
-	private Object doQuery(
+	private List<Object> doQuery(
 			SessionImplementor session,
 			QueryParameters qp,
 			boolean returnProxies) {
@@ -244,8 +283,12 @@ public class OgmLoader implements UniqueEntityLoader {
 		int entitySpan = entityPersisters.length;
 		final List<Object> hydratedObjects = entitySpan == 0 ? null : new ArrayList<Object>( entitySpan * 10 );
 		//TODO yuk! Is there a cleaner way to access the id?
-		final Serializable id = qp.getOptionalId() != null ? qp.getOptionalId() : ( Serializable ) qp.getCollectionKeys()[0];
-		TupleAsMapResultSet resultset = getResultSet( id, session );
+		final Serializable[] ids = entitySpan == 0 ?
+				qp.getCollectionKeys() :
+				toSerializableArray( qp.getPositionalParameterValues() );
+		//ids of the entity rows, in the resultset order
+		final List<Serializable> rowIds = new ArrayList<Serializable>( ids.length );
+		TupleAsMapResultSet resultset = getResultSet( ids, rowIds, session );
 
 		//Todo implement lockmode
 		//final LockMode[] lockModesArray = getLockModes( queryParameters.getLockOptions() );
@@ -258,19 +301,22 @@ public class OgmLoader implements UniqueEntityLoader {
 		final org.hibernate.engine.spi.EntityKey[] keys = new org.hibernate.engine.spi.EntityKey[entitySpan];
 
 		//for each element in resultset
-		//TODO should we collect List<Object> as result? Not necessary today
-		Object result = null;
+		final List<Object> results = new ArrayList<Object>( rowIds.size() );
+		int rowIndex = 0;
 		try {
 			while ( resultset.next() ) {
-				result = getRowFromResultSet(
+				//the tuple is read directly, the resultset only identifies the load context of the collections
+				Object result = getRowFromResultSet(
+						resultset.getTuple(),
 						resultset,
 						session,
 						qp,
 						//lockmodeArray,
-						qp.getOptionalId(),
+						entitySpan == 0 ? null : rowIds.get( rowIndex++ ),
 						hydratedObjects,
 						keys,
 						returnProxies);
+				results.add( result );
 			}
 
 			//TODO collect subselect result key
@@ -283,7 +329,16 @@ public class OgmLoader implements UniqueEntityLoader {
 
 		initializeEntitiesAndCollections( hydratedObjects, resultset, session, qp.isReadOnly( session ) );
 		//TODO create subselects
-		return result;
+		return results;
+	}
+
+	private static Serializable[] toSerializableArray(Object[] values) {
+		if ( values instanceof Serializable[] ) {
+			return (Serializable[]) values;
+		}
+		Serializable[] ids = new Serializable[values.length];
+		System.arraycopy( values, 0, ids, 0, values.length );
+		return ids;
 	}
 
 	/**
@@ -326,6 +381,7 @@ public class OgmLoader implements UniqueEntityLoader {
 	}
 
 	private Object getRowFromResultSet(
+			Tuple tuple,
 			ResultSet resultset,
 			SessionImplementor session,
 			QueryParameters qp,
@@ -346,7 +402,7 @@ public class OgmLoader implements UniqueEntityLoader {
 		}
 
 		final Object[] row = getRow(
-				resultset.unwrap( TupleAsMapResultSet.class ).getTuple(),
+				tuple,
 				persisters,
 				keys,
 				qp.getOptionalObject(),
@@ -356,7 +412,7 @@ public class OgmLoader implements UniqueEntityLoader {
 				session
 		);
 
-		readCollectionElements( row, resultset, session );
+		readCollectionElements( row, tuple, resultset, session );
 
 		if ( returnProxies ) {
 			// now get an existing proxy for each row element (if there is one)
@@ -389,20 +445,40 @@ public class OgmLoader implements UniqueEntityLoader {
 		}
 	}
 
-	private TupleAsMapResultSet getResultSet(Serializable id, SessionImplementor session) {
+	private TupleAsMapResultSet getResultSet(Serializable[] ids, List<Serializable> rowIds, SessionImplementor session) {
 		//TODO this if won't work when we will support collections inside the entity tuple but that will do for now
 		final TupleAsMapResultSet resultset = new TupleAsMapResultSet();
 		if ( getEntityPersisters().length > 0 ) {
-			final EntityKey key = new EntityKeyBuilder()
-					.entityPersister( getEntityPersisters()[0] )
-					.id( id )
-					.getKey();
-			Tuple entry = gridDialect.getTuple(key);
-			if ( entry != null ) {
-				resultset.addTuple( entry );
+			if ( ids.length == 1 ) {
+				final EntityKey key = new EntityKeyBuilder()
+						.entityPersister( getEntityPersisters()[0] )
+						.id( ids[0] )
+						.getKey();
+				Tuple entry = gridDialect.getTuple(key);
+				if ( entry != null ) {
+					resultset.addTuple( entry );
+					rowIds.add( ids[0] );
+				}
+			}
+			else {
+				final EntityKey[] keys = new EntityKey[ids.length];
+				for ( int index = 0 ; index < ids.length ; index++ ) {
+					keys[index] = new EntityKeyBuilder()
+							.entityPersister( getEntityPersisters()[0] )
+							.id( ids[index] )
+							.getKey();
+				}
+				final Tuple[] entries = gridDialect.getTuples( keys );
+				for ( int index = 0 ; index < entries.length ; index++ ) {
+					if ( entries[index] != null ) {
+						resultset.addTuple( entries[index] );
+						rowIds.add( ids[index] );
+					}
+				}
 			}
 		}
 		else {
+			final Serializable id = ids[0];
 			//collection persister
 			if ( getCollectionPersisters().length != 1 ) {
 				throw new AssertionFailure( "Found an unexpected number of collection persisters: " + getCollectionPersisters().length );
@@ -412,6 +488,7 @@ public class OgmLoader implements UniqueEntityLoader {
 				.gridDialect(gridDialect)
 				.tableName(persister.getTableName())
 				.key( id )
+				.ownerEntityKey( persister.getOwnerEntityKey( id ) )
 				.keyColumnNames( persister.getKeyColumnNames() )
 				.keyGridType( persister.getKeyGridType() )
 				.session( session );
@@ -433,7 +510,7 @@ public class OgmLoader implements UniqueEntityLoader {
 
 	}
 
-	private void readCollectionElements(Object[] row, ResultSet resultSet, SessionImplementor session)
+	private void readCollectionElements(Object[] row, Tuple tuple, ResultSet resultSet, SessionImplementor session)
 			throws HibernateException, SQLException {
 		//TODO: make this handle multiple collection roles!
 
@@ -470,6 +547,7 @@ public class OgmLoader implements UniqueEntityLoader {
 						key,
 						collectionPersister,
 						descriptors[i],
+						tuple,
 						resultSet, //TODO CURRENT must use the same instance across all calls
 						session
 					);
@@ -488,15 +566,15 @@ public class OgmLoader implements UniqueEntityLoader {
 		final Serializable optionalKey,
 		final CollectionPersister persister,
 		final CollectionAliases descriptor,
+		final Tuple tuple,
 		final ResultSet rs,
 		final SessionImplementor session)
 				throws HibernateException, SQLException {
 
 		final PersistenceContext persistenceContext = session.getPersistenceContext();
 
-		//implement persister.readKey using the grid type (later)
-		final Serializable collectionRowKey = (Serializable) persister.readKey(
-				rs,
+		final Serializable collectionRowKey = (Serializable) ( (CollectionPhysicalModel) persister ).readKey(
+				tuple,
 				descriptor.getSuffixedKeyAliases(),
 				session
 			);
@@ -20,6 +20,11 @@
  */
 package org.hibernate.ogm.persister;
 
+import java.io.Serializable;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.grid.EntityKey;
 import org.hibernate.ogm.type.GridType;
 import org.hibernate.persister.collection.CollectionPersister;
 
@@ -55,4 +60,30 @@ public interface CollectionPhysicalModel extends CollectionPersister {
 	public GridType getKeyGridType();
 
 	public GridType getElementGridType();
+
+	/**
+	 * The key of the entity owning the collection of the given key, null if the collection rows
+	 * are not tied to the owner
+	 */
+	public EntityKey getOwnerEntityKey(Serializable key);
+
+	/**
+	 * Read the key of the collection from the given tuple, see {@link #readKey(java.sql.ResultSet, String[], SessionImplementor)}
+	 */
+	public Object readKey(Tuple tuple, String[] aliases, SessionImplementor session);
+
+	/**
+	 * Read the element of the collection from the given tuple
+	 */
+	public Object readElement(Tuple tuple, Object owner, String[] aliases, SessionImplementor session);
+
+	/**
+	 * Read the identifier of the collection row from the given tuple
+	 */
+	public Object readIdentifier(Tuple tuple, String alias, SessionImplementor session);
+
+	/**
+	 * Read the index of the collection row from the given tuple
+	 */
+	public Object readIndex(Tuple tuple, String[] aliases, SessionImplementor session);
 }
@@ -33,8 +33,6 @@ import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.hibernate.ogm.util.impl.LogicalPhysicalConverterHelper;
 import org.hibernate.ogm.util.impl.PropertyMetadataProvider;
 import org.hibernate.pretty.MessageHelper;
-import org.hibernate.tuple.entity.EntityMetamodel;
-import org.hibernate.type.Type;
 
 import java.io.Serializable;
 
@@ -54,6 +52,7 @@ class EntityDehydrator {
 	private boolean addPropertyMetadata = true;
 	private boolean dehydrate = true;
 	private boolean removePropertyMetadata = true;
+	private boolean onlyIncludedPropertiesMetadata = false;
 	private GridType gridIdentifierType;
 	private GridDialect gridDialect;
 
@@ -123,57 +122,61 @@ class EntityDehydrator {
 		return this;
 	}
 
+	/**
+	 * The property metadata of the properties not included are left untouched:
+	 * their value has not changed
+	 */
+	public EntityDehydrator onlyIncludedPropertiesMetadata() {
+		this.onlyIncludedPropertiesMetadata = true;
+		return this;
+	}
+
 	public void dehydrate() {
 		if ( log.isTraceEnabled() ) {
 			log.trace( "Dehydrating entity: " + MessageHelper.infoString( persister, id, persister.getFactory() ) );
 		}
-		final EntityMetamodel entityMetamodel = persister.getEntityMetamodel();
-		final boolean[] uniqueness = persister.getPropertyUniqueness();
-		final Type[] propertyTypes = persister.getPropertyTypes();
-		for ( int propertyIndex = 0; propertyIndex < entityMetamodel.getPropertySpan(); propertyIndex++ ) {
-			if ( persister.isPropertyOfTable( propertyIndex, tableIndex ) ) {
-				final Type propertyType = propertyTypes[propertyIndex];
-				boolean isStarToOne = propertyType.isAssociationType() && ! propertyType.isCollectionType();
-				final boolean createMetadata = isStarToOne || uniqueness[propertyIndex];
-				if ( removePropertyMetadata && createMetadata ) {
-					//remove from property cache
-					Object[] oldColumnValues = LogicalPhysicalConverterHelper.getColumnValuesFromResultset(
-							resultset,
-							persister.getPropertyColumnNames( propertyIndex )
-					);
-					//don't index null columns, this means no association
-					if ( ! isEmptyOrAllColumnsNull( oldColumnValues ) ) {
-						doRemovePropertyMetadata(
-								tableIndex,
-								propertyIndex,
-								oldColumnValues);
-					}
+		for ( int propertyIndex : persister.getPropertyIndexesOfTable( tableIndex ) ) {
+			final String[] columnNames = persister.getGridPropertyColumnNames( propertyIndex );
+			final boolean createMetadata = persister.isPropertyMetadataMaintained( propertyIndex )
+					&& ( !onlyIncludedPropertiesMetadata || includeProperties[propertyIndex] );
+			if ( removePropertyMetadata && createMetadata ) {
+				//remove from property cache
+				Object[] oldColumnValues = LogicalPhysicalConverterHelper.getColumnValuesFromResultset(
+						resultset,
+						columnNames
+				);
+				//don't index null columns, this means no association
+				if ( ! isEmptyOrAllColumnsNull( oldColumnValues ) ) {
+					doRemovePropertyMetadata(
+							tableIndex,
+							propertyIndex,
+							oldColumnValues);
 				}
+			}
 
-				if ( dehydrate && includeProperties[propertyIndex] ) {
-					//dehydrate
-					gridPropertyTypes[propertyIndex].nullSafeSet(
-							resultset,
-							fields[propertyIndex],
-							persister.getPropertyColumnNames( propertyIndex ),
-							includeColumns[propertyIndex],
-							session
-					);
-				}
+			if ( dehydrate && includeProperties[propertyIndex] ) {
+				//dehydrate
+				gridPropertyTypes[propertyIndex].nullSafeSet(
+						resultset,
+						fields[propertyIndex],
+						columnNames,
+						includeColumns[propertyIndex],
+						session
+				);
+			}
 
-				if ( addPropertyMetadata && createMetadata ) {
-					//add to property cache
-					Object[] newColumnValues = LogicalPhysicalConverterHelper.getColumnValuesFromResultset(
-							resultset,
-							persister.getPropertyColumnNames( propertyIndex )
-					);
-					//don't index null columns, this means no association
-					if ( ! isEmptyOrAllColumnsNull( newColumnValues ) ) {
-						doAddPropertyMetadata(
-								tableIndex,
-								propertyIndex,
-								newColumnValues);
-					}
+			if ( addPropertyMetadata && createMetadata ) {
+				//add to property cache
+				Object[] newColumnValues = LogicalPhysicalConverterHelper.getColumnValuesFromResultset(
+						resultset,
+						columnNames
+				);
+				//don't index null columns, this means no association
+				if ( ! isEmptyOrAllColumnsNull( newColumnValues ) ) {
+					doAddPropertyMetadata(
+							tableIndex,
+							propertyIndex,
+							newColumnValues);
 				}
 			}
 		}
@@ -185,7 +188,7 @@ class EntityDehydrator {
 
 		PropertyMetadataProvider metadataProvider = new PropertyMetadataProvider()
 				.gridDialect(gridDialect)
-				.keyColumnNames( persister.getPropertyColumnNames( propertyIndex ) )
+				.keyColumnNames( persister.getGridPropertyColumnNames( propertyIndex ) )
 				.keyColumnValues( newColumnValue )
 				.session( session )
 				.tableName( persister.getTableName( tableIndex ) );
@@ -197,7 +200,7 @@ class EntityDehydrator {
 		gridPropertyTypes[propertyIndex].nullSafeSet(
 							tuple,
 							fields[propertyIndex],
-							persister.getPropertyColumnNames( propertyIndex ),
+							persister.getGridPropertyColumnNames( propertyIndex ),
 							includeColumns[propertyIndex],
 							session
 					);
@@ -218,7 +221,7 @@ class EntityDehydrator {
 										Object[] oldColumnValue) {
 		PropertyMetadataProvider metadataProvider = new PropertyMetadataProvider()
 				.gridDialect(gridDialect)
-				.keyColumnNames( persister.getPropertyColumnNames( propertyIndex ) )
+				.keyColumnNames( persister.getGridPropertyColumnNames( propertyIndex ) )
 				.keyColumnValues( oldColumnValue )
 				.session( session )
 				.tableName( persister.getTableName( tableIndex ) );
@@ -35,9 +35,11 @@ import org.hibernate.internal.util.collections.ArrayHelper;
 import org.hibernate.loader.collection.CollectionInitializer;
 import org.hibernate.mapping.Collection;
 import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.datastore.impl.TupleSchemaRegistry;
 import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
 import org.hibernate.ogm.datastore.spi.Association;
 import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.AsyncGridDialect;
 import org.hibernate.ogm.dialect.GridDialect;
 import org.hibernate.ogm.grid.EntityKey;
 import org.hibernate.ogm.grid.RowKey;
@@ -46,6 +48,7 @@ import org.hibernate.ogm.jdbc.TupleAsMapResultSet;
 import org.hibernate.ogm.loader.OgmBasicCollectionLoader;
 import org.hibernate.ogm.type.GridType;
 import org.hibernate.ogm.type.TypeTranslator;
+import org.hibernate.ogm.util.impl.FutureHelper;
 import org.hibernate.ogm.util.impl.Log;
 import org.hibernate.ogm.util.impl.LoggerFactory;
 import org.hibernate.ogm.util.impl.LogicalPhysicalConverterHelper;
@@ -60,7 +63,12 @@ import org.hibernate.type.Type;
 import java.io.Serializable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * CollectionPersister storing the collection in a grid 
@@ -98,6 +106,12 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 			associationType = AssociationType.EMBEDDED_FK_TO_ENTITY;
 			final Type identifierOrUniqueKeyType = ( ( EntityType ) getElementType() ).getIdentifierOrUniqueKeyType( factory );
 			gridTypeOfAssociatedId = typeTranslator.getType( identifierOrUniqueKeyType );
+			//the key and index columns are stored in the tuples of the associated entity
+			TupleSchemaRegistry tupleSchemaRegistry = registry.getService( TupleSchemaRegistry.class );
+			tupleSchemaRegistry.addColumns( getTableName(), getKeyColumnNames() );
+			if ( hasIndex() ) {
+				tupleSchemaRegistry.addColumns( getTableName(), getIndexColumnNames() );
+			}
 		}
 		else if ( collection.isOneToMany() ) {
 			//one to many but not what we expected
@@ -126,33 +140,45 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 	@Override
 	public Object readKey(ResultSet rs, String[] aliases, SessionImplementor session)
 	throws HibernateException, SQLException {
-		final TupleAsMapResultSet resultset = rs.unwrap( TupleAsMapResultSet.class );
-		final Tuple keyTuple = resultset.getTuple();
-		return keyGridType.nullSafeGet( keyTuple, aliases, session, null );
+		return readKey( rs.unwrap( TupleAsMapResultSet.class ).getTuple(), aliases, session );
+	}
+
+	@Override
+	public Object readKey(Tuple tuple, String[] aliases, SessionImplementor session) {
+		return keyGridType.nullSafeGet( tuple, aliases, session, null );
 	}
 
 	@Override
 	public Object readElement(ResultSet rs, Object owner, String[] aliases, SessionImplementor session)
 	throws HibernateException, SQLException {
-		final TupleAsMapResultSet resultset = rs.unwrap( TupleAsMapResultSet.class );
-		final Tuple keyTuple = resultset.getTuple();
-		return elementGridType.nullSafeGet( keyTuple, aliases, session, owner );
+		return readElement( rs.unwrap( TupleAsMapResultSet.class ).getTuple(), owner, aliases, session );
+	}
+
+	@Override
+	public Object readElement(Tuple tuple, Object owner, String[] aliases, SessionImplementor session) {
+		return elementGridType.nullSafeGet( tuple, aliases, session, owner );
 	}
 
 	@Override
 	public Object readIdentifier(ResultSet rs, String alias, SessionImplementor session)
 			throws HibernateException, SQLException {
-		final TupleAsMapResultSet resultset = rs.unwrap( TupleAsMapResultSet.class );
-		final Tuple keyTuple = resultset.getTuple();
-		return identifierGridType.nullSafeGet( keyTuple, alias, session, null );
+		return readIdentifier( rs.unwrap( TupleAsMapResultSet.class ).getTuple(), alias, session );
+	}
+
+	@Override
+	public Object readIdentifier(Tuple tuple, String alias, SessionImplementor session) {
+		return identifierGridType.nullSafeGet( tuple, alias, session, null );
 	}
 
 	@Override
 	public Object readIndex(ResultSet rs, String[] aliases, SessionImplementor session)
 			throws HibernateException, SQLException {
-		final TupleAsMapResultSet resultset = rs.unwrap( TupleAsMapResultSet.class );
-		final Tuple keyTuple = resultset.getTuple();
-		return indexGridType.nullSafeGet( keyTuple, aliases, session, null );
+		return readIndex( rs.unwrap( TupleAsMapResultSet.class ).getTuple(), aliases, session );
+	}
+
+	@Override
+	public Object readIndex(Tuple tuple, String[] aliases, SessionImplementor session) {
+		return indexGridType.nullSafeGet( tuple, aliases, session, null );
 	}
 
 	@Override
@@ -175,6 +201,19 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 		return elementGridType;
 	}
 
+	@Override
+	public EntityKey getOwnerEntityKey(Serializable key) {
+		//inverse collections share their rows with the navigation metadata maintained from the other side
+		//and a collection referencing a property other than the id cannot find its owner from the key
+		if ( isInverse || getCollectionType().getLHSPropertyName() != null ) {
+			return null;
+		}
+		return new EntityKeyBuilder()
+				.entityPersister( (OgmEntityPersister) getOwnerEntityPersister() )
+				.id( key )
+				.getKey();
+	}
+
 	@Override
 	public boolean isOneToMany() {
 		return oneToMany;
@@ -223,6 +262,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 				.gridDialect(gridDialect)
 				.tableName( getTableName() )
 				.key( key )
+				.ownerEntityKey( getOwnerEntityKey( key ) )
 				.keyColumnNames( getKeyColumnNames() )
 				.keyGridType( getKeyGridType() )
 				.session( session );
@@ -239,7 +279,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 				}
 				//update the matching element
 				//FIXME update the associated entity key data
-				updateInverseSideOfAssociationNavigation( session, assocEntryTuple, Action.REMOVE, assocEntryKey );
+				updateInverseSideOfAssociationNavigation( session, assocEntryTuple, Action.REMOVE, assocEntryKey, null );
 
 				getElementGridType().nullSafeSet(
 						assocEntryTuple,
@@ -248,7 +288,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 						session
 				);
 
-				updateInverseSideOfAssociationNavigation( session, assocEntryTuple, Action.ADD, assocEntryKey );
+				updateInverseSideOfAssociationNavigation( session, assocEntryTuple, Action.ADD, assocEntryKey, null );
 
 				count++;
 			}
@@ -307,6 +347,14 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 	private static class RowKeyAndTuple {
 		RowKey key;
 		Tuple tuple;
+
+		RowKeyAndTuple() {
+		}
+
+		RowKeyAndTuple(RowKey key, Tuple tuple) {
+			this.key = key;
+			this.tuple = tuple;
+		}
 	}
 
 	private RowKey getTupleKeyForUpdate(Serializable key, PersistentCollection collection, SessionImplementor session, int i, Object entry) {
@@ -382,6 +430,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 	public int getSize(Serializable key, SessionImplementor session) {
 		PropertyMetadataProvider metadataProvider = new PropertyMetadataProvider()
 				.key(key)
+				.ownerEntityKey( getOwnerEntityKey( key ) )
 				.tableName(getTableName())
 				.session(session)
 				.gridDialect(gridDialect)
@@ -412,6 +461,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 				.gridDialect(gridDialect)
 				.tableName( getTableName() )
 				.key( id )
+				.ownerEntityKey( getOwnerEntityKey( id ) )
 				.keyColumnNames( getKeyColumnNames() )
 				.keyGridType( getKeyGridType() )
 				.session( session );
@@ -419,6 +469,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 			//delete all the deleted entries
 			Iterator deletes = collection.getDeletes( this, !deleteByIndex );
 			if ( deletes.hasNext() ) {
+				List<RowKeyAndTuple> deletedRows = new ArrayList<RowKeyAndTuple>();
 				int count = 0;
 				while ( deletes.hasNext() ) {
 					Object entry = deletes.next();
@@ -432,7 +483,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 								"table {" + getTableName() + "} collectionKey {" + id + "} entry {" + entry + "}" );
 					}
 					//delete the tuple
-					updateInverseSideOfAssociationNavigation( session, assocEntryTuple, Action.REMOVE, assocEntryKey );
+					deletedRows.add( new RowKeyAndTuple( assocEntryKey, assocEntryTuple ) );
 					metadataProvider.getCollectionMetadata().remove( assocEntryKey );
 
 					count++;
@@ -441,6 +492,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 						log.debug( "done deleting collection rows: " + count + " deleted" );
 					}
 				}
+				updateInverseSideOfAssociationNavigation( session, deletedRows, Action.REMOVE );
 				metadataProvider.flushToCache();
 			}
 			else {
@@ -466,6 +518,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 				.gridDialect(gridDialect)
 				.tableName(getTableName())
 				.key( id )
+				.ownerEntityKey( getOwnerEntityKey( id ) )
 				.keyColumnNames( getKeyColumnNames() )
 				.keyGridType( getKeyGridType() )
 				.session( session );
@@ -473,6 +526,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 			//insert all the new entries
 			collection.preInsert( this );
 			Iterator entries = collection.entries( this );
+			List<RowKeyAndTuple> insertedRows = new ArrayList<RowKeyAndTuple>();
 			int i = 0;
 			int count = 0;
 			while ( entries.hasNext() ) {
@@ -488,12 +542,13 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 							entry
 					);
 					completeTuple( keyAndTuple, collection, session, entry );
-					updateInverseSideOfAssociationNavigation( session, keyAndTuple.tuple, Action.ADD, keyAndTuple.key );
+					insertedRows.add( keyAndTuple );
 					collection.afterRowInsert( this, entry, i );
 					count++;
 				}
 				i++;
 			}
+			updateInverseSideOfAssociationNavigation( session, insertedRows, Action.ADD );
 			metadataProvider.flushToCache();
 			if ( log.isDebugEnabled() ) {
 				log.debug( "done inserting rows: " + count + " inserted" );
@@ -518,6 +573,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 				.gridDialect(gridDialect)
 				.tableName( getTableName() )
 				.key( id )
+				.ownerEntityKey( getOwnerEntityKey( id ) )
 				.keyColumnNames( getKeyColumnNames() )
 				.keyGridType( getKeyGridType() )
 				.session( session );
@@ -526,6 +582,7 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 			Iterator entries = collection.entries(this);
 			if ( entries.hasNext() ) {
 				collection.preInsert( this );
+				List<RowKeyAndTuple> insertedRows = new ArrayList<RowKeyAndTuple>();
 				int i = 0;
 				int count = 0;
 				while ( entries.hasNext() ) {
@@ -541,12 +598,13 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 							entry
 						);
 						completeTuple( keyAndTuple, collection, session, entry );
-						updateInverseSideOfAssociationNavigation( session, keyAndTuple.tuple, Action.ADD, keyAndTuple.key );
+						insertedRows.add( keyAndTuple );
 						collection.afterRowInsert( this, entry, i );
 						count++;
 					}
 					i++;
 				}
+				updateInverseSideOfAssociationNavigation( session, insertedRows, Action.ADD );
 				metadataProvider.flushToCache();
 				if ( log.isDebugEnabled() ) {
 					log.debug( "done inserting collection: " + count + " rows inserted" );
@@ -561,15 +619,52 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 		}
 	}
 
-	private void updateInverseSideOfAssociationNavigation(SessionImplementor session, Tuple tuple, Action action, RowKey rowKey) {
+	private void updateInverseSideOfAssociationNavigation(SessionImplementor session, List<RowKeyAndTuple> rows, Action action) {
+		final Map<EntityKey, Future<Tuple>> entityTuples = readInverseSideEntityTuples( session, rows );
+		for ( RowKeyAndTuple row : rows ) {
+			updateInverseSideOfAssociationNavigation( session, row.tuple, action, row.key, entityTuples );
+		}
+	}
+
+	/**
+	 * Start reading the entity tuples pointed to by the rows of a one to many association all at once
+	 * instead of waiting for each of them in turn.
+	 * Returns null if the reads cannot overlap.
+	 */
+	private Map<EntityKey, Future<Tuple>> readInverseSideEntityTuples(SessionImplementor session, List<RowKeyAndTuple> rows) {
+		if ( associationType != AssociationType.EMBEDDED_FK_TO_ENTITY
+				|| rows.size() < 2
+				|| !( gridDialect instanceof AsyncGridDialect ) ) {
+			return null;
+		}
+		final AsyncGridDialect asyncGridDialect = (AsyncGridDialect) gridDialect;
+		final Map<EntityKey, Future<Tuple>> entityTuples = new HashMap<EntityKey, Future<Tuple>>( rows.size() );
+		for ( RowKeyAndTuple row : rows ) {
+			final EntityKey entityKey = getInverseSideEntityKey( session, row.tuple );
+			if ( !entityTuples.containsKey( entityKey ) ) {
+				entityTuples.put( entityKey, asyncGridDialect.getTupleAsync( entityKey ) );
+			}
+		}
+		return entityTuples;
+	}
+
+	private EntityKey getInverseSideEntityKey(SessionImplementor session, Tuple tuple) {
+		Serializable entityId = (Serializable) gridTypeOfAssociatedId.nullSafeGet( tuple, getElementColumnNames(), session, null );
+		return new EntityKeyBuilder()
+				.entityPersister( ( OgmEntityPersister ) getElementPersister() )
+				.id( entityId )
+				.getKey();
+	}
+
+	private void updateInverseSideOfAssociationNavigation(SessionImplementor session, Tuple tuple, Action action, RowKey rowKey,
+														  Map<EntityKey, Future<Tuple>> entityTuples) {
 		if ( associationType == AssociationType.EMBEDDED_FK_TO_ENTITY ) {
 			//update the associated object
-			Serializable entityId = (Serializable) gridTypeOfAssociatedId.nullSafeGet( tuple, getElementColumnNames(), session, null );
-			final EntityKey entityKey = new EntityKeyBuilder()
-					.entityPersister( ( OgmEntityPersister ) getElementPersister() )
-					.id( entityId )
-					.getKey();
-			final Tuple entityTuple = gridDialect.getTuple( entityKey );
+			final EntityKey entityKey = getInverseSideEntityKey( session, tuple );
+			final Future<Tuple> entityTupleRead = entityTuples == null ? null : entityTuples.get( entityKey );
+			final Tuple entityTuple = entityTupleRead == null ?
+					gridDialect.getTuple( entityKey ) :
+					FutureHelper.get( entityTupleRead, entityKey );
 			//the entity tuple could already be gone (not 100% sure this can happen but that feels right)
 			if (entityTuple == null) {
 				return;
@@ -651,20 +746,21 @@ public class OgmCollectionPersister extends AbstractCollectionPersister implemen
 				.gridDialect(gridDialect)
 				.tableName( getTableName() )
 				.key( id )
+				.ownerEntityKey( getOwnerEntityKey( id ) )
 				.keyColumnNames( getKeyColumnNames() )
 				.keyGridType( getKeyGridType() )
 				.session( session );
 
 			//shortcut to avoid loop if we can
 			if (associationType != AssociationType.OTHER) {
+				List<RowKeyAndTuple> removedRows = new ArrayList<RowKeyAndTuple>();
 				for ( RowKey assocEntryKey : metadataProvider.getCollectionMetadata().getKeys() ) {
-					//we unfortunately cannot mass change the update of the associated entity
-					updateInverseSideOfAssociationNavigation(
-							session,
-							metadataProvider.getCollectionMetadata().get( assocEntryKey ),
-							Action.REMOVE,
-							assocEntryKey );
+					removedRows.add( new RowKeyAndTuple(
+							assocEntryKey,
+							metadataProvider.getCollectionMetadata().get( assocEntryKey ) ) );
 				}
+				//we unfortunately cannot mass change the update of the associated entity
+				updateInverseSideOfAssociationNavigation( session, removedRows, Action.REMOVE );
 			}
 			metadataProvider.getCollectionMetadata().clear();
 			metadataProvider.flushToCache();
@@ -22,12 +22,15 @@ package org.hibernate.ogm.persister;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 
 import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.impl.TupleSchemaRegistry;
 import org.hibernate.service.spi.ServiceRegistryImplementor;
 
 import org.hibernate.AssertionFailure;
@@ -55,10 +58,13 @@ import org.hibernate.mapping.PersistentClass;
 import org.hibernate.mapping.Subclass;
 import org.hibernate.mapping.Table;
 import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.IndexedTuple;
 import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.datastore.spi.TupleSchema;
 import org.hibernate.ogm.dialect.GridDialect;
 import org.hibernate.ogm.exception.NotSupportedException;
 import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.loader.OgmBatchingEntityLoader;
 import org.hibernate.ogm.loader.OgmLoader;
 import org.hibernate.ogm.type.GridType;
 import org.hibernate.ogm.type.TypeTranslator;
@@ -97,7 +103,22 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 	private final GridType[] gridPropertyTypes;
 	private final GridType gridVersionType;
 	private final GridType gridIdentifierType;
+	/**
+	 * Whether the value of each property is indexed in the grid, see {@link #isPropertyMetadataMaintained(int)}
+	 */
+	private final boolean[] propertyMetadataMaintained;
+	/**
+	 * Column names of each property and indexes of the properties of each table,
+	 * computed once in {@link #postInstantiate()} instead of for every (de)hydrated entity.
+	 * A class generated per entity would only save the array reads: the property values still go
+	 * through the tuplizer and the GridType conversions, which are shared with Hibernate Core.
+	 */
+	private String[][] gridPropertyColumnNames;
+	private int[][] tablePropertyIndexes;
+	private final int batchSize;
 	private Object discriminatorValue;
+	private final TupleSchemaRegistry tupleSchemaRegistry;
+	private TupleSchema tupleSchema;
 
 	//service references
 	private final GridDialect gridDialect;
@@ -120,6 +141,7 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 				factory.getSettings().getDefaultCatalogName(),
 				factory.getSettings().getDefaultSchemaName()
 		);
+		batchSize = persistentClass.getBatchSize();
 		discriminatorValue = persistentClass.getSubclassId();
 		discriminatorSQLValue = String.valueOf( persistentClass.getSubclassId() );
 
@@ -215,10 +237,65 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 		}
 		gridVersionType = typeTranslator.getType( getVersionType() );
 		gridIdentifierType = typeTranslator.getType( getIdentifierType() ); 
+
+		//computed once instead of for every dehydrated entity
+		final boolean[] uniqueness = getPropertyUniqueness();
+		propertyMetadataMaintained = new boolean[length];
+		for (int index = 0 ; index < length ; index++) {
+			final boolean isStarToOne = types[index].isAssociationType() && ! types[index].isCollectionType();
+			propertyMetadataMaintained[index] = isStarToOne || uniqueness[index];
+		}
+
+		//columns of the tuples, used by the compact tuple encodings and IndexedTuple
+		tupleSchemaRegistry = serviceRegistry.getService( TupleSchemaRegistry.class );
+		tupleSchemaRegistry.addColumns( tableName, getIdentifierColumnNames() );
+		for (int index = 0 ; index < length ; index++) {
+			tupleSchemaRegistry.addColumns( tableName, getPropertyColumnNames( index ) );
+		}
+	}
+
+	/**
+	 * The value of *-to-one and unique properties is indexed in an association
+	 * so that the owning entities can be found from it
+	 */
+	boolean isPropertyMetadataMaintained(int propertyIndex) {
+		return propertyMetadataMaintained[propertyIndex];
+	}
+
+	/**
+	 * The column names of a property, as used to read and write the tuples
+	 */
+	String[] getGridPropertyColumnNames(int propertyIndex) {
+		return gridPropertyColumnNames[propertyIndex];
+	}
+
+	/**
+	 * The indexes of the properties stored in a table
+	 */
+	int[] getPropertyIndexesOfTable(int tableIndex) {
+		return tablePropertyIndexes[tableIndex];
 	}
 
 	//FIXME finish implement postInstantiate
 	public void postInstantiate() {
+		//all the persisters have declared their columns by now
+		tupleSchema = tupleSchemaRegistry.getSchema( tableName );
+		final int propertySpan = getEntityMetamodel().getPropertySpan();
+		gridPropertyColumnNames = new String[propertySpan][];
+		for ( int propertyIndex = 0; propertyIndex < propertySpan; propertyIndex++ ) {
+			gridPropertyColumnNames[propertyIndex] = getPropertyAliases( "", propertyIndex );
+		}
+		tablePropertyIndexes = new int[getTableSpan()][];
+		for ( int tableIndex = 0; tableIndex < tablePropertyIndexes.length; tableIndex++ ) {
+			final int[] propertyIndexes = new int[propertySpan];
+			int count = 0;
+			for ( int propertyIndex = 0; propertyIndex < propertySpan; propertyIndex++ ) {
+				if ( isPropertyOfTable( propertyIndex, tableIndex ) ) {
+					propertyIndexes[count++] = propertyIndex;
+				}
+			}
+			tablePropertyIndexes[tableIndex] = Arrays.copyOf( propertyIndexes, count );
+		}
 		createLoaders();
 		//createUniqueKeyLoaders();
 		createQueryLoader();
@@ -252,7 +329,7 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 		boolean[] includeProperty = getPropertyUpdateability();
 		for ( int i = 0; i < types.length; i++ ) {
 			if ( includeProperty[i] ) {
-				values[i] = types[i].hydrate( resultset, getPropertyAliases( "", i ), session, null ); //null owner ok??
+				values[i] = types[i].hydrate( resultset, gridPropertyColumnNames[i], session, null ); //null owner ok??
 			}
 		}
 		return values;
@@ -339,6 +416,24 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 		}
 	}
 
+	/**
+	 * Retrieve the version numbers of several entities at once, null for the entities not found
+	 */
+	public Object[] getCurrentVersions(Serializable[] ids, SessionImplementor session) {
+		final EntityKey[] keys = new EntityKey[ids.length];
+		for ( int index = 0 ; index < ids.length ; index++ ) {
+			keys[index] = new EntityKeyBuilder().entityPersister( this ).id( ids[index] ).getKey();
+		}
+		final Tuple[] resultsets = gridDialect.getTuples( keys );
+		final Object[] versions = new Object[ids.length];
+		for ( int index = 0 ; index < ids.length ; index++ ) {
+			if ( resultsets[index] != null ) {
+				versions[index] = gridVersionType.nullSafeGet( resultsets[index], getVersionColumnName(), session, null );
+			}
+		}
+		return versions;
+	}
+
 	@Override
 	public Object forceVersionIncrement(Serializable id, Object currentVersion, SessionImplementor session) {
 		if ( !isVersioned() ) {
@@ -361,15 +456,13 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 		}
 
 		/*
-		 * We get the value from the grid and compare the version values before putting the next version in
-		 * Contrary to the database version, there is 
-		 * TODO should we use cache.replace() it seems more expensive to pass the resultset around "just" the atomicity of the operation
+		 * The next version is written only if the grid still holds the current one,
+		 * the dialect compares and writes in one operation
 		 */
 		final EntityKey key = new EntityKeyBuilder().entityPersister( this ).id(id).getKey();
-		final Tuple resultset = gridDialect.getTuple( key );
-		checkVersionAndRaiseSOSE(id, currentVersion, session, resultset);
+		final Tuple resultset = new Tuple( EmptyTupleSnapshot.SINGLETON );
 		gridVersionType.nullSafeSet( resultset, nextVersion, new String[] { getVersionColumnName() }, session );
-		gridDialect.updateTuple( resultset, key );
+		updateTupleIfVersionOrRaiseSOSE( id, currentVersion, session, resultset, key );
 		return nextVersion;
 	}
 
@@ -495,14 +588,23 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 	protected UniqueEntityLoader createEntityLoader(LockMode lockMode, LoadQueryInfluencers loadQueryInfluencers)
 			throws MappingException {
 		//FIXME add support to lock mode and loadQueryInfluencers
-		return new OgmLoader( new OgmEntityPersister[] { this } );
+		return createEntityLoader();
 	}
 
 	@Override
 	protected UniqueEntityLoader createEntityLoader(LockOptions lockOptions, LoadQueryInfluencers loadQueryInfluencers)
 			throws MappingException {
 		//FIXME add support to lock options and loadQueryInfluencers
-		return new OgmLoader( new OgmEntityPersister[] { this } );
+		return createEntityLoader();
+	}
+
+	private UniqueEntityLoader createEntityLoader() {
+		if ( batchSize > 1 ) {
+			return new OgmBatchingEntityLoader( this, batchSize );
+		}
+		else {
+			return new OgmLoader( new OgmEntityPersister[] { this } );
+		}
 	}
 
 	@Override
@@ -593,17 +695,8 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 			else {
 				//FIXME We don't handle deferred property yet
 				//final ResultSet propertyResultSet = propertyIsDeferred ? sequentialResultSet : rs;
-				GridType[] gridTypes = gridPropertyTypes;
-				final String[] cols;
-				if ( propertyIsDeferred ) {
-					cols = getPropertyAliases( "", index );
-				}
-				else {
-					//TODO What to do?
-					//: suffixedPropertyColumns[i];
-					cols = getPropertyAliases( "", index );
-				}
-				value = gridTypes[index].hydrate( resultset, cols, session, object ); //null owner ok??
+				//TODO What to do with suffixedPropertyColumns[i]?
+				value = gridPropertyTypes[index].hydrate( resultset, gridPropertyColumnNames[index], session, object ); //null owner ok??
 			}
 		}
 		else {
@@ -710,20 +803,23 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 			// Now update only the tables with dirty properties (and the table with the version number)
 			if ( tableUpdateNeeded[j] ) {
 				final EntityKey key = new EntityKeyBuilder().entityPersister( this ).id(id).getKey();
-				Tuple resultset = gridDialect.getTuple( key );
 				final boolean useVersion = j == 0 && isVersioned();
-
-				resultset = createNewResultSetIfNull( key, resultset, id, session );
-
 				final EntityMetamodel entityMetamodel = getEntityMetamodel();
 
 				// Write any appropriate versioning conditional parameters
-				if ( useVersion && entityMetamodel.getOptimisticLockStyle() == OptimisticLockStyle.VERSION ) {
-					if ( checkVersion( propsToUpdate ) ) {
-						checkVersionAndRaiseSOSE( id, oldVersion, session, resultset );
-					}
+				final boolean conditionalUpdate = useVersion
+						&& entityMetamodel.getOptimisticLockStyle() == OptimisticLockStyle.VERSION
+						&& checkVersion( propsToUpdate );
+				final Tuple resultset;
+				if ( conditionalUpdate && !isPropertyMetadataToUpdate( propsToUpdate, j ) ) {
+					//the dialect applies the dirty columns to the stored tuple once the version is checked:
+					//nothing needs the current state of the tuple
+					resultset = toIndexedTuple( new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+				}
+				else {
+					resultset = createNewResultSetIfNull( key, gridDialect.getTuple( key ), id, session );
 				}
-				else if ( isAllOrDirtyOptLocking() && oldFields != null ) {
+				if ( isAllOrDirtyOptLocking() && oldFields != null ) {
 					boolean[] versionability = getPropertyVersionability(); //TODO: is this really necessary????
 					boolean[] includeOldField = entityMetamodel.getOptimisticLockStyle() == OptimisticLockStyle.ALL
 							? getPropertyUpdateability()
@@ -754,12 +850,33 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 				}
 
 				//dehydrate
-				dehydrate(resultset, fields, propsToUpdate, getPropertyColumnUpdateable(), j, id, session );
-				gridDialect.updateTuple( resultset, key );
+				//only the dirty properties are written, so the dialect only receives the changed columns
+				dehydrate(resultset, fields, propsToUpdate, getPropertyColumnUpdateable(), j, id, true, session );
+				if ( conditionalUpdate ) {
+					updateTupleIfVersionOrRaiseSOSE( id, oldVersion, session, resultset, key );
+				}
+				else {
+					gridDialect.updateTuple( resultset, key );
+				}
 			}
 		}
 	}
 
+	/**
+	 * Whether one of the updated properties of the table has its value indexed in the grid:
+	 * removing the former index entry needs the current state of the tuple.
+	 */
+	private boolean isPropertyMetadataToUpdate(boolean[] propsToUpdate, int tableIndex) {
+		for ( int propertyIndex = 0; propertyIndex < propsToUpdate.length; propertyIndex++ ) {
+			if ( propsToUpdate[propertyIndex]
+					&& isPropertyMetadataMaintained( propertyIndex )
+					&& isPropertyOfTable( propertyIndex, tableIndex ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	//Copied from AbstractEntityPersister
 	private boolean isAllOrDirtyOptLocking() {
 		EntityMetamodel entityMetamodel = getEntityMetamodel();
@@ -790,6 +907,20 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 		}
 	}
 
+	private void updateTupleIfVersionOrRaiseSOSE(Serializable id, Object oldVersion, SessionImplementor session, Tuple resultset, EntityKey key) {
+		//the version is compared in its grid representation
+		final Tuple expected = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		gridVersionType.nullSafeSet( expected, oldVersion, new String[] { getVersionColumnName() }, session );
+		if ( ! gridDialect.updateTupleIfVersion( resultset, key, getVersionColumnName(), expected.get( getVersionColumnName() ) ) ) {
+			final SessionFactoryImplementor factory = getFactory();
+			if ( factory.getStatistics().isStatisticsEnabled() ) {
+				factory.getStatisticsImplementor()
+						.optimisticFailure( getEntityName() );
+			}
+			throw new StaleObjectStateException( getEntityName(), id );
+		}
+	}
+
 	private void dehydrate(
 			Tuple resultset,
 			final Object[] fields,
@@ -797,8 +928,9 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 			boolean[][] includeColumns,
 			int tableIndex,
 			Serializable id,
+			boolean isUpdate,
 			SessionImplementor session) {
-		new EntityDehydrator()
+		final EntityDehydrator dehydrator = new EntityDehydrator()
 				.fields( fields )
 				.gridPropertyTypes( gridPropertyTypes )
 				.gridIdentifierType( gridIdentifierType )
@@ -809,8 +941,11 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 				.resultset( resultset )
 				.session( session )
 				.tableIndex( tableIndex )
-				.gridDialect( gridDialect )
-				.dehydrate();
+				.gridDialect( gridDialect );
+		if ( isUpdate ) {
+			dehydrator.onlyIncludedPropertiesMetadata();
+		}
+		dehydrator.dehydrate();
 	}
 
 	//TODO copy of AbstractEntityPersister#checkVersion due to visibility
@@ -857,21 +992,26 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 			}
 
 			final EntityKey key = new EntityKeyBuilder().entityPersister( this ).id(id).getKey();
-			Tuple resultset = gridDialect.getTuple( key );
+			final Tuple resultset;
 			// add the discriminator
 			if ( j == 0 ) {
-				if (resultset != null) {
+				//the dialect checks the existence while creating the tuple, no need to read it first
+				Tuple newTuple = gridDialect.createTupleIfAbsent( key );
+				if ( newTuple == null ) {
 					throw new HibernateException( "trying to insert an already existing entity: "
 							+  MessageHelper.infoString( this, id, getFactory() ) );
 				}
 				//TODO add discriminator
 
+				resultset = toIndexedTuple( newTuple );
+				gridIdentifierType.nullSafeSet( resultset, id, getIdentifierColumnNames(), session );
+			}
+			else {
+				resultset = createNewResultSetIfNull( key, gridDialect.getTuple( key ), id, session );
 			}
-
-			resultset = createNewResultSetIfNull( key, resultset, id, session );
 
 			//dehydrate
-			dehydrate(resultset, fields, propertiesToInsert, getPropertyColumnInsertable(), j, id, session );
+			dehydrate(resultset, fields, propertiesToInsert, getPropertyColumnInsertable(), j, id, false, session );
 			gridDialect.updateTuple( resultset, key );
 		}
 	}
@@ -882,10 +1022,21 @@ public class OgmEntityPersister extends AbstractEntityPersister implements Entit
 			Serializable id,
 			SessionImplementor session) {
 		if (resultset == null) {
-			resultset = gridDialect.createTuple(key);
+			resultset = toIndexedTuple( gridDialect.createTuple(key) );
 			gridIdentifierType.nullSafeSet( resultset, id, getIdentifierColumnNames(), session );
+			return resultset;
 		}
-		return resultset;
+		return toIndexedTuple( resultset );
+	}
+
+	/**
+	 * Dehydration sets every column of the tuple: avoid the bookkeeping of a plain Tuple
+	 */
+	private Tuple toIndexedTuple(Tuple tuple) {
+		if ( tupleSchema == null || tuple instanceof IndexedTuple ) {
+			return tuple;
+		}
+		return new IndexedTuple( tupleSchema, tuple );
 	}
 
 	//TODO AbstractEntityPersister#isAllNull copied because of visibility
@@ -23,14 +23,19 @@ package org.hibernate.ogm.service.impl;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.internal.SessionFactoryImpl;
 import org.hibernate.integrator.spi.ServiceContributingIntegrator;
 import org.hibernate.metamodel.source.MetadataImplementor;
 import org.hibernate.ogm.cfg.impl.OgmNamingStrategy;
 import org.hibernate.ogm.cfg.impl.Version;
 import org.hibernate.ogm.datastore.impl.DatastoreProviderInitiator;
 import org.hibernate.ogm.datastore.impl.DatastoreServicesInitiator;
+import org.hibernate.ogm.datastore.impl.TupleSchemaRegistryInitiator;
 import org.hibernate.ogm.dialect.OgmDialectFactoryInitiator;
+import org.hibernate.ogm.dialect.impl.FlushBatchingInstaller;
 import org.hibernate.ogm.dialect.impl.GridDialectFactoryInitiator;
+import org.hibernate.ogm.id.impl.ClusterUniqueIdGeneratorInitializer;
+import org.hibernate.ogm.id.impl.IdentifierBlockReservationCloser;
 import org.hibernate.ogm.jdbc.OgmConnectionProviderInitiator;
 import org.hibernate.ogm.jpa.impl.OgmPersisterClassResolverInitiator;
 import org.hibernate.ogm.transaction.impl.OgmJtaPlatformInitiator;
@@ -48,6 +53,8 @@ import org.hibernate.service.spi.SessionFactoryServiceRegistry;
  * - replace ConnectionProvider
  * - replace DialectFactory
  * - replace (if not provided by the user) NamingStrategy
+ * - batch the grid operations of each flush
+ * - give the cluster unique identifier generators their node index
  *
  * Also enfore an OGM NamingStrategy
  *
@@ -58,6 +65,30 @@ public class OgmIntegrator implements Integrator, ServiceContributingIntegrator
 	public void integrate(Configuration configuration, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
 		Version.touch();
 		configuration.setNamingStrategy( OgmNamingStrategy.INSTANCE );
+		addFlushBatching( sessionFactory );
+		addIdentifierGeneratorInitialization( sessionFactory );
+		addIdentifierBlockReservationClosing( sessionFactory );
+	}
+
+	private void addFlushBatching(SessionFactoryImplementor sessionFactory) {
+		//other integrators may replace the flush listeners after us: wrap them once the factory is built
+		if ( sessionFactory instanceof SessionFactoryImpl ) {
+			( (SessionFactoryImpl) sessionFactory ).addObserver( new FlushBatchingInstaller() );
+		}
+	}
+
+	private void addIdentifierGeneratorInitialization(SessionFactoryImplementor sessionFactory) {
+		//identifier generators are created after the integrators have run
+		if ( sessionFactory instanceof SessionFactoryImpl ) {
+			( (SessionFactoryImpl) sessionFactory ).addObserver( new ClusterUniqueIdGeneratorInitializer() );
+		}
+	}
+
+	private void addIdentifierBlockReservationClosing(SessionFactoryImplementor sessionFactory) {
+		//the reservations prefetch identifier blocks from their own thread
+		if ( sessionFactory instanceof SessionFactoryImpl ) {
+			( (SessionFactoryImpl) sessionFactory ).addObserver( new IdentifierBlockReservationCloser() );
+		}
 	}
 
 	@Override
@@ -82,5 +113,6 @@ public class OgmIntegrator implements Integrator, ServiceContributingIntegrator
 		serviceRegistryBuilder.addInitiator( DatastoreServicesInitiator.INSTANCE );
 		serviceRegistryBuilder.addInitiator( GridDialectFactoryInitiator.INSTANCE );
 		serviceRegistryBuilder.addInitiator( TypeTranslatorInitiator.INSTANCE );
+		serviceRegistryBuilder.addInitiator( TupleSchemaRegistryInitiator.INSTANCE );
 	}
 }
@@ -0,0 +1,43 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.stat;
+
+/**
+ * Operations of a {@link org.hibernate.ogm.dialect.GridDialect} tracked by the {@link GridStatistics}.
+ *
+ * @author agent <agent@local>
+ */
+public enum GridOperation {
+	GET_TUPLE,
+	GET_TUPLES,
+	CREATE_TUPLE,
+	CREATE_TUPLE_IF_ABSENT,
+	UPDATE_TUPLE,
+	UPDATE_TUPLE_IF_VERSION,
+	REMOVE_TUPLE,
+	FOR_EACH_TUPLE,
+	GET_ASSOCIATION,
+	CREATE_ASSOCIATION,
+	UPDATE_ASSOCIATION,
+	REMOVE_ASSOCIATION,
+	NEXT_VALUE,
+	EXECUTE_BATCH
+}
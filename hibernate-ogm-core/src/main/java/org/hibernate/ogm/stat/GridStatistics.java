@@ -0,0 +1,104 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.stat;
+
+/**
+ * Statistics of the operations executed against the datastore.
+ *
+ * Operations are designated by the name of a {@link GridOperation}.
+ * Counts, times and column or row counts by operation cover the calls waiting for the datastore;
+ * operations gathered in a batch or executed asynchronously are only accounted for
+ * in the counts by table, the batch itself being an {@link GridOperation#EXECUTE_BATCH} operation.
+ *
+ * The column or row count of an operation is the number of columns of the tuples
+ * and the number of rows of the associations read or written.
+ *
+ * This interface is the management interface of the MBean registered for each session factory
+ * under {@code org.hibernate.ogm:type=GridStatistics,sessionFactory=<name or uuid>}.
+ *
+ * @author agent <agent@local>
+ */
+public interface GridStatistics {
+
+	boolean isStatisticsEnabled();
+
+	/**
+	 * Statistics are enabled by default when the grid statistics have been configured
+	 */
+	void setStatisticsEnabled(boolean enabled);
+
+	/**
+	 * Reset all the figures
+	 */
+	void clear();
+
+	/**
+	 * The time the figures have been last reset, in milliseconds
+	 */
+	long getStartTime();
+
+	/**
+	 * The number of operations executed, whatever their type
+	 */
+	long getOperationCount();
+
+	String[] getOperationNames();
+
+	/**
+	 * The tables accessed so far
+	 */
+	String[] getTableNames();
+
+	long getOperationCount(String operation);
+
+	/**
+	 * The cumulated time spent in the given operation, in microseconds
+	 */
+	long getOperationTime(String operation);
+
+	/**
+	 * The cumulated number of columns or rows read or written by the given operation
+	 */
+	long getOperationColumnOrRowCount(String operation);
+
+	/**
+	 * The number of operations by latency: element {@code i} counts the operations
+	 * which took less than {@code 2^i} microseconds and at least half of it,
+	 * the last element counts all the longer operations.
+	 */
+	long[] getOperationLatencyHistogram(String operation);
+
+	/**
+	 * The number of operations of the given type executed on the given table
+	 */
+	long getTableOperationCount(String table, String operation);
+
+	/**
+	 * The number of times an identifier value has been changed concurrently
+	 * and its update had to be tried again, for the dialects updating it optimistically
+	 */
+	long getIdentifierUpdateRetries();
+
+	/**
+	 * Log the figures of the operations executed at least once
+	 */
+	void logSummary();
+}
@@ -0,0 +1,305 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.stat.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.hibernate.ogm.stat.GridOperation;
+import org.hibernate.ogm.stat.GridStatistics;
+import org.hibernate.ogm.util.impl.Log;
+import org.hibernate.ogm.util.impl.LoggerFactory;
+
+/**
+ * Gather the figures of the grid operations in {@link StripedCounters}:
+ * recording an operation takes no lock and allocates nothing once its table is known.
+ *
+ * @author agent <agent@local>
+ */
+public class GridStatisticsImpl implements GridStatistics {
+
+	private static final Log log = LoggerFactory.make();
+
+	private static final GridOperation[] OPERATIONS = GridOperation.values();
+
+	//counters of each operation
+	private static final int COUNT = 0;
+	private static final int TIME = 1;
+	private static final int COLUMNS_OR_ROWS = 2;
+	private static final int HISTOGRAM = 3;
+	//the last bucket gathers the operations longer than 2^22 microseconds, about 4 seconds
+	private static final int BUCKETS = 24;
+
+	private final StripedCounters[] operations = new StripedCounters[OPERATIONS.length];
+	private final ConcurrentMap<String, StripedCounters> tables = new ConcurrentHashMap<String, StripedCounters>();
+	private final AtomicBoolean registrationAttempted = new AtomicBoolean();
+	private volatile ObjectName registeredName;
+	private volatile boolean statisticsEnabled = true;
+	private volatile long startTime = System.currentTimeMillis();
+	private final AtomicLong identifierUpdateRetries = new AtomicLong();
+
+	public GridStatisticsImpl() {
+		for ( int index = 0 ; index < operations.length ; index++ ) {
+			operations[index] = new StripedCounters( HISTOGRAM + BUCKETS );
+		}
+	}
+
+	/**
+	 * Record an operation the caller has waited for
+	 *
+	 * @param table the table accessed, null if the operation is not bound to a single table
+	 * @param start the value of {@link System#nanoTime()} when the operation started
+	 * @param columnsOrRows the number of columns of the tuples or rows of the associations read or written
+	 */
+	public void record(GridOperation operation, String table, long start, long columnsOrRows) {
+		if ( !statisticsEnabled ) {
+			return;
+		}
+		final long elapsed = System.nanoTime() - start;
+		final StripedCounters counters = operations[operation.ordinal()];
+		counters.increment( COUNT );
+		counters.add( TIME, elapsed );
+		counters.add( COLUMNS_OR_ROWS, columnsOrRows );
+		counters.increment( HISTOGRAM + bucket( elapsed ) );
+		if ( table != null ) {
+			getTableCounters( table ).increment( operation.ordinal() );
+		}
+	}
+
+	/**
+	 * Record an operation the caller has waited for, accessing several tables at once
+	 *
+	 * @param tables the tables accessed, the operation is counted once for each of them
+	 * @param start the value of {@link System#nanoTime()} when the operation started
+	 * @param columnsOrRows the number of columns of the tuples or rows of the associations read or written
+	 */
+	public void record(GridOperation operation, Set<String> tables, long start, long columnsOrRows) {
+		if ( !statisticsEnabled ) {
+			return;
+		}
+		record( operation, (String) null, start, columnsOrRows );
+		for ( String table : tables ) {
+			getTableCounters( table ).increment( operation.ordinal() );
+		}
+	}
+
+	/**
+	 * Record an operation executed later on, as part of a batch or asynchronously
+	 */
+	public void recordDeferred(GridOperation operation, String table) {
+		if ( statisticsEnabled ) {
+			getTableCounters( table ).increment( operation.ordinal() );
+		}
+	}
+
+	/**
+	 * Record that an identifier value has been changed concurrently and that its update has to be tried again
+	 */
+	public void recordIdentifierUpdateRetry() {
+		if ( statisticsEnabled ) {
+			identifierUpdateRetries.incrementAndGet();
+		}
+	}
+
+	private StripedCounters getTableCounters(String table) {
+		StripedCounters counters = tables.get( table );
+		if ( counters == null ) {
+			counters = new StripedCounters( OPERATIONS.length );
+			final StripedCounters previous = tables.putIfAbsent( table, counters );
+			if ( previous != null ) {
+				counters = previous;
+			}
+		}
+		return counters;
+	}
+
+	private static int bucket(long nanos) {
+		final long micros = TimeUnit.NANOSECONDS.toMicros( nanos );
+		return Math.min( 64 - Long.numberOfLeadingZeros( micros ), BUCKETS - 1 );
+	}
+
+	@Override
+	public boolean isStatisticsEnabled() {
+		return statisticsEnabled;
+	}
+
+	@Override
+	public void setStatisticsEnabled(boolean enabled) {
+		this.statisticsEnabled = enabled;
+	}
+
+	@Override
+	public void clear() {
+		for ( StripedCounters counters : operations ) {
+			counters.clear();
+		}
+		tables.clear();
+		identifierUpdateRetries.set( 0 );
+		startTime = System.currentTimeMillis();
+	}
+
+	@Override
+	public long getStartTime() {
+		return startTime;
+	}
+
+	@Override
+	public long getOperationCount() {
+		long count = 0;
+		for ( StripedCounters counters : operations ) {
+			count += counters.get( COUNT );
+		}
+		return count;
+	}
+
+	@Override
+	public String[] getOperationNames() {
+		final String[] names = new String[OPERATIONS.length];
+		for ( int index = 0 ; index < names.length ; index++ ) {
+			names[index] = OPERATIONS[index].name();
+		}
+		return names;
+	}
+
+	@Override
+	public String[] getTableNames() {
+		return tables.keySet().toArray( new String[0] );
+	}
+
+	@Override
+	public long getOperationCount(String operation) {
+		return getOperationCounters( operation ).get( COUNT );
+	}
+
+	@Override
+	public long getOperationTime(String operation) {
+		return TimeUnit.NANOSECONDS.toMicros( getOperationCounters( operation ).get( TIME ) );
+	}
+
+	@Override
+	public long getOperationColumnOrRowCount(String operation) {
+		return getOperationCounters( operation ).get( COLUMNS_OR_ROWS );
+	}
+
+	@Override
+	public long[] getOperationLatencyHistogram(String operation) {
+		final StripedCounters counters = getOperationCounters( operation );
+		final long[] histogram = new long[BUCKETS];
+		for ( int bucket = 0 ; bucket < BUCKETS ; bucket++ ) {
+			histogram[bucket] = counters.get( HISTOGRAM + bucket );
+		}
+		return histogram;
+	}
+
+	@Override
+	public long getTableOperationCount(String table, String operation) {
+		final StripedCounters counters = tables.get( table );
+		return counters == null ? 0 : counters.get( GridOperation.valueOf( operation ).ordinal() );
+	}
+
+	@Override
+	public long getIdentifierUpdateRetries() {
+		return identifierUpdateRetries.get();
+	}
+
+	private StripedCounters getOperationCounters(String operation) {
+		return operations[GridOperation.valueOf( operation ).ordinal()];
+	}
+
+	@Override
+	public void logSummary() {
+		log.gridStatisticsSince( new Date( startTime ) );
+		for ( GridOperation operation : OPERATIONS ) {
+			final StripedCounters counters = operations[operation.ordinal()];
+			final long count = counters.get( COUNT );
+			if ( count > 0 ) {
+				log.gridOperationStatistics(
+						operation,
+						count,
+						TimeUnit.NANOSECONDS.toMicros( counters.get( TIME ) ),
+						counters.get( COLUMNS_OR_ROWS )
+				);
+			}
+		}
+		for ( Map.Entry<String, StripedCounters> entry : tables.entrySet() ) {
+			for ( GridOperation operation : OPERATIONS ) {
+				final long count = entry.getValue().get( operation.ordinal() );
+				if ( count > 0 ) {
+					log.gridTableStatistics( entry.getKey(), operation, count );
+				}
+			}
+		}
+		final long retries = identifierUpdateRetries.get();
+		if ( retries > 0 ) {
+			log.identifierUpdateRetries( retries );
+		}
+	}
+
+	/**
+	 * Expose these statistics through the platform MBean server; only the first call has an effect.
+	 * A failure is logged: statistics are not worth failing the session factory for.
+	 */
+	public void registerMBean(String sessionFactoryName) {
+		if ( !registrationAttempted.compareAndSet( false, true ) ) {
+			return;
+		}
+		try {
+			final ObjectName name = new ObjectName(
+					"org.hibernate.ogm:type=GridStatistics,sessionFactory=" + ObjectName.quote( sessionFactoryName )
+			);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+					new StandardMBean( this, GridStatistics.class ), name
+			);
+			registeredName = name;
+		}
+		catch (JMException e) {
+			log.unableToRegisterGridStatisticsMBean( sessionFactoryName, e );
+		}
+	}
+
+	public void unregisterMBean() {
+		final ObjectName name = registeredName;
+		if ( name == null ) {
+			return;
+		}
+		registeredName = null;
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if ( server.isRegistered( name ) ) {
+				server.unregisterMBean( name );
+			}
+		}
+		catch (JMException e) {
+			log.unableToUnregisterGridStatisticsMBean( name.toString(), e );
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.stat.impl;
+
+import org.hibernate.ogm.stat.GridStatistics;
+import org.hibernate.ogm.stat.OgmStatistics;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Add the grid statistics to the statistics of Hibernate Core.
+ *
+ * @author agent <agent@local>
+ */
+public class OgmStatisticsImpl implements OgmStatistics {
+
+	private final Statistics delegate;
+	private final GridStatistics gridStatistics;
+
+	public OgmStatisticsImpl(Statistics delegate, GridStatistics gridStatistics) {
+		this.delegate = delegate;
+		this.gridStatistics = gridStatistics;
+	}
+
+	@Override
+	public GridStatistics getGridStatistics() {
+		return gridStatistics;
+	}
+
+	@Override
+	public void clear() {
+		delegate.clear();
+		gridStatistics.clear();
+	}
+
+	@Override
+	public void logSummary() {
+		delegate.logSummary();
+		gridStatistics.logSummary();
+	}
+
+	@Override
+	public void setStatisticsEnabled(boolean enabled) {
+		delegate.setStatisticsEnabled( enabled );
+		gridStatistics.setStatisticsEnabled( enabled );
+	}
+
+	@Override
+	public EntityStatistics getEntityStatistics(String entityName) {
+		return delegate.getEntityStatistics( entityName );
+	}
+
+	@Override
+	public CollectionStatistics getCollectionStatistics(String role) {
+		return delegate.getCollectionStatistics( role );
+	}
+
+	@Override
+	public SecondLevelCacheStatistics getSecondLevelCacheStatistics(String regionName) {
+		return delegate.getSecondLevelCacheStatistics( regionName );
+	}
+
+	@Override
+	public QueryStatistics getQueryStatistics(String queryString) {
+		return delegate.getQueryStatistics( queryString );
+	}
+
+	@Override
+	public long getEntityDeleteCount() {
+		return delegate.getEntityDeleteCount();
+	}
+
+	@Override
+	public long getEntityInsertCount() {
+		return delegate.getEntityInsertCount();
+	}
+
+	@Override
+	public long getEntityLoadCount() {
+		return delegate.getEntityLoadCount();
+	}
+
+	@Override
+	public long getEntityFetchCount() {
+		return delegate.getEntityFetchCount();
+	}
+
+	@Override
+	public long getEntityUpdateCount() {
+		return delegate.getEntityUpdateCount();
+	}
+
+	@Override
+	public long getQueryExecutionCount() {
+		return delegate.getQueryExecutionCount();
+	}
+
+	@Override
+	public long getQueryExecutionMaxTime() {
+		return delegate.getQueryExecutionMaxTime();
+	}
+
+	@Override
+	public String getQueryExecutionMaxTimeQueryString() {
+		return delegate.getQueryExecutionMaxTimeQueryString();
+	}
+
+	@Override
+	public long getQueryCacheHitCount() {
+		return delegate.getQueryCacheHitCount();
+	}
+
+	@Override
+	public long getQueryCacheMissCount() {
+		return delegate.getQueryCacheMissCount();
+	}
+
+	@Override
+	public long getQueryCachePutCount() {
+		return delegate.getQueryCachePutCount();
+	}
+
+	@Override
+	public long getUpdateTimestampsCacheHitCount() {
+		return delegate.getUpdateTimestampsCacheHitCount();
+	}
+
+	@Override
+	public long getUpdateTimestampsCacheMissCount() {
+		return delegate.getUpdateTimestampsCacheMissCount();
+	}
+
+	@Override
+	public long getUpdateTimestampsCachePutCount() {
+		return delegate.getUpdateTimestampsCachePutCount();
+	}
+
+	@Override
+	public long getFlushCount() {
+		return delegate.getFlushCount();
+	}
+
+	@Override
+	public long getConnectCount() {
+		return delegate.getConnectCount();
+	}
+
+	@Override
+	public long getSecondLevelCacheHitCount() {
+		return delegate.getSecondLevelCacheHitCount();
+	}
+
+	@Override
+	public long getSecondLevelCacheMissCount() {
+		return delegate.getSecondLevelCacheMissCount();
+	}
+
+	@Override
+	public long getSecondLevelCachePutCount() {
+		return delegate.getSecondLevelCachePutCount();
+	}
+
+	@Override
+	public long getSessionCloseCount() {
+		return delegate.getSessionCloseCount();
+	}
+
+	@Override
+	public long getSessionOpenCount() {
+		return delegate.getSessionOpenCount();
+	}
+
+	@Override
+	public long getCollectionLoadCount() {
+		return delegate.getCollectionLoadCount();
+	}
+
+	@Override
+	public long getCollectionFetchCount() {
+		return delegate.getCollectionFetchCount();
+	}
+
+	@Override
+	public long getCollectionUpdateCount() {
+		return delegate.getCollectionUpdateCount();
+	}
+
+	@Override
+	public long getCollectionRemoveCount() {
+		return delegate.getCollectionRemoveCount();
+	}
+
+	@Override
+	public long getCollectionRecreateCount() {
+		return delegate.getCollectionRecreateCount();
+	}
+
+	@Override
+	public long getStartTime() {
+		return delegate.getStartTime();
+	}
+
+	@Override
+	public boolean isStatisticsEnabled() {
+		return delegate.isStatisticsEnabled();
+	}
+
+	@Override
+	public String[] getQueries() {
+		return delegate.getQueries();
+	}
+
+	@Override
+	public String[] getEntityNames() {
+		return delegate.getEntityNames();
+	}
+
+	@Override
+	public String[] getCollectionRoleNames() {
+		return delegate.getCollectionRoleNames();
+	}
+
+	@Override
+	public String[] getSecondLevelCacheRegionNames() {
+		return delegate.getSecondLevelCacheRegionNames();
+	}
+
+	@Override
+	public long getSuccessfulTransactionCount() {
+		return delegate.getSuccessfulTransactionCount();
+	}
+
+	@Override
+	public long getTransactionCount() {
+		return delegate.getTransactionCount();
+	}
+
+	@Override
+	public long getPrepareStatementCount() {
+		return delegate.getPrepareStatementCount();
+	}
+
+	@Override
+	public long getCloseStatementCount() {
+		return delegate.getCloseStatementCount();
+	}
+
+	@Override
+	public long getOptimisticFailureCount() {
+		return delegate.getOptimisticFailureCount();
+	}
+}
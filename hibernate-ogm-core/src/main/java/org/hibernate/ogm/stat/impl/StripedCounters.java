@@ -0,0 +1,87 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.stat.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed number of counters updated without locks by many threads.
+ *
+ * Each counter is split in stripes, a thread always updating the same stripe, and the value of
+ * a counter is the sum of its stripes. The counters of a stripe share cache lines but are kept
+ * apart from the ones of the other stripes, so that concurrent threads seldom contend.
+ * Reads are not atomic across stripes, which is fine for statistics.
+ *
+ * @author agent <agent@local>
+ */
+final class StripedCounters {
+
+	private static final int STRIPES = stripes();
+	//number of longs in a cache line
+	private static final int LINE = 8;
+
+	private final int counters;
+	private final int stride;
+	private final AtomicLongArray cells;
+
+	StripedCounters(int counters) {
+		this.counters = counters;
+		this.stride = ( ( counters + LINE - 1 ) / LINE ) * LINE;
+		this.cells = new AtomicLongArray( STRIPES * stride );
+	}
+
+	void add(int counter, long delta) {
+		cells.getAndAdd( offset() + counter, delta );
+	}
+
+	void increment(int counter) {
+		cells.getAndIncrement( offset() + counter );
+	}
+
+	long get(int counter) {
+		long sum = 0;
+		for ( int stripe = 0 ; stripe < STRIPES ; stripe++ ) {
+			sum += cells.get( stripe * stride + counter );
+		}
+		return sum;
+	}
+
+	void clear() {
+		for ( int stripe = 0 ; stripe < STRIPES ; stripe++ ) {
+			for ( int counter = 0 ; counter < counters ; counter++ ) {
+				cells.set( stripe * stride + counter, 0 );
+			}
+		}
+	}
+
+	private int offset() {
+		return ( (int) Thread.currentThread().getId() & ( STRIPES - 1 ) ) * stride;
+	}
+
+	private static int stripes() {
+		final int target = Runtime.getRuntime().availableProcessors() * 2;
+		int stripes = 1;
+		while ( stripes < target ) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.util.impl;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.hibernate.HibernateException;
+
+/**
+ * Helpers to consume the futures returned by asynchronous grid operations.
+ *
+ * @author agent <agent@local>
+ */
+public final class FutureHelper {
+
+	private FutureHelper() {}
+
+	/**
+	 * Wait for the result of the operation on {@code key}, wrapping failures
+	 * in a {@link HibernateException}
+	 */
+	public static <T> T get(Future<T> future, Object key) {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HibernateException( "Interrupted while accessing " + key, e );
+		}
+		catch (ExecutionException e) {
+			throw new HibernateException( "Unable to access " + key, e.getCause() );
+		}
+	}
+
+	/**
+	 * Expose the result of {@code future} converted by {@code converter}.
+	 * The conversion happens in the thread consuming the result.
+	 */
+	public static <S, T> Future<T> convert(Future<S> future, Converter<S, T> converter) {
+		return new ConvertingFuture<S, T>( future, converter );
+	}
+
+	public interface Converter<S, T> {
+		T convert(S source);
+	}
+
+	private static final class ConvertingFuture<S, T> implements Future<T> {
+		private final Future<S> future;
+		private final Converter<S, T> converter;
+
+		ConvertingFuture(Future<S> future, Converter<S, T> converter) {
+			this.future = future;
+			this.converter = converter;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return future.cancel( mayInterruptIfRunning );
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return future.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return future.isDone();
+		}
+
+		@Override
+		public T get() throws InterruptedException, ExecutionException {
+			return converter.convert( future.get() );
+		}
+
+		@Override
+		public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return converter.convert( future.get( timeout, unit ) );
+		}
+	}
+}
@@ -23,8 +23,14 @@ package org.hibernate.ogm.util.impl;
 import static org.jboss.logging.Logger.Level.INFO;
 import static org.jboss.logging.Logger.Level.WARN;
 
+import java.util.Date;
+
 import org.hibernate.HibernateException;
+import org.hibernate.StaleStateException;
 import org.hibernate.ogm.datastore.impl.DatastoreProviderInitiator;
+import org.hibernate.ogm.datastore.mongodb.impl.MongoDBDatastoreProvider;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.stat.GridOperation;
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Cause;
 import org.jboss.logging.LogMessage;
@@ -85,4 +91,66 @@ public interface Log extends BasicLogger {
 
 	@Message(id = 15, value = "Expected DatastoreProvider %2$s but found %1$s")
 	HibernateException unexpectedDatastoreProvider(Class<?> found, Class<?> expected);
+
+	@Message(id = 16, value = "Tuple of table %1$s has been encoded with an unknown mapping of the table")
+	HibernateException tupleEncodedWithDifferentSchema(String table);
+
+	@Message(id = 17, value = "Cannot instantiate TupleCodec %1$s")
+	HibernateException cannotInstantiateTupleCodec(String codecClassName, @Cause Exception e);
+
+	@LogMessage(level = WARN)
+	@Message(id = 18, value = "Unable to prefetch a block of identifiers for %1$s, reserving it on demand")
+	void unableToPrefetchIdentifierBlock(Object segment, @Cause Exception e);
+
+	@LogMessage(level = WARN)
+	@Message(id = 19, value = "Unable to register the grid statistics MBean of session factory %1$s")
+	void unableToRegisterGridStatisticsMBean(String sessionFactoryName, @Cause Exception e);
+
+	@LogMessage(level = WARN)
+	@Message(id = 20, value = "Unable to unregister the grid statistics MBean %1$s")
+	void unableToUnregisterGridStatisticsMBean(String objectName, @Cause Exception e);
+
+	@LogMessage(level = INFO)
+	@Message(id = 21, value = "Grid statistics since %1$s")
+	void gridStatisticsSince(Date startTime);
+
+	@LogMessage(level = INFO)
+	@Message(id = 22, value = "%1$s: %2$s operations, %3$s microseconds, %4$s columns or rows")
+	void gridOperationStatistics(GridOperation operation, long count, long time, long columnsOrRows);
+
+	@LogMessage(level = INFO)
+	@Message(id = 23, value = "Table %1$s: %3$s %2$s operations")
+	void gridTableStatistics(String table, GridOperation operation, long count);
+
+	@Message(id = 24, value = "The MongoDB database has not been defined, set " + MongoDBDatastoreProvider.DATABASE_PROP)
+	HibernateException mongoDBDatabaseNotDefined();
+
+	@Message(id = 25, value = "Unable to connect to MongoDB at %1$s:%2$s")
+	HibernateException unableToInitializeMongoDB(String host, int port, @Cause Exception e);
+
+	@Message(id = 26, value = "Unable to authenticate user %1$s on MongoDB database %2$s")
+	HibernateException mongoDBAuthenticationFailed(String user, String database);
+
+	@Message(id = 27, value = "Unknown MongoDB write concern %1$s in %2$s")
+	HibernateException unknownMongoDBWriteConcern(String value, String property);
+
+	@Message(id = 28, value = "Unable to store the schema of table %1$s")
+	HibernateException unableToStoreTupleSchema(String table, @Cause Exception e);
+
+	@Message(id = 29, value = "Tuple %1$s has been updated or removed by another transaction")
+	StaleStateException tupleVersionChanged(EntityKey key);
+
+	@LogMessage(level = WARN)
+	@Message(id = 30, value = "Cache %1$s uses optimistic locking without write skew check: the version of an entity is not locked between its check and the commit of its update")
+	void versionCheckNotAtomic(String cacheName);
+
+	@LogMessage(level = INFO)
+	@Message(id = 31, value = "Identifier updates retried after a concurrent change: %1$s")
+	void identifierUpdateRetries(long retries);
+
+	@Message(id = 32, value = "Cache %1$s in %2$s mode does not hold every tuple on each node and cannot be scanned")
+	HibernateException tupleScanNotSupported(String cacheName, String cacheMode);
+
+	@Message(id = 33, value = "Unable to scan the cache store of cache %1$s")
+	HibernateException unableToScanCacheStore(String cacheName, @Cause Exception e);
 }
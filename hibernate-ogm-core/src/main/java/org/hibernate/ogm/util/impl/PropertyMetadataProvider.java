@@ -25,6 +25,7 @@ import org.hibernate.ogm.datastore.spi.Association;
 import org.hibernate.ogm.datastore.spi.Tuple;
 import org.hibernate.ogm.dialect.GridDialect;
 import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
 import org.hibernate.ogm.grid.RowKey;
 import org.hibernate.ogm.type.GridType;
 
@@ -41,6 +42,7 @@ public class PropertyMetadataProvider {
 	private Association collectionMetadata;
 	private Object[] columnValues;
 	private GridDialect gridDialect;
+	private EntityKey ownerEntityKey;
 
 	//fluent methods for populating data
 
@@ -80,13 +82,19 @@ public class PropertyMetadataProvider {
 		return this;
 	}
 
+	//optional: key of the entity owning the collection
+	public PropertyMetadataProvider ownerEntityKey(EntityKey ownerEntityKey) {
+		this.ownerEntityKey = ownerEntityKey;
+		return this;
+	}
+
 
 	//action methods
 
 	private AssociationKey getCollectionMetadataKey() {
 		if ( collectionMetadataKey == null ) {
 			final Object[] columnValues = getKeyColumnValues();
-			collectionMetadataKey = new AssociationKey( tableName, keyColumnNames, columnValues );
+			collectionMetadataKey = new AssociationKey( tableName, keyColumnNames, columnValues, ownerEntityKey );
 		}
 		return collectionMetadataKey;
 	}
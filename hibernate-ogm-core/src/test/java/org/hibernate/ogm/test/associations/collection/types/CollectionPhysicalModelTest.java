@@ -0,0 +1,122 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.associations.collection.types;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.persister.OgmCollectionPersister;
+import org.hibernate.ogm.test.associations.collection.manytomany.AccountOwner;
+import org.hibernate.ogm.test.associations.collection.manytomany.BankAccount;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Reads the rows of collections from tuples as the loader does.
+ *
+ * @author agent <agent@local>
+ */
+public class CollectionPhysicalModelTest extends OgmTestCase {
+
+	public void testIndexOfAListIsReadFromTheTuple() throws Exception {
+		final OgmCollectionPersister persister = getPersister( Father.class, "orderedChildren" );
+		final Tuple row = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		row.put( persister.getKeyColumnNames()[0], "vader" );
+		row.put( persister.getIndexColumnNames()[0], 2 );
+
+		final Session session = openSession();
+		try {
+			final SessionImplementor sessionImplementor = (SessionImplementor) session;
+			assertThat( persister.readKey( row, persister.getKeyColumnNames(), sessionImplementor ) ).isEqualTo( "vader" );
+			assertThat( persister.readIndex( row, persister.getIndexColumnNames(), sessionImplementor ) ).isEqualTo( 2 );
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	public void testKeyOfAMapIsReadFromTheTuple() throws Exception {
+		final OgmCollectionPersister persister = getPersister( User.class, "addresses" );
+		final Tuple row = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		row.put( persister.getKeyColumnNames()[0], "emmanuel" );
+		row.put( persister.getIndexColumnNames()[0], "home" );
+
+		final Session session = openSession();
+		try {
+			final SessionImplementor sessionImplementor = (SessionImplementor) session;
+			assertThat( persister.readKey( row, persister.getKeyColumnNames(), sessionImplementor ) ).isEqualTo( "emmanuel" );
+			assertThat( persister.readIndex( row, persister.getIndexColumnNames(), sessionImplementor ) ).isEqualTo( "home" );
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	public void testIdentifierOfAnIdBagIsReadFromTheTuple() throws Exception {
+		final OgmCollectionPersister persister = getPersister( Playlist.class, "songs" );
+		final Tuple row = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		row.put( persister.getKeyColumnNames()[0], "road-trip" );
+		row.put( persister.getIdentifierColumnName(), "first-entry" );
+		row.put( persister.getElementColumnNames()[0], "Blue Monday" );
+
+		final Session session = openSession();
+		try {
+			final SessionImplementor sessionImplementor = (SessionImplementor) session;
+			assertThat( persister.readKey( row, persister.getKeyColumnNames(), sessionImplementor ) ).isEqualTo( "road-trip" );
+			assertThat( persister.readIdentifier( row, persister.getIdentifierColumnName(), sessionImplementor ) )
+					.isEqualTo( "first-entry" );
+			assertThat( persister.readElement( row, null, persister.getElementColumnNames(), sessionImplementor ) )
+					.isEqualTo( "Blue Monday" );
+		}
+		finally {
+			session.close();
+		}
+	}
+
+	public void testRowsOfAnOwningCollectionBelongToTheOwnerEntity() throws Exception {
+		assertThat( getPersister( Father.class, "orderedChildren" ).getOwnerEntityKey( "vader" ) )
+				.isEqualTo( new EntityKey( "Father", "vader" ) );
+		assertThat( getPersister( AccountOwner.class, "bankAccounts" ).getOwnerEntityKey( "owner" ) )
+				.isEqualTo( new EntityKey( "AccountOwner", "owner" ) );
+		//the rows of an inverse collection are maintained from the other side
+		assertThat( getPersister( BankAccount.class, "owners" ).getOwnerEntityKey( "account" ) ).isNull();
+	}
+
+	private OgmCollectionPersister getPersister(Class<?> owner, String property) {
+		return (OgmCollectionPersister) sfi().getCollectionPersister( owner.getName() + "." + property );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Father.class,
+				Child.class,
+				User.class,
+				Address.class,
+				Playlist.class,
+				AccountOwner.class,
+				BankAccount.class
+		};
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.associations.collection.types;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class IdBagTest extends OgmTestCase {
+
+	public void testIdBagKeepsDuplicates() throws Exception {
+		Session session = openSession();
+		Transaction tx = session.beginTransaction();
+		Playlist playlist = new Playlist();
+		playlist.getSongs().add( "Blue Monday" );
+		playlist.getSongs().add( "Ceremony" );
+		playlist.getSongs().add( "Blue Monday" );
+		session.persist( playlist );
+		tx.commit();
+
+		session.clear();
+
+		tx = session.beginTransaction();
+		playlist = (Playlist) session.get( Playlist.class, playlist.getId() );
+		assertThat( playlist.getSongs() )
+				.as( "Bag should have 3 elements" )
+				.hasSize( 3 );
+		assertThat( playlist.getSongs() )
+				.containsOnly( "Blue Monday", "Ceremony" );
+		//only one of the duplicates is removed, through its identifier
+		playlist.getSongs().remove( "Blue Monday" );
+		tx.commit();
+
+		session.clear();
+
+		tx = session.beginTransaction();
+		playlist = (Playlist) session.get( Playlist.class, playlist.getId() );
+		assertThat( playlist.getSongs() )
+				.as( "Bag should have 2 elements" )
+				.hasSize( 2 );
+		assertThat( playlist.getSongs() )
+				.containsOnly( "Blue Monday", "Ceremony" );
+		session.delete( playlist );
+		tx.commit();
+
+		session.close();
+
+		checkCleanCache();
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Playlist.class
+		};
+	}
+}
@@ -112,6 +112,55 @@ public class ManyToOneTest extends OgmTestCase {
 		checkCleanCache();
 	}
 
+	public void testUpdateOfOtherPropertiesKeepsTheAssociation() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		SalesForce redHat = new SalesForce();
+		redHat.setCorporation( "Red Hat" );
+		session.save( redHat );
+		SalesForce jboss = new SalesForce();
+		jboss.setCorporation( "JBoss" );
+		session.save( jboss );
+		SalesGuy eric = new SalesGuy();
+		eric.setName( "Eric" );
+		eric.setSalesForce( redHat );
+		redHat.getSalesGuys().add( eric );
+		session.save( eric );
+		transaction.commit();
+		session.clear();
+
+		//only the name is dirty
+		transaction = session.beginTransaction();
+		eric = (SalesGuy) session.get( SalesGuy.class, eric.getId() );
+		eric.setName( "Eric J." );
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		redHat = (SalesForce) session.get( SalesForce.class, redHat.getId() );
+		assertEquals( 1, redHat.getSalesGuys().size() );
+		eric = redHat.getSalesGuys().iterator().next();
+		assertEquals( "Eric J.", eric.getName() );
+		jboss = (SalesForce) session.get( SalesForce.class, jboss.getId() );
+		eric.setSalesForce( jboss );
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		redHat = (SalesForce) session.get( SalesForce.class, redHat.getId() );
+		assertEquals( 0, redHat.getSalesGuys().size() );
+		jboss = (SalesForce) session.get( SalesForce.class, jboss.getId() );
+		assertEquals( 1, jboss.getSalesGuys().size() );
+		session.delete( jboss.getSalesGuys().iterator().next() );
+		session.delete( jboss );
+		session.delete( redHat );
+		transaction.commit();
+
+		session.close();
+
+		checkCleanCache();
+	}
+
 	public void testBiDirManyToOneInsertUpdateFalse() throws Exception {
 		final Session session = openSession();
 		Transaction tx = session.beginTransaction();
@@ -0,0 +1,146 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.datastore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.hibernate.ogm.datastore.impl.MapBasedAssociationSnapshot;
+import org.hibernate.ogm.datastore.impl.MapBasedTupleSnapshot;
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.AssociationOperation;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.grid.RowKey;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class AssociationTest extends TestCase {
+
+	public void testSizeAndKeysFollowTheChanges() throws Exception {
+		Map<RowKey, Map<String, Object>> rows = new HashMap<RowKey, Map<String, Object>>();
+		rows.put( key( 1 ), columns( 1 ) );
+		rows.put( key( 2 ), columns( 2 ) );
+		Association association = new Association( new MapBasedAssociationSnapshot( rows ) );
+		assertThat( association.size() ).isEqualTo( 2 );
+		assertThat( association.getKeys() ).containsOnly( key( 1 ), key( 2 ) );
+
+		association.put( key( 3 ), row( 3 ) );
+		association.put( key( 1 ), row( 1 ) );
+		association.remove( key( 2 ) );
+		association.remove( key( 4 ) );
+		assertThat( association.size() ).isEqualTo( 2 );
+		assertThat( association.isEmpty() ).isFalse();
+		assertThat( association.getKeys() ).hasSize( 2 ).containsOnly( key( 1 ), key( 3 ) );
+		assertThat( association.getKeys().contains( key( 2 ) ) ).isFalse();
+
+		association.remove( key( 3 ) );
+		association.remove( key( 1 ) );
+		assertThat( association.isEmpty() ).isTrue();
+		assertThat( association.getKeys() ).isEmpty();
+
+		association.put( key( 2 ), null );
+		assertThat( association.size() ).isEqualTo( 1 );
+		assertThat( association.get( key( 2 ) ) ).isNull();
+		assertThat( association.getKeys() ).containsOnly( key( 2 ) );
+	}
+
+	public void testClearIgnoresTheSnapshot() throws Exception {
+		Map<RowKey, Map<String, Object>> rows = new HashMap<RowKey, Map<String, Object>>();
+		rows.put( key( 1 ), columns( 1 ) );
+		Association association = new Association( new MapBasedAssociationSnapshot( rows ) );
+		association.put( key( 2 ), row( 2 ) );
+		association.clear();
+		assertThat( association.isEmpty() ).isTrue();
+		assertThat( association.getKeys() ).isEmpty();
+
+		association.put( key( 1 ), row( 1 ) );
+		assertThat( association.size() ).isEqualTo( 1 );
+		assertThat( association.getKeys() ).containsOnly( key( 1 ) );
+	}
+
+	public void testAssociationCanBeReusedOnceItsChangesAreApplied() throws Exception {
+		Map<RowKey, Map<String, Object>> rows = new HashMap<RowKey, Map<String, Object>>();
+		rows.put( key( 1 ), columns( 1 ) );
+		rows.put( key( 2 ), columns( 2 ) );
+		//the snapshot is backed by the stored rows, as the Infinispan atomic maps are
+		Association association = new Association( new MapBasedAssociationSnapshot( rows ) );
+		association.put( key( 3 ), row( 3 ) );
+		association.remove( key( 1 ) );
+		apply( association, rows );
+		assertThat( rows ).hasSize( 2 );
+
+		assertThat( association.size() ).isEqualTo( 2 );
+		assertThat( association.getKeys() ).hasSize( 2 ).containsOnly( key( 2 ), key( 3 ) );
+		int iterated = 0;
+		for ( RowKey key : association.getKeys() ) {
+			iterated++;
+		}
+		assertThat( iterated ).isEqualTo( 2 );
+
+		association.put( key( 4 ), row( 4 ) );
+		association.put( key( 3 ), row( 3 ) );
+		association.remove( key( 2 ) );
+		assertThat( association.size() ).isEqualTo( 2 );
+		assertThat( association.getKeys() ).containsOnly( key( 3 ), key( 4 ) );
+		apply( association, rows );
+		assertThat( association.size() ).isEqualTo( rows.size() );
+	}
+
+	/**
+	 * Apply the changes to the stored rows as a dialect does
+	 */
+	private static void apply(Association association, Map<RowKey, Map<String, Object>> rows) {
+		for ( AssociationOperation operation : association.getOperations() ) {
+			switch ( operation.getType() ) {
+				case CLEAR:
+					rows.clear();
+					break;
+				case PUT:
+				case PUT_NULL:
+					rows.put( operation.getKey(), columns( (Integer) operation.getKey().getColumnsValues()[1] ) );
+					break;
+				case REMOVE:
+					rows.remove( operation.getKey() );
+					break;
+			}
+		}
+	}
+
+	private static RowKey key(int id) {
+		return new RowKey( "Hero_Sidekick", new String[] { "hero_id", "sidekick_id" }, new Object[] { 1, id } );
+	}
+
+	private static Tuple row(int id) {
+		return new Tuple( new MapBasedTupleSnapshot( columns( id ) ) );
+	}
+
+	private static Map<String, Object> columns(int id) {
+		Map<String, Object> columns = new HashMap<String, Object>();
+		columns.put( "hero_id", 1 );
+		columns.put( "sidekick_id", id );
+		return columns;
+	}
+}
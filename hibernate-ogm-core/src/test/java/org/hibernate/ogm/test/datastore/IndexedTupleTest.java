@@ -0,0 +1,80 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.datastore;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.hibernate.ogm.datastore.impl.MapBasedTupleSnapshot;
+import org.hibernate.ogm.datastore.spi.IndexedTuple;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.datastore.spi.TupleOperation;
+import org.hibernate.ogm.datastore.spi.TupleOperationType;
+import org.hibernate.ogm.datastore.spi.TupleSchema;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class IndexedTupleTest extends TestCase {
+
+	public void testBehavesLikeATuple() throws Exception {
+		TupleSchema schema = new TupleSchema( "Hero", Arrays.asList( "id", "name", "age" ) );
+		Map<String, Object> snapshot = new HashMap<String, Object>();
+		snapshot.put( "id", 1L );
+		snapshot.put( "name", "Batman" );
+		snapshot.put( "age", 40 );
+
+		Tuple pending = new Tuple( new MapBasedTupleSnapshot( snapshot ) );
+		pending.put( "age", 41 );
+		IndexedTuple tuple = new IndexedTuple( schema, pending );
+		assertThat( tuple.get( "age" ) ).isEqualTo( 41 );
+		assertThat( tuple.get( "name" ) ).isEqualTo( "Batman" );
+
+		tuple.put( "name", "Bruce" );
+		tuple.remove( "age" );
+		tuple.put( "alias", "Dark Knight" );
+		assertThat( tuple.get( "name" ) ).isEqualTo( "Bruce" );
+		assertThat( tuple.get( "age" ) ).isNull();
+		assertThat( tuple.get( "alias" ) ).isEqualTo( "Dark Knight" );
+		assertThat( tuple.getColumnNames() ).containsOnly( "id", "name", "alias" );
+
+		Map<String, TupleOperationType> operations = new HashMap<String, TupleOperationType>();
+		for ( TupleOperation operation : tuple.getOperations() ) {
+			operations.put( operation.getColumn(), operation.getType() );
+		}
+		assertThat( operations ).hasSize( 3 );
+		assertThat( operations.get( "name" ) ).isEqualTo( TupleOperationType.PUT );
+		assertThat( operations.get( "age" ) ).isEqualTo( TupleOperationType.REMOVE );
+		assertThat( operations.get( "alias" ) ).isEqualTo( TupleOperationType.PUT );
+
+		int changed = 0;
+		for ( int index = tuple.nextChangedColumn( 0 ) ; index != -1 ; index = tuple.nextChangedColumn( index + 1 ) ) {
+			changed++;
+		}
+		assertThat( changed ).isEqualTo( 2 );
+		assertThat( tuple.getUnindexedOperations() ).hasSize( 1 );
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.DatastoreProvider;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.AsyncGridDialect;
+import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.dialect.infinispan.InfinispanDialect;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.test.loader.Galaxy;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+import org.infinispan.Cache;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class AsyncGridDialectTest extends OgmTestCase {
+
+	public void testReadsSeeTheWritesOfTheCurrentTransaction() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Galaxy galaxy = new Galaxy();
+		galaxy.setName( "Milky Way" );
+		session.persist( galaxy );
+		Galaxy other = new Galaxy();
+		other.setName( "Andromeda" );
+		session.persist( other );
+		transaction.commit();
+		session.clear();
+
+		GridDialect gridDialect = sfi().getServiceRegistry().getService( DatastoreServices.class ).getGridDialect();
+		assertThat( gridDialect ).isInstanceOf( AsyncGridDialect.class );
+		AsyncGridDialect asyncGridDialect = (AsyncGridDialect) gridDialect;
+		final EntityKey key = new EntityKey( "Galaxy", galaxy.getId() );
+		final EntityKey otherKey = new EntityKey( "Galaxy", other.getId() );
+
+		transaction = session.beginTransaction();
+		galaxy = (Galaxy) session.get( Galaxy.class, galaxy.getId() );
+		galaxy.setName( "The Milky Way" );
+		other = (Galaxy) session.get( Galaxy.class, other.getId() );
+		other.setName( "The Andromeda Galaxy" );
+		session.flush();
+
+		assertThat( asyncGridDialect.getTupleAsync( key ).get().get( "name" ) ).isEqualTo( "The Milky Way" );
+		Tuple[] tuples = gridDialect.getTuples( new EntityKey[] { key, otherKey } );
+		assertThat( tuples[0].get( "name" ) ).isEqualTo( "The Milky Way" );
+		assertThat( tuples[1].get( "name" ) ).isEqualTo( "The Andromeda Galaxy" );
+
+		session.delete( galaxy );
+		session.flush();
+		assertThat( asyncGridDialect.getTupleAsync( key ).get() ).isNull();
+		transaction.rollback();
+		session.clear();
+
+		//the changes of the rolled back transaction are gone
+		assertThat( asyncGridDialect.getTupleAsync( key ).get().get( "name" ) ).isEqualTo( "Milky Way" );
+
+		transaction = session.beginTransaction();
+		session.delete( session.get( Galaxy.class, galaxy.getId() ) );
+		session.delete( session.get( Galaxy.class, other.getId() ) );
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	public void testRemoteReadsWithinATransactionAreDetached() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Galaxy galaxy = new Galaxy();
+		galaxy.setName( "Milky Way" );
+		session.persist( galaxy );
+		Galaxy other = new Galaxy();
+		other.setName( "Andromeda" );
+		session.persist( other );
+		transaction.commit();
+		session.clear();
+
+		//every key is treated as remote, as in a cluster
+		final InfinispanDialect dialect = new InfinispanDialect(
+				(InfinispanDatastoreProvider) sfi().getServiceRegistry().getService( DatastoreProvider.class ) ) {
+			@Override
+			protected boolean isLocal(Cache<?, ?> cache, Object key) {
+				return false;
+			}
+		};
+		final EntityKey key = new EntityKey( "Galaxy", galaxy.getId() );
+		final EntityKey otherKey = new EntityKey( "Galaxy", other.getId() );
+
+		transaction = session.beginTransaction();
+		Tuple tuple = dialect.getTupleAsync( key ).get();
+		assertThat( tuple.get( "name" ) ).isEqualTo( "Milky Way" );
+		//the tuple read outside of the transaction is written back within it
+		tuple.put( "name", "The Milky Way" );
+		dialect.updateTuple( tuple, key );
+		Tuple[] tuples = dialect.getTuples( new EntityKey[] { key, otherKey } );
+		assertThat( tuples[0].get( "name" ) ).isEqualTo( "The Milky Way" );
+		assertThat( tuples[1].get( "name" ) ).isEqualTo( "Andromeda" );
+		transaction.rollback();
+
+		assertThat( dialect.getTupleAsync( key ).get().get( "name" ) ).isEqualTo( "Milky Way" );
+
+		transaction = session.beginTransaction();
+		tuple = dialect.getTupleAsync( otherKey ).get();
+		tuple.put( "name", "The Andromeda Galaxy" );
+		dialect.updateTuple( tuple, otherKey );
+		transaction.commit();
+
+		assertThat( dialect.getTupleAsync( otherKey ).get().get( "name" ) ).isEqualTo( "The Andromeda Galaxy" );
+
+		transaction = session.beginTransaction();
+		session.delete( session.get( Galaxy.class, galaxy.getId() ) );
+		session.delete( session.get( Galaxy.class, other.getId() ) );
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Galaxy.class
+		};
+	}
+}
@@ -0,0 +1,544 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.hibernate.LockMode;
+import org.hibernate.StaleStateException;
+import org.hibernate.dialect.lock.LockingStrategy;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.internal.util.compare.EqualsHelper;
+import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.impl.MapBasedAssociationSnapshot;
+import org.hibernate.ogm.datastore.impl.MapBasedTupleSnapshot;
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.AssociationOperation;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.datastore.spi.TupleOperation;
+import org.hibernate.ogm.dialect.BatchableGridDialect;
+import org.hibernate.ogm.dialect.TupleConsumer;
+import org.hibernate.ogm.dialect.batch.Operation;
+import org.hibernate.ogm.dialect.batch.OperationsQueue;
+import org.hibernate.ogm.dialect.batch.RemoveAssociationOperation;
+import org.hibernate.ogm.dialect.batch.RemoveTupleOperation;
+import org.hibernate.ogm.dialect.batch.UpdateAssociationOperation;
+import org.hibernate.ogm.dialect.batch.UpdateTupleOperation;
+import org.hibernate.ogm.dialect.impl.BatchOperationsDelegator;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.persister.entity.Lockable;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class BatchOperationsDelegatorTest extends TestCase {
+
+	private static final EntityKey GALAXY = new EntityKey( "Galaxy", "milky-way" );
+	private static final EntityKey OTHER_GALAXY = new EntityKey( "Galaxy", "andromeda" );
+	private static final AssociationKey STARS = new AssociationKey( "Star", new String[] { "galaxy_id" }, new Object[] { "milky-way" } );
+
+	private InMemoryGridDialect datastore;
+	private BatchOperationsDelegator dialect;
+
+	@Override
+	protected void setUp() throws Exception {
+		datastore = new InMemoryGridDialect();
+		dialect = new BatchOperationsDelegator( datastore );
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		dialect.clearBatch();
+	}
+
+	public void testQueueKeepsOneOperationPerPendingInstance() throws Exception {
+		OperationsQueue queue = new OperationsQueue();
+		Tuple tuple = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		queue.add( new UpdateTupleOperation( tuple, GALAXY ) );
+		tuple.put( "name", "Milky Way" );
+		queue.add( new UpdateTupleOperation( tuple, GALAXY ) );
+		assertThat( queue.size() ).isEqualTo( 1 );
+		assertThat( queue.getTuple( GALAXY ).get( "name" ) ).isEqualTo( "Milky Way" );
+
+		//another instance for the same key is a distinct write
+		Tuple other = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		queue.add( new UpdateTupleOperation( other, GALAXY ) );
+		assertThat( queue.size() ).isEqualTo( 2 );
+		assertThat( queue.getTuple( GALAXY ) ).isSameAs( other );
+
+		queue.add( new RemoveTupleOperation( GALAXY ) );
+		assertThat( queue.size() ).isEqualTo( 3 );
+		assertThat( queue.contains( GALAXY ) ).isTrue();
+		assertThat( queue.getTuple( GALAXY ) ).isNull();
+
+		Association association = new Association( new MapBasedAssociationSnapshot( new HashMap<RowKey, Map<String, Object>>() ) );
+		queue.add( new UpdateAssociationOperation( association, STARS ) );
+		association.put( row( "sun" ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+		queue.add( new UpdateAssociationOperation( association, STARS ) );
+		assertThat( queue.size() ).isEqualTo( 4 );
+		assertThat( queue.getAssociation( STARS ).size() ).isEqualTo( 1 );
+
+		queue.add( new RemoveAssociationOperation( STARS ) );
+		assertThat( queue.contains( STARS ) ).isTrue();
+		assertThat( queue.getAssociation( STARS ) ).isNull();
+
+		assertThat( queue.poll() ).isInstanceOf( UpdateTupleOperation.class );
+		assertThat( queue.poll() ).isInstanceOf( UpdateTupleOperation.class );
+		assertThat( queue.poll() ).isInstanceOf( RemoveTupleOperation.class );
+		assertThat( queue.poll() ).isInstanceOf( UpdateAssociationOperation.class );
+		assertThat( queue.poll() ).isInstanceOf( RemoveAssociationOperation.class );
+		assertThat( queue.isEmpty() ).isTrue();
+	}
+
+	public void testReadsAreServedFromThePendingOperations() throws Exception {
+		datastore.store( OTHER_GALAXY, "name", "Andromeda" );
+		datastore.store( GALAXY, "name", "Milky Way" );
+
+		dialect.prepareBatch();
+		Tuple tuple = dialect.getTuple( GALAXY );
+		tuple.put( "name", "The Milky Way" );
+		dialect.updateTuple( tuple, GALAXY );
+		assertThat( datastore.getWrites() ).isEmpty();
+
+		assertThat( dialect.getTuple( GALAXY ) ).isSameAs( tuple );
+		Tuple[] tuples = dialect.getTuples( new EntityKey[] { OTHER_GALAXY, GALAXY } );
+		assertThat( tuples[0].get( "name" ) ).isEqualTo( "Andromeda" );
+		assertThat( tuples[1] ).isSameAs( tuple );
+		assertThat( dialect.createTupleIfAbsent( GALAXY ) ).isNull();
+
+		dialect.removeTuple( OTHER_GALAXY );
+		assertThat( dialect.getTuple( OTHER_GALAXY ) ).isNull();
+		assertThat( dialect.getTuples( new EntityKey[] { OTHER_GALAXY } )[0] ).isNull();
+		assertThat( datastore.getStoredTuple( OTHER_GALAXY ) ).isNotNull();
+
+		Association association = dialect.createAssociation( STARS );
+		association.put( row( "sun" ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+		dialect.updateAssociation( association, STARS );
+		assertThat( dialect.getAssociation( STARS ) ).isSameAs( association );
+		assertThat( datastore.getStoredAssociation( STARS ) ).isNull();
+
+		dialect.executeBatch();
+		assertThat( datastore.getWrites() ).isEqualTo( Arrays.asList(
+				"updateTuple " + GALAXY, "removeTuple " + OTHER_GALAXY, "updateAssociation " + STARS
+		) );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "name" ) ).isEqualTo( "The Milky Way" );
+		assertThat( datastore.getStoredTuple( OTHER_GALAXY ) ).isNull();
+		assertThat( datastore.getStoredAssociation( STARS ) ).hasSize( 1 );
+	}
+
+	public void testOperationsOutsideOfABatchAreAppliedRightAway() throws Exception {
+		Tuple tuple = dialect.createTuple( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		dialect.updateTuple( tuple, GALAXY );
+		assertThat( datastore.getWrites() ).isEqualTo( Arrays.asList( "updateTuple " + GALAXY ) );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "name" ) ).isEqualTo( "Milky Way" );
+	}
+
+	public void testRemovedTupleIsCreatedAgainAfterItsRemoval() throws Exception {
+		datastore.store( GALAXY, "name", "Milky Way" );
+		datastore.store( GALAXY, "age", 13 );
+
+		dialect.prepareBatch();
+		dialect.removeTuple( GALAXY );
+		assertThat( dialect.createTupleIfAbsent( GALAXY ) ).isNotNull();
+		//the datastore still holds the removed state, it must not leak into the new tuple
+		Tuple tuple = dialect.createTuple( GALAXY );
+		assertThat( tuple.get( "age" ) ).isNull();
+		tuple.put( "name", "New Milky Way" );
+		dialect.updateTuple( tuple, GALAXY );
+		assertThat( dialect.getTuple( GALAXY ) ).isSameAs( tuple );
+		assertThat( dialect.createTupleIfAbsent( GALAXY ) ).isNull();
+
+		dialect.executeBatch();
+		assertThat( datastore.getWrites() ).isEqualTo( Arrays.asList( "removeTuple " + GALAXY, "updateTuple " + GALAXY ) );
+		assertThat( datastore.getStoredTuple( GALAXY ) ).hasSize( 1 );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "name" ) ).isEqualTo( "New Milky Way" );
+	}
+
+	public void testRemovedAssociationIsCreatedAgainAfterItsRemoval() throws Exception {
+		datastore.store( STARS, row( "sun" ) );
+
+		dialect.prepareBatch();
+		dialect.removeAssociation( STARS );
+		assertThat( dialect.getAssociation( STARS ) ).isNull();
+		Association association = dialect.createAssociation( STARS );
+		assertThat( association.isEmpty() ).isTrue();
+		association.put( row( "sirius" ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+		dialect.updateAssociation( association, STARS );
+
+		dialect.executeBatch();
+		assertThat( datastore.getWrites() ).isEqualTo( Arrays.asList( "removeAssociation " + STARS, "updateAssociation " + STARS ) );
+		assertThat( datastore.getStoredAssociation( STARS ).keySet() ).containsOnly( row( "sirius" ) );
+	}
+
+	public void testAssociationIsWrittenOncePerFlush() throws Exception {
+		final AssociationKey otherStars = new AssociationKey( "Star", new String[] { "galaxy_id" }, new Object[] { "andromeda" } );
+		datastore.store( STARS, row( "sun" ) );
+
+		dialect.prepareBatch();
+		//several entities of the flush add themselves to the same inverse associations
+		for ( String star : new String[] { "sirius", "vega", "altair" } ) {
+			Association association = dialect.getAssociation( STARS );
+			if ( association == null ) {
+				association = dialect.createAssociation( STARS );
+			}
+			association.put( row( star ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+			dialect.updateAssociation( association, STARS );
+
+			//creating an association does not overwrite the one already created in the flush
+			association = dialect.createAssociation( otherStars );
+			association.put( row( star ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+			dialect.updateAssociation( association, otherStars );
+		}
+		//nor the one present in the datastore
+		Association association = dialect.createAssociation( STARS );
+		assertThat( association.size() ).isEqualTo( 4 );
+
+		dialect.executeBatch();
+		assertThat( datastore.getWriteCount( "updateAssociation", STARS ) ).isEqualTo( 1 );
+		assertThat( datastore.getWriteCount( "updateAssociation", otherStars ) ).isEqualTo( 1 );
+		assertThat( datastore.getStoredAssociation( STARS ).keySet() )
+				.containsOnly( row( "sun" ), row( "sirius" ), row( "vega" ), row( "altair" ) );
+		assertThat( datastore.getStoredAssociation( otherStars ).keySet() )
+				.containsOnly( row( "sirius" ), row( "vega" ), row( "altair" ) );
+	}
+
+	public void testAssociationCreatedButNotUpdatedIsNotWritten() throws Exception {
+		dialect.prepareBatch();
+		Association association = dialect.createAssociation( STARS );
+		assertThat( dialect.getAssociation( STARS ) ).isSameAs( association );
+		dialect.executeBatch();
+		assertThat( datastore.getWrites() ).isEmpty();
+		assertThat( datastore.getStoredAssociation( STARS ) ).isNull();
+	}
+
+	public void testVersionOfAPendingTupleIsCheckedWhenTheBatchIsExecuted() throws Exception {
+		datastore.store( GALAXY, "name", "Milky Way" );
+		datastore.store( GALAXY, "version", 1 );
+		dialect.prepareBatch();
+		Tuple tuple = dialect.getTuple( GALAXY );
+		tuple.put( "name", "Via Lactea" );
+		dialect.updateTuple( tuple, GALAXY );
+
+		Tuple versioned = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		versioned.put( "version", 2 );
+		assertThat( dialect.updateTupleIfVersion( versioned, GALAXY, "version", 1 ) ).isTrue();
+		assertThat( dialect.getTuple( GALAXY ).get( "version" ) ).isEqualTo( 2 );
+
+		//updated by another transaction before the batch is executed
+		datastore.store( GALAXY, "version", 3 );
+		try {
+			dialect.executeBatch();
+			fail( "The version of the tuple has changed" );
+		}
+		catch (StaleStateException e) {
+			//expected
+		}
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "name" ) ).isEqualTo( "Milky Way" );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "version" ) ).isEqualTo( 3 );
+	}
+
+	public void testVersionedUpdateIsDeferredToTheBatch() throws Exception {
+		datastore.store( GALAXY, "name", "Milky Way" );
+		datastore.store( GALAXY, "version", 1 );
+		dialect.prepareBatch();
+		Tuple tuple = dialect.getTuple( GALAXY );
+		tuple.put( "name", "Via Lactea" );
+		tuple.put( "version", 2 );
+		assertThat( dialect.updateTupleIfVersion( tuple, GALAXY, "version", 1 ) ).isTrue();
+		assertThat( datastore.getWriteCount( "updateTupleIfVersion", GALAXY ) ).isEqualTo( 0 );
+		assertThat( dialect.getTuple( GALAXY ).get( "version" ) ).isEqualTo( 2 );
+
+		//updated by another transaction before the batch is executed
+		datastore.store( GALAXY, "version", 3 );
+		try {
+			dialect.executeBatch();
+			fail( "The version of the tuple has changed" );
+		}
+		catch (StaleStateException e) {
+			//expected
+		}
+		assertThat( datastore.getWriteCount( "updateTupleIfVersion", GALAXY ) ).isEqualTo( 1 );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "name" ) ).isEqualTo( "Milky Way" );
+	}
+
+	public void testPendingTupleIsUpdatedIfItHoldsTheExpectedVersion() throws Exception {
+		datastore.store( GALAXY, "name", "Milky Way" );
+		datastore.store( GALAXY, "version", 1 );
+		dialect.prepareBatch();
+		Tuple tuple = dialect.getTuple( GALAXY );
+		tuple.put( "name", "Via Lactea" );
+		dialect.updateTuple( tuple, GALAXY );
+
+		Tuple stale = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		stale.put( "version", 2 );
+		assertThat( dialect.updateTupleIfVersion( stale, GALAXY, "version", 0 ) ).isFalse();
+		assertThat( dialect.getTuple( GALAXY ).get( "version" ) ).isEqualTo( 1 );
+
+		tuple.put( "version", 2 );
+		assertThat( dialect.updateTupleIfVersion( tuple, GALAXY, "version", 1 ) ).isTrue();
+		dialect.executeBatch();
+		assertThat( datastore.getWriteCount( "updateTupleIfVersion", GALAXY ) ).isEqualTo( 1 );
+		assertThat( datastore.getWriteCount( "updateTuple", GALAXY ) ).isEqualTo( 0 );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "name" ) ).isEqualTo( "Via Lactea" );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "version" ) ).isEqualTo( 2 );
+	}
+
+	public void testVersionOfATupleCreatedDuringTheFlushIsNotReadFromTheDatastore() throws Exception {
+		dialect.prepareBatch();
+		Tuple tuple = dialect.createTuple( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		tuple.put( "version", 1 );
+		dialect.updateTuple( tuple, GALAXY );
+
+		tuple.put( "version", 2 );
+		assertThat( dialect.updateTupleIfVersion( tuple, GALAXY, "version", 1 ) ).isTrue();
+		dialect.executeBatch();
+		assertThat( datastore.getWriteCount( "updateTupleIfVersion", GALAXY ) ).isEqualTo( 0 );
+		assertThat( datastore.getStoredTuple( GALAXY ).get( "version" ) ).isEqualTo( 2 );
+	}
+
+	private static RowKey row(String star) {
+		return new RowKey( "Star", new String[] { "galaxy_id", "id" }, new Object[] { "milky-way", star } );
+	}
+
+	/**
+	 * Keeps the data in memory and records the writes it receives, in order
+	 */
+	static class InMemoryGridDialect implements BatchableGridDialect {
+
+		private final Map<EntityKey, Map<String, Object>> tuples = new HashMap<EntityKey, Map<String, Object>>();
+		private final Map<AssociationKey, Map<RowKey, Map<String, Object>>> associations =
+				new HashMap<AssociationKey, Map<RowKey, Map<String, Object>>>();
+		private final List<String> writes = new ArrayList<String>();
+
+		void store(EntityKey key, String column, Object value) {
+			if ( !tuples.containsKey( key ) ) {
+				tuples.put( key, new HashMap<String, Object>() );
+			}
+			tuples.get( key ).put( column, value );
+		}
+
+		void store(AssociationKey key, RowKey row) {
+			if ( !associations.containsKey( key ) ) {
+				associations.put( key, new HashMap<RowKey, Map<String, Object>>() );
+			}
+			associations.get( key ).put( row, new HashMap<String, Object>() );
+		}
+
+		Map<String, Object> getStoredTuple(EntityKey key) {
+			return tuples.get( key );
+		}
+
+		Map<RowKey, Map<String, Object>> getStoredAssociation(AssociationKey key) {
+			return associations.get( key );
+		}
+
+		List<String> getWrites() {
+			return writes;
+		}
+
+		int getWriteCount(String operation, Object key) {
+			int count = 0;
+			for ( String write : writes ) {
+				if ( write.equals( operation + " " + key ) ) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public LockingStrategy getLockingStrategy(Lockable lockable, LockMode lockMode) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Tuple getTuple(EntityKey key) {
+			final Map<String, Object> columns = tuples.get( key );
+			return columns == null ?
+					null :
+					new Tuple( new MapBasedTupleSnapshot( new HashMap<String, Object>( columns ) ) );
+		}
+
+		@Override
+		public Tuple[] getTuples(EntityKey[] keys) {
+			final Tuple[] result = new Tuple[keys.length];
+			for ( int index = 0 ; index < keys.length ; index++ ) {
+				result[index] = getTuple( keys[index] );
+			}
+			return result;
+		}
+
+		@Override
+		public Tuple createTuple(EntityKey key) {
+			return new Tuple( EmptyTupleSnapshot.SINGLETON );
+		}
+
+		@Override
+		public Tuple createTupleIfAbsent(EntityKey key) {
+			return tuples.containsKey( key ) ? null : new Tuple( EmptyTupleSnapshot.SINGLETON );
+		}
+
+		@Override
+		public void updateTuple(Tuple tuple, EntityKey key) {
+			writes.add( "updateTuple " + key );
+			if ( !tuples.containsKey( key ) ) {
+				tuples.put( key, new HashMap<String, Object>() );
+			}
+			applyTupleOperations( tuple, tuples.get( key ) );
+		}
+
+		@Override
+		public boolean updateTupleIfVersion(Tuple tuple, EntityKey key, String versionColumn, Object expectedVersion) {
+			writes.add( "updateTupleIfVersion " + key );
+			final Map<String, Object> columns = tuples.get( key );
+			if ( columns == null || !EqualsHelper.equals( expectedVersion, columns.get( versionColumn ) ) ) {
+				return false;
+			}
+			applyTupleOperations( tuple, columns );
+			return true;
+		}
+
+		@Override
+		public void removeTuple(EntityKey key) {
+			writes.add( "removeTuple " + key );
+			tuples.remove( key );
+		}
+
+		@Override
+		public void forEachTuple(String table, TupleConsumer consumer) {
+			for ( EntityKey key : tuples.keySet() ) {
+				if ( key.getTable().equals( table ) ) {
+					consumer.consume( key, getTuple( key ) );
+				}
+			}
+		}
+
+		@Override
+		public Association getAssociation(AssociationKey key) {
+			final Map<RowKey, Map<String, Object>> rows = associations.get( key );
+			return rows == null ?
+					null :
+					new Association( new MapBasedAssociationSnapshot( new HashMap<RowKey, Map<String, Object>>( rows ) ) );
+		}
+
+		@Override
+		public Association createAssociation(AssociationKey key) {
+			return new Association( new MapBasedAssociationSnapshot( new HashMap<RowKey, Map<String, Object>>() ) );
+		}
+
+		@Override
+		public void updateAssociation(Association association, AssociationKey key) {
+			writes.add( "updateAssociation " + key );
+			if ( !associations.containsKey( key ) ) {
+				associations.put( key, new HashMap<RowKey, Map<String, Object>>() );
+			}
+			final Map<RowKey, Map<String, Object>> rows = associations.get( key );
+			for ( AssociationOperation operation : association.getOperations() ) {
+				switch ( operation.getType() ) {
+					case CLEAR:
+						rows.clear();
+						break;
+					case PUT_NULL:
+					case PUT:
+						final Map<String, Object> columns = new HashMap<String, Object>();
+						if ( operation.getValue() != null ) {
+							for ( String column : operation.getValue().getColumnNames() ) {
+								columns.put( column, operation.getValue().get( column ) );
+							}
+						}
+						rows.put( operation.getKey(), columns );
+						break;
+					case REMOVE:
+						rows.remove( operation.getKey() );
+						break;
+				}
+			}
+		}
+
+		@Override
+		public void removeAssociation(AssociationKey key) {
+			writes.add( "removeAssociation " + key );
+			associations.remove( key );
+		}
+
+		@Override
+		public Tuple createTupleAssociation(AssociationKey associationKey, RowKey rowKey) {
+			return new Tuple( EmptyTupleSnapshot.SINGLETON );
+		}
+
+		@Override
+		public void nextValue(RowKey key, IntegralDataTypeHolder value, int increment, int initialValue) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void executeBatch(OperationsQueue queue) {
+			Operation operation;
+			while ( ( operation = queue.poll() ) != null ) {
+				if ( operation instanceof UpdateTupleOperation ) {
+					UpdateTupleOperation update = (UpdateTupleOperation) operation;
+					if ( !update.isConditional() ) {
+						updateTuple( update.getTuple(), update.getEntityKey() );
+					}
+					else if ( !updateTupleIfVersion( update.getTuple(), update.getEntityKey(), update.getVersionColumn(), update.getExpectedVersion() ) ) {
+						throw new StaleStateException( "Tuple " + update.getEntityKey() + " has been updated or removed" );
+					}
+				}
+				else if ( operation instanceof RemoveTupleOperation ) {
+					removeTuple( ( (RemoveTupleOperation) operation ).getEntityKey() );
+				}
+				else if ( operation instanceof UpdateAssociationOperation ) {
+					UpdateAssociationOperation update = (UpdateAssociationOperation) operation;
+					updateAssociation( update.getAssociation(), update.getAssociationKey() );
+				}
+				else if ( operation instanceof RemoveAssociationOperation ) {
+					removeAssociation( ( (RemoveAssociationOperation) operation ).getAssociationKey() );
+				}
+			}
+		}
+
+		private static void applyTupleOperations(Tuple tuple, Map<String, Object> columns) {
+			for ( TupleOperation operation : tuple.getOperations() ) {
+				switch ( operation.getType() ) {
+					case PUT_NULL:
+					case PUT:
+						columns.put( operation.getColumn(), operation.getValue() );
+						break;
+					case REMOVE:
+						columns.remove( operation.getColumn() );
+						break;
+				}
+			}
+		}
+	}
+}
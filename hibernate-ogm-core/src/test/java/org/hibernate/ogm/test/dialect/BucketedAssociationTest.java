@@ -0,0 +1,109 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
+import org.hibernate.ogm.dialect.infinispan.AssociationBucketKey;
+import org.hibernate.ogm.test.associations.collection.unidirectional.Cloud;
+import org.hibernate.ogm.test.associations.collection.unidirectional.SnowFlake;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.hibernate.ogm.test.utils.TestHelper.getAssociationCache;
+
+/**
+ * @author agent <agent@local>
+ */
+public class BucketedAssociationTest extends OgmTestCase {
+
+	public void testAssociationIsSplitIntoBuckets() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Cloud cloud = new Cloud();
+		cloud.setLength( 23 );
+		List<SnowFlake> snowFlakes = new ArrayList<SnowFlake>();
+		for ( int index = 0; index < 20; index++ ) {
+			SnowFlake snowFlake = new SnowFlake();
+			snowFlake.setDescription( "Snowflake " + index );
+			session.persist( snowFlake );
+			cloud.getProducedSnowFlakes().add( snowFlake );
+			snowFlakes.add( snowFlake );
+		}
+		session.persist( cloud );
+		transaction.commit();
+		session.clear();
+
+		int buckets = 0;
+		for ( Object key : getAssociationCache( sessions ).keySet() ) {
+			if ( key instanceof AssociationBucketKey ) {
+				buckets++;
+			}
+		}
+		assertThat( buckets ).isGreaterThan( 1 );
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		assertThat( cloud.getProducedSnowFlakes() ).hasSize( 20 );
+		SnowFlake removed = cloud.getProducedSnowFlakes().iterator().next();
+		cloud.getProducedSnowFlakes().remove( removed );
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		assertThat( cloud.getProducedSnowFlakes() ).hasSize( 19 );
+		assertThat( cloud.getProducedSnowFlakes() ).excludes( removed );
+		cloud.getProducedSnowFlakes().clear();
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		assertThat( cloud.getProducedSnowFlakes() ).isEmpty();
+		session.delete( cloud );
+		for ( SnowFlake snowFlake : snowFlakes ) {
+			session.delete( session.load( SnowFlake.class, snowFlake.getId() ) );
+		}
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( InfinispanDatastoreProvider.ASSOCIATION_BUCKETS, "8" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Cloud.class,
+				SnowFlake.class
+		};
+	}
+}
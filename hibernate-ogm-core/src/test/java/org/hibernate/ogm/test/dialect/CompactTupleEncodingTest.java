@@ -0,0 +1,180 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.ogm.datastore.impl.SchemaIndexedTupleCodec;
+import org.hibernate.ogm.datastore.impl.TupleSchemaRegistry;
+import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.TupleSchema;
+import org.hibernate.ogm.datastore.spi.TupleSchemaStore;
+import org.hibernate.ogm.test.loader.Galaxy;
+import org.hibernate.ogm.test.loader.Star;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.hibernate.ogm.test.utils.TestHelper.getEntityCache;
+
+/**
+ * @author agent <agent@local>
+ */
+public class CompactTupleEncodingTest extends OgmTestCase {
+
+	public void testCodecRoundTrip() throws Exception {
+		TupleSchema schema = new TupleSchema( "Table", Arrays.asList( "id", "name", "age", "birth", "flag" ) );
+		Map<String, Object> columns = new HashMap<String, Object>();
+		columns.put( "id", Long.MIN_VALUE );
+		columns.put( "name", "Emmanuel" );
+		columns.put( "age", -3 );
+		columns.put( "birth", new Date( 1234567890L ) );
+		columns.put( "flag", null );
+		columns.put( "notInSchema", 2.5d );
+		columns.put( "bytes", new byte[] { 1, 2, 3 } );
+
+		SchemaIndexedTupleCodec codec = new SchemaIndexedTupleCodec();
+		Map<String, Object> decoded = codec.decode( schema, null, codec.encode( schema, columns ) );
+		assertThat( decoded.keySet() ).isEqualTo( columns.keySet() );
+		for ( String column : columns.keySet() ) {
+			if ( !"bytes".equals( column ) ) {
+				assertThat( decoded.get( column ) ).as( column ).isEqualTo( columns.get( column ) );
+			}
+		}
+		assertThat( (byte[]) decoded.get( "bytes" ) ).isEqualTo( new byte[] { 1, 2, 3 } );
+	}
+
+	public void testTuplesEncodedWithFormerSchemaAreDecoded() throws Exception {
+		TupleSchemaStore store = new MapTupleSchemaStore();
+		TupleSchemaRegistry formerRegistry = new TupleSchemaRegistry();
+		formerRegistry.setSchemaStore( store );
+		formerRegistry.addColumns( "Table", "id", "name", "removed" );
+		Map<String, Object> columns = new HashMap<String, Object>();
+		columns.put( "id", 1L );
+		columns.put( "name", "Emmanuel" );
+		columns.put( "removed", "obsolete" );
+		SchemaIndexedTupleCodec codec = new SchemaIndexedTupleCodec();
+		byte[] data = codec.encode( formerRegistry.getSchema( "Table" ), columns );
+
+		//the mapping of the table changes on restart
+		TupleSchemaRegistry registry = new TupleSchemaRegistry();
+		registry.setSchemaStore( store );
+		registry.addColumns( "Table", "id", "age", "name" );
+		Map<String, Object> decoded = codec.decode( registry.getSchema( "Table" ), registry, data );
+		assertThat( decoded ).isEqualTo( columns );
+	}
+
+	public void testSchemaVersionsAreAssignedPerColumnList() throws Exception {
+		TupleSchemaStore store = new MapTupleSchemaStore();
+		TupleSchemaRegistry registry = new TupleSchemaRegistry();
+		registry.setSchemaStore( store );
+		registry.addColumns( "Table", "id", "name" );
+		registry.addColumns( "Other", "id", "name" );
+		assertThat( registry.getSchema( "Table" ).getVersion() ).isEqualTo( 1 );
+		assertThat( registry.getSchema( "Other" ).getVersion() ).isEqualTo( 1 );
+
+		TupleSchemaRegistry changedRegistry = new TupleSchemaRegistry();
+		changedRegistry.setSchemaStore( store );
+		changedRegistry.addColumns( "Table", "name", "id", "age" );
+		assertThat( changedRegistry.getSchema( "Table" ).getVersion() ).isEqualTo( 2 );
+
+		//same columns, declared in another order
+		TupleSchemaRegistry sameRegistry = new TupleSchemaRegistry();
+		sameRegistry.setSchemaStore( store );
+		sameRegistry.addColumns( "Table", "name", "id" );
+		assertThat( sameRegistry.getSchema( "Table" ).getVersion() ).isEqualTo( 1 );
+		assertThat( sameRegistry.getSchema( "Table", 2 ).getColumnNames() ).isEqualTo( new String[] { "age", "id", "name" } );
+		assertThat( sameRegistry.getSchema( "Table", 3 ) ).isNull();
+	}
+
+	public void testEntitiesAreStoredEncoded() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Galaxy galaxy = new Galaxy();
+		galaxy.setName( "Milky Way" );
+		session.persist( galaxy );
+		Star star = new Star();
+		star.setName( "Sun" );
+		star.setGalaxy( galaxy );
+		session.persist( star );
+		transaction.commit();
+		session.clear();
+
+		for ( Object value : getEntityCache( session ).values() ) {
+			assertThat( value ).isInstanceOf( byte[].class );
+		}
+
+		transaction = session.beginTransaction();
+		star = (Star) session.get( Star.class, star.getId() );
+		assertThat( star.getName() ).isEqualTo( "Sun" );
+		assertThat( star.getGalaxy().getName() ).isEqualTo( "Milky Way" );
+		star.setName( "Sol" );
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		star = (Star) session.get( Star.class, star.getId() );
+		assertThat( star.getName() ).isEqualTo( "Sol" );
+		session.delete( star.getGalaxy() );
+		session.delete( star );
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( InfinispanDatastoreProvider.TUPLE_CODEC, SchemaIndexedTupleCodec.class.getName() );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Galaxy.class,
+				Star.class
+		};
+	}
+
+	private static class MapTupleSchemaStore implements TupleSchemaStore {
+		private final Map<String, String[]> storedColumns = new HashMap<String, String[]>();
+
+		@Override
+		public int storeColumnNames(String table, String[] columnNames) {
+			int version = 1;
+			while ( storedColumns.containsKey( table + version ) && !Arrays.equals( storedColumns.get( table + version ), columnNames ) ) {
+				version++;
+			}
+			storedColumns.put( table + version, columnNames );
+			return version;
+		}
+
+		@Override
+		public String[] loadColumnNames(String table, int version) {
+			return storedColumns.get( table + version );
+		}
+	}
+}
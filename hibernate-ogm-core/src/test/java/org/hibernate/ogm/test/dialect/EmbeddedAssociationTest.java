@@ -0,0 +1,207 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.AsyncGridDialect;
+import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.dialect.infinispan.EmbeddedAssociationSnapshot;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.test.associations.collection.unidirectional.Cloud;
+import org.hibernate.ogm.test.associations.collection.unidirectional.SnowFlake;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.hibernate.ogm.test.utils.TestHelper.getAssociationCache;
+
+/**
+ * @author agent <agent@local>
+ */
+public class EmbeddedAssociationTest extends OgmTestCase {
+
+	public void testSmallCollectionIsStoredWithinItsOwner() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Cloud cloud = new Cloud();
+		cloud.setLength( 23 );
+		List<SnowFlake> snowFlakes = new ArrayList<SnowFlake>();
+		for ( int index = 0; index < 5; index++ ) {
+			snowFlakes.add( addSnowFlake( session, cloud, index ) );
+		}
+		session.persist( cloud );
+		transaction.commit();
+		session.clear();
+
+		assertThat( isCollectionInAssociationCache() ).isFalse();
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		assertThat( cloud.getProducedSnowFlakes() ).hasSize( 5 );
+		for ( int index = 5; index < 15; index++ ) {
+			snowFlakes.add( addSnowFlake( session, cloud, index ) );
+		}
+		transaction.commit();
+		session.clear();
+
+		//the collection has grown beyond the threshold
+		assertThat( isCollectionInAssociationCache() ).isTrue();
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		assertThat( cloud.getProducedSnowFlakes() ).hasSize( 15 );
+		SnowFlake removed = cloud.getProducedSnowFlakes().iterator().next();
+		cloud.getProducedSnowFlakes().remove( removed );
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		assertThat( cloud.getProducedSnowFlakes() ).hasSize( 14 );
+		assertThat( cloud.getProducedSnowFlakes() ).excludes( removed );
+		session.delete( cloud );
+		for ( SnowFlake snowFlake : snowFlakes ) {
+			session.delete( session.load( SnowFlake.class, snowFlake.getId() ) );
+		}
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	public void testEmbeddedRowsAreUpdatedOneByOne() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Cloud cloud = new Cloud();
+		cloud.setLength( 7 );
+		List<SnowFlake> snowFlakes = new ArrayList<SnowFlake>();
+		for ( int index = 0; index < 3; index++ ) {
+			snowFlakes.add( addSnowFlake( session, cloud, index ) );
+		}
+		session.persist( cloud );
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		SnowFlake removed = cloud.getProducedSnowFlakes().iterator().next();
+		cloud.getProducedSnowFlakes().remove( removed );
+		snowFlakes.add( addSnowFlake( session, cloud, 3 ) );
+		transaction.commit();
+		session.clear();
+
+		assertThat( isCollectionInAssociationCache() ).isFalse();
+
+		transaction = session.beginTransaction();
+		cloud = (Cloud) session.get( Cloud.class, cloud.getId() );
+		assertThat( cloud.getProducedSnowFlakes() ).hasSize( 3 );
+		assertThat( cloud.getProducedSnowFlakes() ).excludes( removed );
+		session.delete( cloud );
+		for ( SnowFlake snowFlake : snowFlakes ) {
+			session.delete( session.load( SnowFlake.class, snowFlake.getId() ) );
+		}
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	public void testEmbeddedRowsAreNotColumnsOfTheOwner() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Cloud cloud = new Cloud();
+		cloud.setLength( 5 );
+		List<SnowFlake> snowFlakes = new ArrayList<SnowFlake>();
+		for ( int index = 0; index < 3; index++ ) {
+			snowFlakes.add( addSnowFlake( session, cloud, index ) );
+		}
+		session.persist( cloud );
+		transaction.commit();
+		session.clear();
+
+		assertThat( isCollectionInAssociationCache() ).isFalse();
+
+		final GridDialect gridDialect = sfi().getServiceRegistry().getService( DatastoreServices.class ).getGridDialect();
+		final EntityKey key = new EntityKey( "Cloud", cloud.getId() );
+		transaction = session.beginTransaction();
+		assertOnlyColumns( gridDialect.getTuple( key ) );
+		assertOnlyColumns( ( (AsyncGridDialect) gridDialect ).getTupleAsync( key ).get() );
+		transaction.commit();
+		assertOnlyColumns( ( (AsyncGridDialect) gridDialect ).getTupleAsync( key ).get() );
+
+		transaction = session.beginTransaction();
+		session.delete( session.load( Cloud.class, cloud.getId() ) );
+		for ( SnowFlake snowFlake : snowFlakes ) {
+			session.delete( session.load( SnowFlake.class, snowFlake.getId() ) );
+		}
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	private void assertOnlyColumns(Tuple tuple) {
+		assertThat( tuple.getColumnNames() ).contains( "id", "length" );
+		for ( String column : tuple.getColumnNames() ) {
+			assertThat( column.startsWith( EmbeddedAssociationSnapshot.COLUMN_PREFIX ) ).isFalse();
+		}
+	}
+
+	private SnowFlake addSnowFlake(Session session, Cloud cloud, int index) {
+		SnowFlake snowFlake = new SnowFlake();
+		snowFlake.setDescription( "Snowflake " + index );
+		session.persist( snowFlake );
+		cloud.getProducedSnowFlakes().add( snowFlake );
+		return snowFlake;
+	}
+
+	private boolean isCollectionInAssociationCache() {
+		for ( Object key : getAssociationCache( sessions ).keySet() ) {
+			if ( key instanceof AssociationKey
+					&& Arrays.equals( new String[] { "Cloud_id" }, ( (AssociationKey) key ).getColumns() ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( InfinispanDatastoreProvider.EMBEDDED_ASSOCIATION_THRESHOLD, "10" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Cloud.class,
+				SnowFlake.class
+		};
+	}
+}
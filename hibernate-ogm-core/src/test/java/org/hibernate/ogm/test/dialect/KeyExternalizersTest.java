@@ -0,0 +1,106 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+import org.hibernate.ogm.datastore.infinispan.impl.AssociationBucketKeyExternalizer;
+import org.hibernate.ogm.datastore.infinispan.impl.AssociationKeyExternalizer;
+import org.hibernate.ogm.datastore.infinispan.impl.EntityKeyExternalizer;
+import org.hibernate.ogm.datastore.infinispan.impl.RowKeyExternalizer;
+import org.hibernate.ogm.dialect.infinispan.AssociationBucketKey;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.grid.RowKey;
+import org.infinispan.marshall.Externalizer;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class KeyExternalizersTest extends TestCase {
+
+	public void testKeysRoundTrip() throws Exception {
+		EntityKey entityKey = new EntityKey( "Galaxy", "milky-way" );
+		assertThat( roundTrip( new EntityKeyExternalizer(), entityKey ) ).isEqualTo( entityKey );
+
+		RowKey rowKey = new RowKey( "Galaxy_Star", new String[] { "galaxy_id", "star_id" }, new Object[] { "milky-way", 1L } );
+		RowKey readRowKey = roundTrip( new RowKeyExternalizer(), rowKey );
+		assertThat( readRowKey ).isEqualTo( rowKey );
+
+		AssociationKey associationKey = new AssociationKey( "Galaxy_Star", new String[] { "galaxy_id" }, new Object[] { "milky-way" } );
+		AssociationKey readAssociationKey = roundTrip( new AssociationKeyExternalizer(), associationKey );
+		assertThat( readAssociationKey ).isEqualTo( associationKey );
+
+		//keys read on a node share the table names
+		assertThat( readAssociationKey.getTable() ).isSameAs( readRowKey.getTable() );
+		AssociationKey otherAssociationKey = roundTrip( new AssociationKeyExternalizer(), associationKey );
+		assertThat( otherAssociationKey.getColumns() ).isSameAs( readAssociationKey.getColumns() );
+
+		AssociationBucketKey bucketKey = new AssociationBucketKey( associationKey, 3 );
+		assertThat( roundTrip( new AssociationBucketKeyExternalizer(), bucketKey ) ).isEqualTo( bucketKey );
+	}
+
+	public void testNamesAlreadyWrittenInAStreamAreReferenced() throws Exception {
+		String[] columns = { "galaxy_id", "star_id" };
+		RowKeyExternalizer externalizer = new RowKeyExternalizer();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream( bytes );
+		externalizer.writeObject( output, new RowKey( "Galaxy_Star", columns, new Object[] { "milky-way", 1L } ) );
+		output.flush();
+		int firstKeySize = bytes.size();
+		externalizer.writeObject( output, new RowKey( "Galaxy_Star", columns, new Object[] { "milky-way", 2L } ) );
+		output.flush();
+		int secondKeySize = bytes.size() - firstKeySize;
+		//the table and column names are not written again
+		assertThat( secondKeySize ).isLessThan( firstKeySize - "Galaxy_Star".length() - "galaxy_id".length() - "star_id".length() );
+		output.close();
+
+		ObjectInputStream input = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+		try {
+			assertThat( externalizer.readObject( input ).getColumnsValues()[1] ).isEqualTo( 1L );
+			assertThat( externalizer.readObject( input ).getColumnsValues()[1] ).isEqualTo( 2L );
+		}
+		finally {
+			input.close();
+		}
+	}
+
+	private <T> T roundTrip(Externalizer<T> externalizer, T key) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream( bytes );
+		externalizer.writeObject( output, key );
+		output.close();
+		ObjectInputStream input = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+		try {
+			return externalizer.readObject( input );
+		}
+		finally {
+			input.close();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.DatastoreProvider;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.infinispan.InfinispanDialect;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.test.loader.Galaxy;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * An association keeps its size once its changes are written to the atomic map backing its snapshot.
+ *
+ * @author agent <agent@local>
+ */
+public class ReusedAssociationTest extends OgmTestCase {
+
+	private static final AssociationKey STARS = new AssociationKey( "Galaxy_Star", new String[] { "galaxy_id" }, new Object[] { "milky-way" } );
+
+	public void testAssociationIsReusedAfterItsUpdate() throws Exception {
+		InfinispanDialect dialect = new InfinispanDialect(
+				(InfinispanDatastoreProvider) sfi().getServiceRegistry().getService( DatastoreProvider.class )
+		);
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Association association = dialect.createAssociation( STARS );
+		association.put( star( 1 ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+		association.put( star( 2 ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+		dialect.updateAssociation( association, STARS );
+		assertThat( association.getSnapshot().size() ).isEqualTo( 2 );
+		assertThat( association.size() ).isEqualTo( 2 );
+		assertThat( association.getKeys() ).hasSize( 2 ).containsOnly( star( 1 ), star( 2 ) );
+
+		association.remove( star( 1 ) );
+		association.put( star( 3 ), new Tuple( EmptyTupleSnapshot.SINGLETON ) );
+		dialect.updateAssociation( association, STARS );
+		assertThat( association.size() ).isEqualTo( 2 );
+		assertThat( association.getKeys() ).hasSize( 2 ).containsOnly( star( 2 ), star( 3 ) );
+		transaction.commit();
+
+		transaction = session.beginTransaction();
+		association = dialect.getAssociation( STARS );
+		assertThat( association.size() ).isEqualTo( 2 );
+		assertThat( association.getKeys() ).containsOnly( star( 2 ), star( 3 ) );
+		dialect.removeAssociation( STARS );
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	private static RowKey star(int id) {
+		return new RowKey( "Galaxy_Star", new String[] { "galaxy_id", "star_id" }, new Object[] { "milky-way", id } );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Galaxy.class
+		};
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.dialect;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.dialect.TupleConsumer;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.test.loader.Galaxy;
+import org.hibernate.ogm.test.loader.Star;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class TupleScanTest extends OgmTestCase {
+
+	public void testScanVisitsTheTuplesOfATable() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Set<String> galaxyIds = new HashSet<String>();
+		Set<String> starIds = new HashSet<String>();
+		for ( int i = 0 ; i < 3 ; i++ ) {
+			Galaxy galaxy = new Galaxy();
+			galaxy.setName( "Galaxy " + i );
+			session.persist( galaxy );
+			galaxyIds.add( galaxy.getId() );
+			Star star = new Star();
+			star.setName( "Star " + i );
+			star.setGalaxy( galaxy );
+			session.persist( star );
+			starIds.add( star.getId() );
+		}
+		transaction.commit();
+		session.clear();
+
+		final Set<String> names = new HashSet<String>();
+		final Set<Object> ids = new HashSet<Object>();
+		GridDialect gridDialect = sfi().getServiceRegistry().getService( DatastoreServices.class ).getGridDialect();
+		gridDialect.forEachTuple( "Galaxy", new TupleConsumer() {
+			@Override
+			public void consume(EntityKey key, Tuple tuple) {
+				assertThat( key.getTable() ).isEqualTo( "Galaxy" );
+				ids.add( key.getId() );
+				names.add( (String) tuple.get( "name" ) );
+			}
+		} );
+		assertThat( ids ).isEqualTo( galaxyIds );
+		assertThat( names ).containsOnly( "Galaxy 0", "Galaxy 1", "Galaxy 2" );
+
+		transaction = session.beginTransaction();
+		for ( String id : starIds ) {
+			Star star = (Star) session.get( Star.class, id );
+			session.delete( star.getGalaxy() );
+			session.delete( star );
+		}
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Galaxy.class,
+				Star.class
+		};
+	}
+}
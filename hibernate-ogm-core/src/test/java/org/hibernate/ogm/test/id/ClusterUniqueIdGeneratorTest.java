@@ -0,0 +1,101 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.id;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+
+import org.hibernate.ogm.id.impl.ClusterUniqueIdGenerator;
+import org.hibernate.ogm.jpa.impl.OgmIdentifierGeneratorStrategyProvider;
+import org.hibernate.ogm.test.jpa.util.GetterPersistenceUnitInfo;
+import org.hibernate.ogm.test.jpa.util.JpaTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class ClusterUniqueIdGeneratorTest extends JpaTestCase {
+
+	@Test
+	public void testAutoIdentifiersAreGeneratedWithoutSequence() throws Exception {
+		getTransactionManager().begin();
+		final EntityManager em = getFactory().createEntityManager();
+		DistributedRevisionControl git = new DistributedRevisionControl();
+		git.setName( "Git" );
+		em.persist( git );
+		DistributedRevisionControl hg = new DistributedRevisionControl();
+		hg.setName( "Mercurial" );
+		em.persist( hg );
+		getTransactionManager().commit();
+		em.clear();
+
+		//identifiers are made of a timestamp, they are far above the sequence values
+		assertThat( git.getId() ).isGreaterThan( 1L << 22 );
+		assertThat( hg.getId() ).isGreaterThan( git.getId() );
+
+		getTransactionManager().begin();
+		DistributedRevisionControl dvcs = em.find( DistributedRevisionControl.class, git.getId() );
+		assertThat( dvcs ).isNotNull();
+		assertThat( dvcs.getName() ).isEqualTo( "Git" );
+		em.remove( dvcs );
+		dvcs = em.find( DistributedRevisionControl.class, hg.getId() );
+		assertThat( dvcs ).isNotNull();
+		em.remove( dvcs );
+		getTransactionManager().commit();
+
+		em.close();
+	}
+
+	@Test
+	public void testIdentifiersHoldTheConfiguredNodeIndex() throws Exception {
+		getTransactionManager().begin();
+		final EntityManager em = getFactory().createEntityManager();
+		DistributedRevisionControl bazaar = new DistributedRevisionControl();
+		bazaar.setName( "Bazaar" );
+		em.persist( bazaar );
+		getTransactionManager().commit();
+		em.clear();
+
+		//the node index sits between the 12 bits of the counter and the timestamp
+		assertThat( ( bazaar.getId() >> 12 ) & 1023 ).isEqualTo( 5L );
+
+		getTransactionManager().begin();
+		em.remove( em.find( DistributedRevisionControl.class, bazaar.getId() ) );
+		getTransactionManager().commit();
+
+		em.close();
+	}
+
+	@Override
+	protected void refineInfo(GetterPersistenceUnitInfo info) {
+		info.getProperties().setProperty( OgmIdentifierGeneratorStrategyProvider.CLUSTER_UNIQUE_AUTO, "true" );
+		info.getProperties().setProperty( ClusterUniqueIdGenerator.NODE_INDEX, "5" );
+	}
+
+	@Override
+	public Class<?>[] getEntities() {
+		return new Class<?>[] {
+				DistributedRevisionControl.class
+		};
+	}
+}
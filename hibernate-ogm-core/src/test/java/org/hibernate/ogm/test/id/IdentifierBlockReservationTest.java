@@ -0,0 +1,130 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.id;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import org.hibernate.ogm.id.impl.IdentifierBlockReservation;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class IdentifierBlockReservationTest {
+
+	@Test
+	public void testValuesAreUniqueAcrossThreads() throws Exception {
+		final AtomicLong datastoreValue = new AtomicLong( 1 );
+		final IdentifierBlockReservation reservation = new IdentifierBlockReservation(
+				new IdentifierBlockReservation.BlockSource() {
+					@Override
+					public long reserveBlock(int size) {
+						return datastoreValue.getAndAdd( size );
+					}
+				},
+				100,
+				25
+		);
+		final Set<Long> values = Collections.newSetFromMap( new ConcurrentHashMap<Long, Boolean>() );
+		ExecutorService executor = Executors.newFixedThreadPool( 8 );
+		try {
+			List<Future<?>> results = new ArrayList<Future<?>>();
+			for ( int thread = 0; thread < 8; thread++ ) {
+				results.add( executor.submit( new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for ( int index = 0; index < 1000; index++ ) {
+							assertThat( values.add( reservation.nextValue() ) ).isTrue();
+						}
+						return null;
+					}
+				} ) );
+			}
+			for ( Future<?> result : results ) {
+				result.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertThat( values ).hasSize( 8000 );
+		//blocks are consumed entirely, at most one has been prefetched on top
+		assertThat( reservation.getReservationCount() ).isGreaterThanOrEqualTo( 80 ).isLessThanOrEqualTo( 81 );
+		assertThat( datastoreValue.get() ).isEqualTo( 1 + 100 * reservation.getReservationCount() );
+	}
+
+	@Test
+	public void testFirstValueIsTheBlockStart() throws Exception {
+		IdentifierBlockReservation reservation = new IdentifierBlockReservation(
+				new IdentifierBlockReservation.BlockSource() {
+					private long next = 1;
+
+					@Override
+					public synchronized long reserveBlock(int size) {
+						long start = next;
+						next += size;
+						return start;
+					}
+				},
+				10,
+				0
+		);
+		for ( long expected = 1; expected <= 25; expected++ ) {
+			assertThat( reservation.nextValue() ).isEqualTo( expected );
+		}
+		assertThat( reservation.getReservationCount() ).isEqualTo( 3 );
+		assertThat( reservation.getWaitCount() ).isEqualTo( 3 );
+	}
+
+	@Test
+	public void testBlocksAreReservedByTheCallerOnceClosed() throws Exception {
+		final AtomicLong datastoreValue = new AtomicLong( 1 );
+		IdentifierBlockReservation reservation = new IdentifierBlockReservation(
+				new IdentifierBlockReservation.BlockSource() {
+					@Override
+					public long reserveBlock(int size) {
+						return datastoreValue.getAndAdd( size );
+					}
+				},
+				10,
+				5
+		);
+		reservation.close();
+		for ( long expected = 1; expected <= 25; expected++ ) {
+			assertThat( reservation.nextValue() ).isEqualTo( expected );
+		}
+		//nothing is prefetched: each block is waited for
+		assertThat( reservation.getReservationCount() ).isEqualTo( 3 );
+		assertThat( reservation.getWaitCount() ).isEqualTo( 3 );
+	}
+}
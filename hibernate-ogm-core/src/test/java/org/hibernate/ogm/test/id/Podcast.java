@@ -0,0 +1,53 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.id;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+/**
+ * @author agent <agent@local>
+ */
+@Entity
+public class Podcast {
+	@Id
+	@GeneratedValue(generator = "podcast")
+	@GenericGenerator(
+			name = "podcast",
+			strategy = "org.hibernate.id.enhanced.TableGenerator",
+			parameters = {
+					@Parameter(name = "segment_value", value = "podcast"),
+					@Parameter(name = "reservation_size", value = "10"),
+					@Parameter(name = "reservation_low_water_mark", value = "0")
+			}
+	)
+	public Long getId() { return id; }
+	public void setId(Long id) {  this.id = id; }
+	private Long id;
+
+	public String getName() { return name; }
+	public void setName(String name) {  this.name = name; }
+	private String name;
+}
@@ -24,6 +24,14 @@ import javax.persistence.EntityManager;
 
 import org.junit.Test;
 
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.id.impl.OgmTableGenerator;
 import org.hibernate.ogm.test.jpa.util.JpaTestCase;
 
 import static org.fest.assertions.Assertions.assertThat;
@@ -63,11 +71,51 @@ public class TableIdGeneratorTest extends JpaTestCase {
 		em.close();
 	}
 
+	@Test
+	public void testReservedBlockIsKeptWhenTheTransactionRollsBack() throws Exception {
+		getTransactionManager().begin();
+		final EntityManager em = getFactory().createEntityManager();
+		Podcast podcast = new Podcast();
+		podcast.setName( "Java Posse" );
+		em.persist( podcast );
+		getTransactionManager().rollback();
+		em.clear();
+
+		//the generator keeps handing out identifiers of the block: no other node may reserve it again
+		assertThat( podcast.getId() ).isEqualTo( 1L );
+		final SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor)
+				( (HibernateEntityManagerFactory) getFactory() ).getSessionFactory();
+		final GridDialect gridDialect = sessionFactory.getServiceRegistry().getService( DatastoreServices.class ).getGridDialect();
+		final RowKey segmentKey = new RowKey(
+				OgmTableGenerator.DEF_TABLE,
+				new String[] { OgmTableGenerator.DEF_SEGMENT_COLUMN },
+				new Object[] { "podcast" }
+		);
+		final IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder( Long.class );
+		gridDialect.nextValue( segmentKey, value, 1, OgmTableGenerator.DEFAULT_INITIAL_VALUE );
+		assertThat( value.makeValue().longValue() ).isEqualTo( 11L );
+
+		getTransactionManager().begin();
+		podcast = new Podcast();
+		podcast.setName( "Java Posse" );
+		em.persist( podcast );
+		getTransactionManager().commit();
+		em.clear();
+		assertThat( podcast.getId() ).isEqualTo( 2L );
+
+		getTransactionManager().begin();
+		em.remove( em.find( Podcast.class, podcast.getId() ) );
+		getTransactionManager().commit();
+
+		em.close();
+	}
+
 	@Override
 	public Class<?>[] getEntities() {
 		return new Class<?>[] {
 				Music.class,
-				Video.class
+				Video.class,
+				Podcast.class
 		};
 	}
 }
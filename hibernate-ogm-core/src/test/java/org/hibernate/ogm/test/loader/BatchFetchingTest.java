@@ -0,0 +1,108 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2010-2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.ogm.dialect.impl.GridDialectFactory;
+import org.hibernate.ogm.stat.GridOperation;
+import org.hibernate.ogm.stat.GridStatistics;
+import org.hibernate.ogm.stat.OgmStatistics;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class BatchFetchingTest extends OgmTestCase {
+
+	public void testProxiesAreInitializedInBatch() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		List<String> starIds = new ArrayList<String>();
+		for ( int i = 0 ; i < 5 ; i++ ) {
+			Galaxy galaxy = new Galaxy();
+			galaxy.setName( "Galaxy " + i );
+			session.persist( galaxy );
+			Star star = new Star();
+			star.setName( "Star " + i );
+			star.setGalaxy( galaxy );
+			session.persist( star );
+			starIds.add( star.getId() );
+		}
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		List<Star> stars = new ArrayList<Star>();
+		for ( String id : starIds ) {
+			stars.add( (Star) session.get( Star.class, id ) );
+		}
+		for ( Star star : stars ) {
+			assertThat( Hibernate.isInitialized( star.getGalaxy() ) ).isFalse();
+		}
+		final GridStatistics statistics = ( (OgmStatistics) sessions.getStatistics() ).getGridStatistics();
+		statistics.clear();
+		//initializing one proxy loads the whole batch
+		assertThat( stars.get( 0 ).getGalaxy().getName() ).isEqualTo( "Galaxy 0" );
+		//in a single call to the grid
+		assertThat( statistics.getOperationCount( GridOperation.GET_TUPLES.name() ) ).isEqualTo( 1 );
+		assertThat( statistics.getTableOperationCount( "Galaxy", GridOperation.GET_TUPLES.name() ) ).isEqualTo( 1 );
+		assertThat( statistics.getOperationCount( GridOperation.GET_TUPLE.name() ) ).isEqualTo( 0 );
+		for ( int i = 0 ; i < stars.size() ; i++ ) {
+			Galaxy galaxy = stars.get( i ).getGalaxy();
+			assertThat( Hibernate.isInitialized( galaxy ) ).isTrue();
+			assertThat( galaxy.getName() ).isEqualTo( "Galaxy " + i );
+		}
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		for ( String id : starIds ) {
+			Star star = (Star) session.get( Star.class, id );
+			session.delete( star.getGalaxy() );
+			session.delete( star );
+		}
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( GridDialectFactory.GRID_STATISTICS, "true" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Galaxy.class,
+				Star.class
+		};
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.mongodb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import junit.framework.TestCase;
+
+import org.hibernate.ogm.datastore.impl.EmptyTupleSnapshot;
+import org.hibernate.ogm.datastore.mongodb.impl.MongoDBDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.Association;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.mongodb.MongoDBDialect;
+import org.hibernate.ogm.grid.AssociationKey;
+import org.hibernate.ogm.grid.RowKey;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Test how the associations are stored in the association collection.
+ *
+ * @author agent <agent@local>
+ */
+public class MongoDBAssociationTest extends TestCase {
+
+	private MongoDBDatastoreProvider provider;
+	private MongoDBDialect dialect;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		provider = MongoDBTestHelper.startProvider();
+		dialect = new MongoDBDialect( provider );
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		MongoDBTestHelper.dropDatabaseAndStop( provider );
+		super.tearDown();
+	}
+
+	public void testAssociationIsStoredInTheAssociationCollection() throws Exception {
+		Association association = dialect.createAssociation( heroKey( 1 ) );
+		association.put( rowKey( 1, 10 ), row( 1, 10 ) );
+		association.put( rowKey( 1, 11 ), row( 1, 11 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+
+		DBCollection collection = provider.getDatabase().getCollection( MongoDBDatastoreProvider.ASSOCIATIONS_COLLECTION );
+		assertThat( collection.count() ).isEqualTo( 1 );
+		DBObject document = collection.findOne( query( heroKey( 1 ) ) );
+		assertThat( document ).isNotNull();
+		assertThat( (List<?>) document.get( MongoDBDialect.ROWS_FIELD ) ).hasSize( 2 );
+		assertThat( (List<?>) document.get( MongoDBDialect.ROW_KEY_COLUMNS_FIELD ) )
+				.containsOnly( "hero_id", "sidekick_id" );
+
+		Association loaded = dialect.getAssociation( heroKey( 1 ) );
+		assertThat( loaded.getKeys() ).containsOnly( rowKey( 1, 10 ), rowKey( 1, 11 ) );
+		assertThat( loaded.get( rowKey( 1, 11 ) ).get( "sidekick_id" ) ).isEqualTo( 11 );
+	}
+
+	public void testAssociationsAreFoundByTheirKey() throws Exception {
+		Association association = dialect.createAssociation( heroKey( 1 ) );
+		association.put( rowKey( 1, 10 ), row( 1, 10 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		association = dialect.createAssociation( heroKey( 2 ) );
+		association.put( rowKey( 2, 20 ), row( 2, 20 ) );
+		dialect.updateAssociation( association, heroKey( 2 ) );
+
+		AssociationKey sameValuesOtherTable = new AssociationKey( "Villain_Henchman", new String[] { "hero_id" }, new Object[] { 1 } );
+		assertThat( dialect.getAssociation( sameValuesOtherTable ) ).isNull();
+		assertThat( dialect.getAssociation( heroKey( 3 ) ) ).isNull();
+		assertThat( dialect.getAssociation( heroKey( 1 ) ).getKeys() ).containsOnly( rowKey( 1, 10 ) );
+		assertThat( dialect.getAssociation( heroKey( 2 ) ).getKeys() ).containsOnly( rowKey( 2, 20 ) );
+
+		dialect.removeAssociation( heroKey( 1 ) );
+		assertThat( dialect.getAssociation( heroKey( 1 ) ) ).isNull();
+		assertThat( dialect.getAssociation( heroKey( 2 ) ).getKeys() ).containsOnly( rowKey( 2, 20 ) );
+	}
+
+	public void testAddedRowsArePushedToTheExistingOnes() throws Exception {
+		Association association = dialect.createAssociation( heroKey( 1 ) );
+		association.put( rowKey( 1, 10 ), row( 1, 10 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+
+		association = dialect.getAssociation( heroKey( 1 ) );
+		pushConcurrently( 1, 12 );
+		association.put( rowKey( 1, 11 ), row( 1, 11 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		//the row written concurrently has not been overwritten
+		assertThat( sidekicks( 1 ) ).isEqualTo( Arrays.<Object>asList( 10, 12, 11 ) );
+	}
+
+	public void testRemovedRowIsPulledFromTheExistingOnes() throws Exception {
+		Association association = dialect.createAssociation( heroKey( 1 ) );
+		association.put( rowKey( 1, 10 ), row( 1, 10 ) );
+		association.put( rowKey( 1, 11 ), row( 1, 11 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+
+		association = dialect.getAssociation( heroKey( 1 ) );
+		pushConcurrently( 1, 12 );
+		association.remove( rowKey( 1, 10 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		assertThat( sidekicks( 1 ) ).containsOnly( 11, 12 );
+	}
+
+	public void testRemovedRowsAreFoundByTheirSingleKeyColumn() throws Exception {
+		Association association = dialect.createAssociation( heroKey( 1 ) );
+		for ( int sidekick = 10; sidekick < 14; sidekick++ ) {
+			association.put( sidekickKey( sidekick ), row( 1, sidekick ) );
+		}
+		dialect.updateAssociation( association, heroKey( 1 ) );
+
+		association = dialect.getAssociation( heroKey( 1 ) );
+		assertThat( association.getKeys() ).containsOnly( sidekickKey( 10 ), sidekickKey( 11 ), sidekickKey( 12 ), sidekickKey( 13 ) );
+		pushConcurrently( 1, 14 );
+		association.remove( sidekickKey( 10 ) );
+		association.remove( sidekickKey( 12 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		assertThat( sidekicks( 1 ) ).containsOnly( 11, 13, 14 );
+	}
+
+	public void testRowsAreSetWhenTheyCannotBeChangedByOneModifier() throws Exception {
+		Association association = dialect.createAssociation( heroKey( 1 ) );
+		association.put( rowKey( 1, 10 ), row( 1, 10 ) );
+		association.put( rowKey( 1, 11 ), row( 1, 11 ) );
+		association.put( rowKey( 1, 12 ), row( 1, 12 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+
+		//several rows identified by several columns
+		association = dialect.getAssociation( heroKey( 1 ) );
+		association.remove( rowKey( 1, 10 ) );
+		association.remove( rowKey( 1, 11 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		assertThat( sidekicks( 1 ) ).containsOnly( 12 );
+
+		//additions and removals
+		association = dialect.getAssociation( heroKey( 1 ) );
+		association.remove( rowKey( 1, 12 ) );
+		association.put( rowKey( 1, 13 ), row( 1, 13 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		assertThat( sidekicks( 1 ) ).containsOnly( 13 );
+
+		//replaced row
+		association = dialect.getAssociation( heroKey( 1 ) );
+		Tuple replaced = row( 1, 13 );
+		replaced.put( "nickname", "Robin" );
+		association.put( rowKey( 1, 13 ), replaced );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		assertThat( sidekicks( 1 ) ).containsOnly( 13 );
+		assertThat( dialect.getAssociation( heroKey( 1 ) ).get( rowKey( 1, 13 ) ).get( "nickname" ) ).isEqualTo( "Robin" );
+
+		//cleared association
+		association = dialect.getAssociation( heroKey( 1 ) );
+		association.clear();
+		association.put( rowKey( 1, 14 ), row( 1, 14 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		assertThat( sidekicks( 1 ) ).containsOnly( 14 );
+	}
+
+	public void testPullDoesNotCreateTheDocument() throws Exception {
+		Association association = dialect.createAssociation( heroKey( 1 ) );
+		association.put( rowKey( 1, 10 ), row( 1, 10 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+
+		association = dialect.getAssociation( heroKey( 1 ) );
+		dialect.removeAssociation( heroKey( 1 ) );
+		association.remove( rowKey( 1, 10 ) );
+		dialect.updateAssociation( association, heroKey( 1 ) );
+		assertThat( dialect.getAssociation( heroKey( 1 ) ) ).isNull();
+	}
+
+	public void testAssociationKeyIsUniquelyIndexed() throws Exception {
+		DBObject index = null;
+		for ( DBObject candidate : provider.getAssociationCollection().getIndexInfo() ) {
+			if ( "association_key".equals( candidate.get( "name" ) ) ) {
+				index = candidate;
+			}
+		}
+		assertThat( index ).isNotNull();
+		assertThat( index.get( "unique" ) ).isEqualTo( Boolean.TRUE );
+		DBObject fields = (DBObject) index.get( "key" );
+		assertThat( fields.keySet() ).containsOnly( MongoDBDialect.ASSOCIATION_TABLE_FIELD, MongoDBDialect.ASSOCIATION_KEY_FIELD );
+	}
+
+	static AssociationKey heroKey(int heroId) {
+		return new AssociationKey( "Hero_Sidekick", new String[] { "hero_id" }, new Object[] { heroId } );
+	}
+
+	static RowKey rowKey(int heroId, int sidekickId) {
+		return new RowKey( "Hero_Sidekick", new String[] { "hero_id", "sidekick_id" }, new Object[] { heroId, sidekickId } );
+	}
+
+	static RowKey sidekickKey(int sidekickId) {
+		return new RowKey( "Hero_Sidekick", new String[] { "sidekick_id" }, new Object[] { sidekickId } );
+	}
+
+	static Tuple row(int heroId, int sidekickId) {
+		Tuple row = new Tuple( EmptyTupleSnapshot.SINGLETON );
+		row.put( "hero_id", heroId );
+		row.put( "sidekick_id", sidekickId );
+		return row;
+	}
+
+	/**
+	 * The query matching the document of an association, as written by the dialect
+	 */
+	static DBObject query(AssociationKey key) {
+		return new BasicDBObject( MongoDBDialect.ASSOCIATION_TABLE_FIELD, key.getTable() )
+				.append( MongoDBDialect.ASSOCIATION_KEY_FIELD, new BasicDBObject( "hero_id", key.getColumnsValues()[0] ) );
+	}
+
+	/**
+	 * Add a row behind the back of the dialect, as another session would
+	 */
+	private void pushConcurrently(int heroId, int sidekickId) {
+		DBObject row = new BasicDBObject( "hero_id", heroId ).append( "sidekick_id", sidekickId );
+		provider.getAssociationCollection().update(
+				query( heroKey( heroId ) ),
+				new BasicDBObject( "$push", new BasicDBObject( MongoDBDialect.ROWS_FIELD, row ) )
+		);
+	}
+
+	/**
+	 * The sidekicks stored in the document of an association, in the order of the array of rows
+	 */
+	private List<Object> sidekicks(int heroId) {
+		DBObject document = provider.getAssociationCollection().findOne( query( heroKey( heroId ) ) );
+		List<Object> sidekicks = new ArrayList<Object>();
+		for ( Object row : (List<?>) document.get( MongoDBDialect.ROWS_FIELD ) ) {
+			sidekicks.add( ( (DBObject) row ).get( "sidekick_id" ) );
+		}
+		return sidekicks;
+	}
+}
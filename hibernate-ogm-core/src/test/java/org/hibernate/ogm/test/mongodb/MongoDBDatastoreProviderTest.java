@@ -0,0 +1,118 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.mongodb;
+
+import java.util.Map;
+
+import com.mongodb.Mongo;
+import com.mongodb.WriteConcern;
+import junit.framework.TestCase;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ogm.datastore.mongodb.impl.MongoDBDatastoreProvider;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class MongoDBDatastoreProviderTest extends TestCase {
+
+	public void testClientIsConfiguredFromTheProperties() throws Exception {
+		Map<String, String> cfg = MongoDBTestHelper.getConfiguration();
+		cfg.put( MongoDBDatastoreProvider.CONNECTIONS_PER_HOST_PROP, "7" );
+		cfg.put( MongoDBDatastoreProvider.CONNECT_TIMEOUT_PROP, "1500" );
+		MongoDBDatastoreProvider provider = MongoDBTestHelper.startProvider( cfg );
+		try {
+			Mongo mongo = provider.getDatabase().getMongo();
+			assertThat( mongo.getMongoOptions().connectionsPerHost ).isEqualTo( 7 );
+			assertThat( mongo.getMongoOptions().connectTimeout ).isEqualTo( 1500 );
+		}
+		finally {
+			MongoDBTestHelper.dropDatabaseAndStop( provider );
+		}
+	}
+
+	public void testCollectionsAreResolvedOnce() throws Exception {
+		MongoDBDatastoreProvider provider = MongoDBTestHelper.startProvider();
+		try {
+			assertThat( provider.getCollection( "Galaxy" ) ).isSameAs( provider.getCollection( "Galaxy" ) );
+			assertThat( provider.getAssociationCollection().getName() )
+					.isEqualTo( MongoDBDatastoreProvider.ASSOCIATIONS_COLLECTION );
+		}
+		finally {
+			MongoDBTestHelper.dropDatabaseAndStop( provider );
+		}
+	}
+
+	public void testStopReleasesTheDatabase() throws Exception {
+		MongoDBDatastoreProvider provider = MongoDBTestHelper.startProvider();
+		provider.getCollection( "Galaxy" );
+		MongoDBTestHelper.dropDatabaseAndStop( provider );
+		assertThat( provider.getDatabase() ).isNull();
+
+		provider = MongoDBTestHelper.startProvider();
+		try {
+			assertThat( provider.getCollection( "Galaxy" ).getDB() ).isSameAs( provider.getDatabase() );
+		}
+		finally {
+			MongoDBTestHelper.dropDatabaseAndStop( provider );
+		}
+	}
+
+	public void testDatabaseIsRequired() throws Exception {
+		Map<String, String> cfg = MongoDBTestHelper.getConfiguration();
+		cfg.remove( MongoDBDatastoreProvider.DATABASE_PROP );
+		try {
+			MongoDBTestHelper.startProvider( cfg );
+			fail( "The provider should not start without a database" );
+		}
+		catch (HibernateException e) {
+			//expected
+		}
+	}
+
+	public void testWriteConcernCanBeSetPerTable() throws Exception {
+		Map<String, String> cfg = MongoDBTestHelper.getConfiguration();
+		cfg.put( MongoDBDatastoreProvider.WRITE_CONCERN_PROP, "normal" );
+		cfg.put( MongoDBDatastoreProvider.WRITE_CONCERN_PROP + ".Galaxy", "safe" );
+		MongoDBDatastoreProvider provider = MongoDBTestHelper.startProvider( cfg );
+		try {
+			assertThat( provider.getWriteConcern( "Galaxy" ) ).isSameAs( WriteConcern.SAFE );
+			assertThat( provider.getWriteConcern( "Star" ) ).isSameAs( WriteConcern.NORMAL );
+		}
+		finally {
+			MongoDBTestHelper.dropDatabaseAndStop( provider );
+		}
+	}
+
+	public void testUnknownWriteConcernIsRejected() throws Exception {
+		Map<String, String> cfg = MongoDBTestHelper.getConfiguration();
+		cfg.put( MongoDBDatastoreProvider.WRITE_CONCERN_PROP, "sometimes" );
+		try {
+			MongoDBTestHelper.startProvider( cfg );
+			fail( "The write concern is unknown" );
+		}
+		catch (HibernateException e) {
+			//expected
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.mongodb;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import junit.framework.TestCase;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.ogm.datastore.mongodb.impl.MongoDBDatastoreProvider;
+import org.hibernate.ogm.dialect.mongodb.MongoDBDialect;
+import org.hibernate.ogm.grid.RowKey;
+import org.hibernate.ogm.id.impl.OgmTableGenerator;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Test the blocks of values reserved by findAndModify on the sequence documents.
+ *
+ * @author agent <agent@local>
+ */
+public class MongoDBSequenceTest extends TestCase {
+
+	private static final int THREADS = 8;
+
+	private MongoDBDatastoreProvider provider;
+	private MongoDBDialect dialect;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		provider = MongoDBTestHelper.startProvider();
+		dialect = new MongoDBDialect( provider );
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		MongoDBTestHelper.dropDatabaseAndStop( provider );
+		super.tearDown();
+	}
+
+	public void testBlocksFollowEachOther() throws Exception {
+		assertThat( nextValue( segment( "music" ), 10 ) ).isEqualTo( 1L );
+		assertThat( nextValue( segment( "music" ), 10 ) ).isEqualTo( 11L );
+		assertThat( nextValue( segment( "music" ), 1 ) ).isEqualTo( 21L );
+
+		DBObject sequence = provider.getCollection( OgmTableGenerator.DEF_TABLE )
+				.findOne( new BasicDBObject( "_id", "music" ) );
+		assertThat( ( (Number) sequence.get( MongoDBDialect.SEQUENCE_VALUE_FIELD ) ).longValue() ).isEqualTo( 22L );
+	}
+
+	public void testSegmentsAreIndependent() throws Exception {
+		assertThat( nextValue( segment( "music" ), 10 ) ).isEqualTo( 1L );
+		assertThat( nextValue( segment( "video" ), 10 ) ).isEqualTo( 1L );
+		assertThat( nextValue( segment( "music" ), 10 ) ).isEqualTo( 11L );
+
+		RowKey composite = new RowKey(
+				OgmTableGenerator.DEF_TABLE,
+				new String[] { "tenant", OgmTableGenerator.DEF_SEGMENT_COLUMN },
+				new Object[] { "acme", "music" }
+		);
+		assertThat( nextValue( composite, 10 ) ).isEqualTo( 1L );
+		assertThat( nextValue( composite, 10 ) ).isEqualTo( 11L );
+		assertThat( nextValue( segment( "music" ), 10 ) ).isEqualTo( 21L );
+	}
+
+	public void testConcurrentFirstUsesReserveDistinctBlocks() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+		try {
+			//several fresh sequences, so that threads race on inserting the document
+			for ( int round = 0; round < 10; round++ ) {
+				final RowKey key = segment( "race" + round );
+				final CountDownLatch start = new CountDownLatch( 1 );
+				List<Future<Long>> results = new ArrayList<Future<Long>>();
+				for ( int thread = 0; thread < THREADS; thread++ ) {
+					results.add( executor.submit( new Callable<Long>() {
+						@Override
+						public Long call() throws Exception {
+							start.await();
+							return nextValue( key, 10 );
+						}
+					} ) );
+				}
+				start.countDown();
+				Set<Long> values = new HashSet<Long>();
+				for ( Future<Long> result : results ) {
+					values.add( result.get() );
+				}
+				Set<Long> expected = new HashSet<Long>();
+				for ( int block = 0; block < THREADS; block++ ) {
+					expected.add( 1L + block * 10 );
+				}
+				assertThat( values ).isEqualTo( expected );
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private long nextValue(RowKey key, int increment) {
+		IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder( Long.class );
+		dialect.nextValue( key, value, increment, OgmTableGenerator.DEFAULT_INITIAL_VALUE );
+		return value.makeValue().longValue();
+	}
+
+	private static RowKey segment(String name) {
+		return new RowKey(
+				OgmTableGenerator.DEF_TABLE,
+				new String[] { OgmTableGenerator.DEF_SEGMENT_COLUMN },
+				new Object[] { name }
+		);
+	}
+}
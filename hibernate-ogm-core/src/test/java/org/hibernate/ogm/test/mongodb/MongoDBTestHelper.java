@@ -0,0 +1,78 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.mongodb;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.ogm.datastore.mongodb.impl.MongoDBDatastoreProvider;
+
+/**
+ * Starts providers connected to the test server, set by the mongodb Maven profile.
+ *
+ * @author agent <agent@local>
+ */
+public class MongoDBTestHelper {
+
+	private static final String DEFAULT_DATABASE = "hibernate_ogm_test";
+
+	/**
+	 * The properties connecting to the test database
+	 */
+	public static Map<String, String> getConfiguration() {
+		Map<String, String> cfg = new HashMap<String, String>();
+		copySystemProperty( cfg, MongoDBDatastoreProvider.SERVER_PROP );
+		copySystemProperty( cfg, MongoDBDatastoreProvider.PORT_PROP );
+		cfg.put(
+				MongoDBDatastoreProvider.DATABASE_PROP,
+				System.getProperty( MongoDBDatastoreProvider.DATABASE_PROP, DEFAULT_DATABASE )
+		);
+		return cfg;
+	}
+
+	public static MongoDBDatastoreProvider startProvider() {
+		return startProvider( getConfiguration() );
+	}
+
+	public static MongoDBDatastoreProvider startProvider(Map<String, String> cfg) {
+		MongoDBDatastoreProvider provider = new MongoDBDatastoreProvider();
+		provider.configure( cfg );
+		provider.start();
+		return provider;
+	}
+
+	/**
+	 * Drop the test database and stop the provider
+	 */
+	public static void dropDatabaseAndStop(MongoDBDatastoreProvider provider) {
+		if ( provider.getDatabase() != null ) {
+			provider.getDatabase().dropDatabase();
+		}
+		provider.stop();
+	}
+
+	private static void copySystemProperty(Map<String, String> cfg, String property) {
+		String value = System.getProperty( property );
+		if ( value != null ) {
+			cfg.put( property, value );
+		}
+	}
+}
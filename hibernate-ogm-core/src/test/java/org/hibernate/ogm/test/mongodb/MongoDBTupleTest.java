@@ -0,0 +1,170 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.mongodb;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import junit.framework.TestCase;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ogm.datastore.mongodb.impl.MongoDBDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.mongodb.MongoDBDialect;
+import org.hibernate.ogm.grid.EntityKey;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Test the upserts and inserts writing the entity documents.
+ *
+ * @author agent <agent@local>
+ */
+public class MongoDBTupleTest extends TestCase {
+
+	private static final EntityKey GALAXY = new EntityKey( "Galaxy", "milky-way" );
+
+	private MongoDBDatastoreProvider provider;
+	private MongoDBDialect dialect;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		provider = MongoDBTestHelper.startProvider();
+		dialect = new MongoDBDialect( provider );
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		MongoDBTestHelper.dropDatabaseAndStop( provider );
+		super.tearDown();
+	}
+
+	public void testNewDocumentIsUpserted() throws Exception {
+		Tuple tuple = dialect.createTuple( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		tuple.put( "stars", 300 );
+		dialect.updateTuple( tuple, GALAXY );
+
+		DBObject document = findDocument();
+		assertThat( document.get( "name" ) ).isEqualTo( "Milky Way" );
+		assertThat( document.get( "stars" ) ).isEqualTo( 300 );
+		assertThat( dialect.getTuple( GALAXY ).get( "name" ) ).isEqualTo( "Milky Way" );
+	}
+
+	public void testOnlyTheChangedColumnsAreWritten() throws Exception {
+		Tuple tuple = dialect.createTuple( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		tuple.put( "stars", 300 );
+		dialect.updateTuple( tuple, GALAXY );
+
+		tuple = dialect.getTuple( GALAXY );
+		//changed by another writer after the read
+		setConcurrently( "stars", 400 );
+		tuple.put( "name", "Via Lactea" );
+		dialect.updateTuple( tuple, GALAXY );
+
+		DBObject document = findDocument();
+		assertThat( document.get( "name" ) ).isEqualTo( "Via Lactea" );
+		assertThat( document.get( "stars" ) ).isEqualTo( 400 );
+	}
+
+	public void testUpdateDoesNotRecreateARemovedDocument() throws Exception {
+		Tuple tuple = dialect.createTuple( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		tuple.put( "stars", 300 );
+		dialect.updateTuple( tuple, GALAXY );
+
+		tuple = dialect.getTuple( GALAXY );
+		//removed by another session after the read
+		provider.getCollection( GALAXY.getTable() ).remove( new BasicDBObject( "_id", GALAXY.getId() ) );
+		tuple.put( "name", "Via Lactea" );
+		dialect.updateTuple( tuple, GALAXY );
+
+		assertThat( findDocument() ).isNull();
+	}
+
+	public void testRemovedColumnsAreUnset() throws Exception {
+		Tuple tuple = dialect.createTuple( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		tuple.put( "stars", 300 );
+		dialect.updateTuple( tuple, GALAXY );
+
+		tuple = dialect.getTuple( GALAXY );
+		tuple.remove( "stars" );
+		dialect.updateTuple( tuple, GALAXY );
+
+		DBObject document = findDocument();
+		assertThat( document.containsField( "stars" ) ).isFalse();
+		assertThat( document.get( "name" ) ).isEqualTo( "Milky Way" );
+	}
+
+	public void testTupleCreatedIfAbsentIsInserted() throws Exception {
+		Tuple tuple = dialect.createTupleIfAbsent( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		dialect.updateTuple( tuple, GALAXY );
+		assertThat( findDocument().get( "name" ) ).isEqualTo( "Milky Way" );
+
+		tuple = dialect.createTupleIfAbsent( GALAXY );
+		tuple.put( "name", "Andromeda" );
+		try {
+			dialect.updateTuple( tuple, GALAXY );
+			fail( "The document already exists" );
+		}
+		catch (HibernateException e) {
+			//expected
+		}
+		assertThat( findDocument().get( "name" ) ).isEqualTo( "Milky Way" );
+	}
+
+	public void testTupleIsUpdatedOnlyIfItHoldsTheExpectedVersion() throws Exception {
+		Tuple tuple = dialect.createTuple( GALAXY );
+		tuple.put( "name", "Milky Way" );
+		tuple.put( "version", 1 );
+		dialect.updateTuple( tuple, GALAXY );
+
+		tuple = dialect.getTuple( GALAXY );
+		tuple.put( "name", "Via Lactea" );
+		tuple.put( "version", 2 );
+		assertThat( dialect.updateTupleIfVersion( tuple, GALAXY, "version", 1 ) ).isTrue();
+		assertThat( findDocument().get( "version" ) ).isEqualTo( 2 );
+
+		Tuple stale = dialect.getTuple( GALAXY );
+		stale.put( "name", "Andromeda" );
+		stale.put( "version", 2 );
+		assertThat( dialect.updateTupleIfVersion( stale, GALAXY, "version", 1 ) ).isFalse();
+		assertThat( findDocument().get( "name" ) ).isEqualTo( "Via Lactea" );
+
+		EntityKey missing = new EntityKey( "Galaxy", "andromeda" );
+		assertThat( dialect.updateTupleIfVersion( stale, missing, "version", 1 ) ).isFalse();
+		assertThat( provider.getCollection( "Galaxy" ).findOne( new BasicDBObject( "_id", "andromeda" ) ) ).isNull();
+	}
+
+	private DBObject findDocument() {
+		return provider.getCollection( GALAXY.getTable() ).findOne( new BasicDBObject( "_id", GALAXY.getId() ) );
+	}
+
+	private void setConcurrently(String field, Object value) {
+		provider.getCollection( GALAXY.getTable() ).update(
+				new BasicDBObject( "_id", GALAXY.getId() ),
+				new BasicDBObject( "$set", new BasicDBObject( field, value ) )
+		);
+	}
+}
@@ -44,6 +44,7 @@ public class PerfTest extends JpaTestCase {
 			perfTest.createFactory();
 			//perfTest.testSimpleEntityInserts();
 			//perfTest.testManyToOneAssociations();
+			//perfTest.testCollectionReads();
 			perfTest.testCollectionAssociations();
 			perfTest.closeFactory();
 		}
@@ -124,6 +125,52 @@ public class PerfTest extends JpaTestCase {
 		em.close();
 	}
 
+	/**
+	 * Measures the loading of collections and of their elements, that is the hydration of entities
+	 * and collection rows from the tuples. Run it on two revisions to compare hydration paths.
+	 */
+	public void testCollectionReads() throws Exception {
+		getTransactionManager().begin();
+		EntityManager em = getFactory().createEntityManager();
+		int nbrOfAuthors = 200;
+		int nbrOfBlogs = 200;
+		save200AuthorsAndCommit(em, nbrOfAuthors);
+		save200BlogsAndCommit(em, nbrOfBlogs);
+		int nbrOfBlogEntries = 20000;
+		for (int j = 0 ; j < nbrOfBlogEntries/200 ; j++) {
+			save200BlogEntriesAndCommit(em, nbrOfAuthors, true);
+		}
+		getTransactionManager().commit();
+		em.close();
+
+		System.out.printf("Warming up\n");
+		readBlogEntries(nbrOfBlogs, 2000);
+		int blogReads = 10000;
+		System.out.printf("Warm up period done\nReading %s blogs and their entries\n", blogReads);
+		long start = System.nanoTime();
+		long entries = readBlogEntries(nbrOfBlogs, blogReads);
+		long elapsed = System.nanoTime() - start;
+		System.out.printf("Reading %s entries took %sms ie %sns/entry\n", entries, elapsed / 1000000, elapsed / entries);
+	}
+
+	private long readBlogEntries(int nbrOfBlogs, int blogReads) throws Exception {
+		long entries = 0;
+		EntityManager em = getFactory().createEntityManager();
+		for (int i = 0 ; i < blogReads; i++) {
+			getTransactionManager().begin();
+			em.joinTransaction();
+			Blog blog = em.find(Blog.class, randId(nbrOfBlogs));
+			for (BlogEntry entry : blog.getEntries()) {
+				assertThat(entry.getTitle()).isNotEmpty();
+				entries++;
+			}
+			em.clear();
+			getTransactionManager().commit();
+		}
+		em.close();
+		return entries;
+	}
+
 	public void testManyToOneAssociations() throws Exception {
 		System.out.printf("Warming up\n");
 		getTransactionManager().begin();
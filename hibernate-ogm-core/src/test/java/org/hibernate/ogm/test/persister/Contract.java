@@ -0,0 +1,67 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.persister;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+import org.hibernate.annotations.GenericGenerator;
+
+/**
+ * @author agent <agent@local>
+ */
+@Entity
+public class Contract {
+	@Id
+	@GeneratedValue(generator = "uuid") @GenericGenerator( name="uuid", strategy = "uuid2")
+	public String getId() { return id; }
+	public void setId(String id) {  this.id = id; }
+	private String id;
+
+	public String getSignatory() { return signatory; }
+	public void setSignatory(String signatory) {  this.signatory = signatory; }
+	private String signatory;
+
+	//set when the contract is signed only
+	@Column(updatable = false)
+	public String getReference() { return reference; }
+	public void setReference(String reference) {  this.reference = reference; }
+	private String reference;
+
+	//only added to a signed contract
+	@Column(insertable = false)
+	public String getAmendment() { return amendment; }
+	public void setAmendment(String amendment) {  this.amendment = amendment; }
+	private String amendment;
+
+	@Column(name = "signed_at")
+	public String getPlace() { return place; }
+	public void setPlace(String place) {  this.place = place; }
+	private String place;
+
+	//read only view of the signatory column
+	@Column(name = "signatory", insertable = false, updatable = false)
+	public String getSignedBy() { return signedBy; }
+	public void setSignedBy(String signedBy) {  this.signedBy = signedBy; }
+	private String signedBy;
+}
@@ -0,0 +1,104 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.persister;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.ogm.datastore.impl.DatastoreServices;
+import org.hibernate.ogm.datastore.spi.Tuple;
+import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * The columns of the properties are computed once by the persister:
+ * check the columns written and read for each property.
+ *
+ * @author agent <agent@local>
+ */
+public class EntityPersisterColumnsTest extends OgmTestCase {
+
+	public void testPropertiesAreWrittenToTheirColumns() throws Exception {
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Contract contract = new Contract();
+		contract.setSignatory( "Emmanuel" );
+		contract.setReference( "OGM-1" );
+		contract.setAmendment( "Not inserted" );
+		contract.setSignedBy( "Not inserted" );
+		contract.setPlace( "Paris" );
+		session.persist( contract );
+		transaction.commit();
+		session.clear();
+
+		//each property is written to its own columns
+		final EntityKey key = new EntityKey( "Contract", contract.getId() );
+		Tuple tuple = getGridDialect().getTuple( key );
+		assertThat( tuple.get( "signatory" ) ).isEqualTo( "Emmanuel" );
+		assertThat( tuple.get( "reference" ) ).isEqualTo( "OGM-1" );
+		assertThat( tuple.get( "signed_at" ) ).isEqualTo( "Paris" );
+		assertThat( tuple.getColumnNames() ).excludes( "amendment", "place", "signedBy" );
+
+		transaction = session.beginTransaction();
+		contract = (Contract) session.get( Contract.class, contract.getId() );
+		assertThat( contract.getSignatory() ).isEqualTo( "Emmanuel" );
+		assertThat( contract.getReference() ).isEqualTo( "OGM-1" );
+		assertThat( contract.getAmendment() ).isNull();
+		assertThat( contract.getSignedBy() ).isEqualTo( "Emmanuel" );
+		assertThat( contract.getPlace() ).isEqualTo( "Paris" );
+		contract.setSignatory( "Sanne" );
+		contract.setReference( "Not updated" );
+		contract.setAmendment( "Signed twice" );
+		contract.setSignedBy( "Not updated" );
+		transaction.commit();
+		session.clear();
+
+		tuple = getGridDialect().getTuple( key );
+		assertThat( tuple.get( "signatory" ) ).isEqualTo( "Sanne" );
+		assertThat( tuple.get( "reference" ) ).isEqualTo( "OGM-1" );
+		assertThat( tuple.get( "amendment" ) ).isEqualTo( "Signed twice" );
+
+		transaction = session.beginTransaction();
+		contract = (Contract) session.get( Contract.class, contract.getId() );
+		assertThat( contract.getSignatory() ).isEqualTo( "Sanne" );
+		assertThat( contract.getReference() ).isEqualTo( "OGM-1" );
+		assertThat( contract.getAmendment() ).isEqualTo( "Signed twice" );
+		assertThat( contract.getSignedBy() ).isEqualTo( "Sanne" );
+		session.delete( contract );
+		transaction.commit();
+		session.close();
+
+		checkCleanCache();
+	}
+
+	private GridDialect getGridDialect() {
+		return sfi().getServiceRegistry().getService( DatastoreServices.class ).getGridDialect();
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Contract.class
+		};
+	}
+}
@@ -20,6 +20,7 @@
  */
 package org.hibernate.ogm.test.simpleentity;
 
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 
@@ -73,6 +74,43 @@ public class CRUDTest extends OgmTestCase {
 		session.close();
 	}
 
+	public void testInsertOfAnExistingEntityFails() throws Exception {
+		Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Hypothesis hyp = new Hypothesis();
+		hyp.setId( "19" );
+		hyp.setDescription( "There is an odd perfect number" );
+		session.persist( hyp );
+		transaction.commit();
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		Hypothesis duplicate = new Hypothesis();
+		duplicate.setId( "19" );
+		duplicate.setDescription( "There is no odd perfect number" );
+		session.persist( duplicate );
+		try {
+			transaction.commit();
+			fail( "An existing entity has been overwritten" );
+		}
+		catch (HibernateException e) {
+			//expected
+			if ( transaction.isActive() ) {
+				transaction.rollback();
+			}
+		}
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		Hypothesis loadedHyp = (Hypothesis) session.get( Hypothesis.class, "19" );
+		assertEquals( "There is an odd perfect number", loadedHyp.getDescription() );
+		session.delete( loadedHyp );
+		transaction.commit();
+		session.close();
+	}
+
 	private void performanceLoop() throws Exception {
 		long start = 0;
 		for ( int i = 0; i < Integer.MAX_VALUE; i++ ) {
@@ -0,0 +1,166 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.simpleentity;
+
+import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * @author agent <agent@local>
+ */
+public class OptimisticLockingTest extends OgmTestCase {
+
+	public void testUpdateOfAStaleEntityFails() throws Exception {
+		Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Manuscript manuscript = new Manuscript();
+		manuscript.setTitle( "Codex" );
+		manuscript.setContent( "First draft" );
+		session.persist( manuscript );
+		transaction.commit();
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		Manuscript current = (Manuscript) session.get( Manuscript.class, "Codex" );
+		current.setContent( "Second draft" );
+		transaction.commit();
+		session.close();
+		assertEquals( 1, current.getRevision() );
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		manuscript.setContent( "Lost update" );
+		session.update( manuscript );
+		try {
+			transaction.commit();
+			fail( "A stale entity has overwritten a newer version" );
+		}
+		catch (HibernateException e) {
+			//expected
+			if ( transaction.isActive() ) {
+				transaction.rollback();
+			}
+		}
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		current = (Manuscript) session.get( Manuscript.class, "Codex" );
+		assertEquals( "Second draft", current.getContent() );
+		assertEquals( 1, current.getRevision() );
+		current.setContent( "Third draft" );
+		transaction.commit();
+		session.close();
+		assertEquals( 2, current.getRevision() );
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		session.delete( session.get( Manuscript.class, "Codex" ) );
+		transaction.commit();
+		session.close();
+	}
+
+	public void testReadLockIsValidatedOnCommit() throws Exception {
+		Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Manuscript manuscript = new Manuscript();
+		manuscript.setTitle( "Folio" );
+		manuscript.setContent( "First draft" );
+		session.persist( manuscript );
+		transaction.commit();
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		Manuscript current = (Manuscript) session.get( Manuscript.class, "Folio", new LockOptions( LockMode.PESSIMISTIC_READ ) );
+		assertEquals( "First draft", current.getContent() );
+		transaction.commit();
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		current = (Manuscript) session.get( Manuscript.class, "Folio" );
+		current.setContent( "Second draft" );
+		transaction.commit();
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		//the detached instance still holds the first version
+		session.buildLockRequest( new LockOptions( LockMode.PESSIMISTIC_READ ) ).lock( manuscript );
+		try {
+			transaction.commit();
+			fail( "A read lock on a stale entity has been validated" );
+		}
+		catch (HibernateException e) {
+			//expected
+			if ( transaction.isActive() ) {
+				transaction.rollback();
+			}
+		}
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		session.delete( session.get( Manuscript.class, "Folio" ) );
+		transaction.commit();
+		session.close();
+	}
+
+	public void testReadLockedEntityCanBeUpdated() throws Exception {
+		Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Manuscript manuscript = new Manuscript();
+		manuscript.setTitle( "Palimpsest" );
+		manuscript.setContent( "First draft" );
+		session.persist( manuscript );
+		transaction.commit();
+		session.close();
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		Manuscript current = (Manuscript) session.get( Manuscript.class, "Palimpsest", new LockOptions( LockMode.PESSIMISTIC_READ ) );
+		current.setContent( "Second draft" );
+		//the version written by the session itself is not a concurrent change
+		transaction.commit();
+		session.close();
+		assertEquals( 1, current.getRevision() );
+
+		session = openSession();
+		transaction = session.beginTransaction();
+		current = (Manuscript) session.get( Manuscript.class, "Palimpsest", new LockOptions( LockMode.PESSIMISTIC_READ ) );
+		assertEquals( "Second draft", current.getContent() );
+		session.delete( current );
+		transaction.commit();
+		session.close();
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Manuscript.class
+		};
+	}
+}
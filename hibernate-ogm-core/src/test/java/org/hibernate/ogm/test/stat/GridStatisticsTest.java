@@ -0,0 +1,146 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.hibernate.ogm.test.stat;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.ogm.datastore.infinispan.impl.InfinispanDatastoreProvider;
+import org.hibernate.ogm.datastore.spi.DatastoreProvider;
+import org.hibernate.ogm.dialect.BatchableGridDialect;
+import org.hibernate.ogm.dialect.GridDialect;
+import org.hibernate.ogm.dialect.impl.BatchableGridStatisticsDelegator;
+import org.hibernate.ogm.dialect.impl.GridDialectFactory;
+import org.hibernate.ogm.dialect.impl.GridStatisticsDelegator;
+import org.hibernate.ogm.dialect.infinispan.InfinispanDialect;
+import org.hibernate.ogm.grid.EntityKey;
+import org.hibernate.ogm.stat.GridOperation;
+import org.hibernate.ogm.stat.GridStatistics;
+import org.hibernate.ogm.stat.OgmStatistics;
+import org.hibernate.ogm.stat.impl.GridStatisticsImpl;
+import org.hibernate.ogm.test.simpleentity.Hypothesis;
+import org.hibernate.ogm.test.simpleentity.OgmTestCase;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author agent <agent@local>
+ */
+public class GridStatisticsTest extends OgmTestCase {
+
+	public void testGridOperationsAreRecorded() throws Exception {
+		assertThat( sessions.getStatistics() ).isInstanceOf( OgmStatistics.class );
+		final GridStatistics statistics = ( (OgmStatistics) sessions.getStatistics() ).getGridStatistics();
+		statistics.clear();
+
+		final Session session = openSession();
+		Transaction transaction = session.beginTransaction();
+		Hypothesis hypothesis = new Hypothesis();
+		hypothesis.setId( "statistics" );
+		hypothesis.setDescription( "Grid operations can be counted" );
+		session.persist( hypothesis );
+		transaction.commit();
+		session.clear();
+
+		transaction = session.beginTransaction();
+		hypothesis = (Hypothesis) session.get( Hypothesis.class, "statistics" );
+		assertThat( hypothesis ).isNotNull();
+		session.delete( hypothesis );
+		transaction.commit();
+		session.close();
+
+		final String getTuple = GridOperation.GET_TUPLE.name();
+		assertThat( statistics.getOperationCount( getTuple ) ).isGreaterThan( 0 );
+		assertThat( statistics.getOperationColumnOrRowCount( getTuple ) ).isGreaterThan( 0 );
+		long histogramCount = 0;
+		for ( long bucket : statistics.getOperationLatencyHistogram( getTuple ) ) {
+			histogramCount += bucket;
+		}
+		assertThat( histogramCount ).isEqualTo( statistics.getOperationCount( getTuple ) );
+		assertThat( statistics.getTableNames() ).contains( "Hypothesis" );
+		assertThat( statistics.getTableOperationCount( "Hypothesis", getTuple ) ).isGreaterThan( 0 );
+		//written in a batch or right away depending on the dialect
+		assertThat( statistics.getTableOperationCount( "Hypothesis", GridOperation.REMOVE_TUPLE.name() ) ).isEqualTo( 1 );
+
+		statistics.clear();
+		assertThat( statistics.getOperationCount() ).isEqualTo( 0 );
+	}
+
+	public void testBatchLoadsAreRecordedForEachTable() throws Exception {
+		final GridStatisticsImpl statistics = new GridStatisticsImpl();
+		final InfinispanDialect dialect = new InfinispanDialect(
+				(InfinispanDatastoreProvider) sfi().getServiceRegistry().getService( DatastoreProvider.class ) );
+		final GridDialect gridDialect = new GridStatisticsDelegator( dialect, statistics );
+		//only the delegators of batchable dialects accept batches
+		assertThat( gridDialect instanceof BatchableGridDialect ).isFalse();
+		assertThat( new BatchableGridStatisticsDelegator( dialect, statistics ) ).isInstanceOf( BatchableGridDialect.class );
+
+		gridDialect.getTuples( new EntityKey[] {
+				new EntityKey( "Hypothesis", "first" ),
+				new EntityKey( "Hypothesis", "second" ),
+				new EntityKey( "Helicopter", "first" )
+		} );
+
+		final String getTuples = GridOperation.GET_TUPLES.name();
+		assertThat( statistics.getOperationCount( getTuples ) ).isEqualTo( 1 );
+		assertThat( statistics.getTableOperationCount( "Hypothesis", getTuples ) ).isEqualTo( 1 );
+		assertThat( statistics.getTableOperationCount( "Helicopter", getTuples ) ).isEqualTo( 1 );
+	}
+
+	public void testIdentifierUpdateRetriesAreRecorded() throws Exception {
+		final GridStatisticsImpl statistics = new GridStatisticsImpl();
+		statistics.recordIdentifierUpdateRetry();
+		statistics.recordIdentifierUpdateRetry();
+		assertThat( statistics.getIdentifierUpdateRetries() ).isEqualTo( 2 );
+		statistics.setStatisticsEnabled( false );
+		statistics.recordIdentifierUpdateRetry();
+		assertThat( statistics.getIdentifierUpdateRetries() ).isEqualTo( 2 );
+		statistics.clear();
+		assertThat( statistics.getIdentifierUpdateRetries() ).isEqualTo( 0 );
+	}
+
+	public void testStatisticsAreExposedThroughJmx() throws Exception {
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final Set<ObjectName> names = server.queryNames( new ObjectName( "org.hibernate.ogm:type=GridStatistics,*" ), null );
+		assertThat( names ).isNotEmpty();
+		for ( ObjectName name : names ) {
+			assertThat( server.getAttribute( name, "OperationNames" ) ).isInstanceOf( String[].class );
+			assertThat( server.getAttribute( name, "IdentifierUpdateRetries" ) ).isInstanceOf( Long.class );
+		}
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( GridDialectFactory.GRID_STATISTICS, "true" );
+	}
+
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class<?>[] {
+				Hypothesis.class
+		};
+	}
+}